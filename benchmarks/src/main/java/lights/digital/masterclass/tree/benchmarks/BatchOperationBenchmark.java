@@ -0,0 +1,114 @@
+/**
+ * @author Stiliyan Iliev
+ * @version 1.0
+ * Package for JMH benchmarks of the tree framework.
+ */
+package lights.digital.masterclass.tree.benchmarks;
+
+import lights.digital.masterclass.tree.balanced.redblack.RedBlackTree;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Compares the batch operations of a {@link RedBlackTree} with calling the
+ * single-key operations for every key of the batch. The tree holds the even
+ * keys below {@code 2 * size}; a batch holds {@code batchSize} random keys
+ * below the same bound, so about half of them are in the tree. The tree is
+ * rebuilt before every call, so the changes of one call do not affect the next.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class BatchOperationBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"1000", "100000"})
+    public int batchSize;
+
+    private List<Integer> elements;
+
+    private List<Integer> batch;
+
+    private RedBlackTree<Integer> tree;
+
+    @Setup
+    public void setUp() {
+        Logger.getRootLogger().setLevel(Level.OFF);
+
+        elements = IntStream.range(0, size).map(i -> 2 * i).boxed().toList();
+        batch = new Random(42).ints(batchSize, 0, 2 * size).boxed().toList();
+        tree = new RedBlackTree<>();
+    }
+
+    @Setup(org.openjdk.jmh.annotations.Level.Invocation)
+    public void rebuildTree() {
+        tree.buildFromSorted(elements.iterator());
+    }
+
+    @Benchmark
+    public BitSet containsAll() {
+        return tree.containsAll(batch);
+    }
+
+    @Benchmark
+    public int containsOneByOne() {
+        int contained = 0;
+        for (Integer key : batch) {
+            if (tree.contains(key)) {
+                contained++;
+            }
+        }
+
+        return contained;
+    }
+
+    @Benchmark
+    public BitSet insertAll() {
+        return tree.insertAll(batch);
+    }
+
+    @Benchmark
+    public int insertOneByOne() {
+        for (Integer key : batch) {
+            tree.insert(key);
+        }
+
+        return tree.size();
+    }
+
+    @Benchmark
+    public BitSet eraseAll() {
+        return tree.eraseAll(batch);
+    }
+
+    @Benchmark
+    public int eraseOneByOne() {
+        for (Integer key : batch) {
+            tree.erase(key);
+        }
+
+        return tree.size();
+    }
+}
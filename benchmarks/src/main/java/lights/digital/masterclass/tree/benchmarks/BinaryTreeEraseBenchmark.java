@@ -0,0 +1,83 @@
+/**
+ * @author Stiliyan Iliev
+ * @version 1.0
+ * Package for JMH benchmarks of the tree framework.
+ */
+package lights.digital.masterclass.tree.benchmarks;
+
+import lights.digital.masterclass.tree.twonode.binary.BinaryTree;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of erasing a random key from a {@link BinaryTree}
+ * built from randomly ordered keys. Every erased key is inserted back, so
+ * the size of the tree stays the same during the measurement. With the
+ * successor splice the latency should grow with the height of the tree
+ * (logarithmically for random keys), not with its size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BinaryTreeEraseBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private BinaryTree<Integer> tree;
+
+    private Integer[] keys;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Logger.getRootLogger().setLevel(Level.OFF);
+
+        keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = i;
+        }
+
+        Random random = new Random(42);
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Integer tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+        }
+
+        tree = new BinaryTree<>();
+        for (Integer key : keys) {
+            tree.insert(key);
+        }
+    }
+
+    @Benchmark
+    public int eraseAndReinsert() {
+        Integer key = keys[next];
+        next = next + 1 == size ? 0 : next + 1;
+
+        tree.erase(key);
+        tree.insert(key);
+
+        return tree.size();
+    }
+}
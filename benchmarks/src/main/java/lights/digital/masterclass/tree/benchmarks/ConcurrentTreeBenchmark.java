@@ -0,0 +1,137 @@
+/**
+ * @author Stiliyan Iliev
+ * @version 1.0
+ * Package for JMH benchmarks of the tree framework.
+ */
+package lights.digital.masterclass.tree.benchmarks;
+
+import lights.digital.masterclass.tree.Tree;
+import lights.digital.masterclass.tree.concurrent.StampedLockTree;
+import lights.digital.masterclass.tree.factory.TreeFactory;
+import lights.digital.masterclass.tree.factory.TreeType;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of a tree shared by several threads, which look
+ * up random keys and insert or erase the rest of the time. The
+ * {@code ConcurrentSkipListTree} and a {@code RedBlackTree} guarded by a
+ * {@code StampedLockTree}, whose lookups run as optimistic reads, are compared
+ * with a {@code RedBlackTree} behind one global lock, which every operation
+ * takes.
+ * <p>
+ * JMH runs a benchmark with one number of threads, so {@link #main(String[])}
+ * runs it with 1, 2, 4, 8, 16 and 32 threads:
+ * <pre>
+ * java -cp target/benchmarks.jar lights.digital.masterclass.tree.benchmarks.ConcurrentTreeBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentTreeBenchmark {
+
+    private static final int SIZE = 1_000_000;
+
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32};
+
+    @Param({"CONCURRENT_TREE", "STAMPED_LOCK_RB_TREE", "SYNCHRONIZED_RB_TREE"})
+    public String implementation;
+
+    /**
+     * The percentage of the operations which only look up a key.
+     */
+    @Param({"100", "95", "50"})
+    public int readPercentage;
+
+    private Tree<Integer> tree;
+
+    /**
+     * The lock taken by every operation, or null if the tree needs none.
+     */
+    private Object lock;
+
+    @Setup
+    public void setUp() {
+        Logger.getRootLogger().setLevel(Level.OFF);
+
+        switch (implementation) {
+            case "CONCURRENT_TREE" -> tree = TreeFactory.getInstance(TreeType.CONCURRENT_TREE);
+            case "STAMPED_LOCK_RB_TREE" -> tree = new StampedLockTree<>(TreeFactory.<Integer>getInstance(TreeType.RB_TREE));
+            default -> {
+                tree = TreeFactory.getInstance(TreeType.RB_TREE);
+                lock = new Object();
+            }
+        }
+
+        // Every second key of the range is in the tree.
+        for (Integer key : KeyDistribution.RANDOM.keys(SIZE)) {
+            tree.insert(key);
+        }
+    }
+
+    @Benchmark
+    public boolean mixedOperations() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Integer key = random.nextInt(2 * SIZE);
+        int operation = random.nextInt(100);
+
+        if (lock == null) {
+            return apply(operation, key);
+        }
+        synchronized (lock) {
+            return apply(operation, key);
+        }
+    }
+
+    /**
+     * Looks up {@code key} or else inserts or erases it with the same
+     * probability, so the size of the tree stays about the same.
+     */
+    private boolean apply(int operation, Integer key) {
+        if (operation < readPercentage) {
+            return tree.contains(key);
+        }
+        if (operation % 2 == 0) {
+            tree.insert(key);
+        } else {
+            tree.erase(key);
+        }
+
+        return false;
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+
+        for (int threads : THREADS) {
+            new Runner(new OptionsBuilder()
+                    .parent(commandLineOptions)
+                    .include(ConcurrentTreeBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build()).run();
+        }
+    }
+}
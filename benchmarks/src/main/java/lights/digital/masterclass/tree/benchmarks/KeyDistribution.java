@@ -0,0 +1,72 @@
+/**
+ * @author Stiliyan Iliev
+ * @version 1.0
+ * Package for JMH benchmarks of the tree framework.
+ */
+package lights.digital.masterclass.tree.benchmarks;
+
+import java.util.Random;
+
+/**
+ * The order in which the keys of a benchmark are inserted. All orders
+ * contain the same keys {@code 0, 2, 4, ..., 2 * (size - 1)}, so the odd
+ * numbers in the same range are never in the tree.
+ */
+public enum KeyDistribution {
+
+    /**
+     * The keys in ascending order.
+     */
+    SORTED,
+
+    /**
+     * The keys shuffled with a fixed seed.
+     */
+    RANDOM,
+
+    /**
+     * The smallest and the largest of the remaining keys in turn
+     * ({@code 0, 2 * (size - 1), 2, 2 * (size - 2), ...}). A binary search
+     * tree becomes a zigzag path and a red-black tree has to rebalance at
+     * both ends of the tree by turns.
+     */
+    ADVERSARIAL;
+
+    /**
+     * @param size The number of keys.
+     * @return The keys in the order of the current distribution.
+     */
+    public Integer[] keys(int size) {
+        Integer[] keys = new Integer[size];
+
+        switch (this) {
+            case SORTED -> {
+                for (int i = 0; i < size; i++) {
+                    keys[i] = 2 * i;
+                }
+            }
+            case RANDOM -> {
+                for (int i = 0; i < size; i++) {
+                    keys[i] = 2 * i;
+                }
+
+                Random random = new Random(42);
+                for (int i = size - 1; i > 0; i--) {
+                    int j = random.nextInt(i + 1);
+                    Integer tmp = keys[i];
+                    keys[i] = keys[j];
+                    keys[j] = tmp;
+                }
+            }
+            case ADVERSARIAL -> {
+                int low = 0;
+                int high = size - 1;
+                for (int i = 0; i < size; i++) {
+                    keys[i] = 2 * (i % 2 == 0 ? low++ : high--);
+                }
+            }
+        }
+
+        return keys;
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * @author Stiliyan Iliev
+ * @version 1.0
+ * Package for JMH benchmarks of the tree framework.
+ */
+package lights.digital.masterclass.tree.benchmarks;
+
+import lights.digital.masterclass.tree.Tree;
+import lights.digital.masterclass.tree.factory.TreeFactory;
+import lights.digital.masterclass.tree.factory.TreeType;
+
+/**
+ * The trees compared by the benchmarks, with {@link java.util.TreeMap} as
+ * the baseline.
+ */
+public enum TreeImplementation {
+    BINARY_TREE,
+    RB_TREE,
+    B_TREE,
+    CONCURRENT_TREE,
+    TREE_MAP;
+
+    /**
+     * @return A new empty tree of the current implementation.
+     */
+    public Tree<Integer> create() {
+        return switch (this) {
+            case BINARY_TREE -> TreeFactory.getInstance(TreeType.BINARY_TREE);
+            case RB_TREE -> TreeFactory.getInstance(TreeType.RB_TREE);
+            case B_TREE -> TreeFactory.getInstance(TreeType.B_TREE);
+            case CONCURRENT_TREE -> TreeFactory.getInstance(TreeType.CONCURRENT_TREE);
+            case TREE_MAP -> new TreeMapTree<>();
+        };
+    }
+}
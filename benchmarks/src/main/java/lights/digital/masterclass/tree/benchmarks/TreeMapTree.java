@@ -0,0 +1,106 @@
+/**
+ * @author Stiliyan Iliev
+ * @version 1.0
+ * Package for JMH benchmarks of the tree framework.
+ */
+package lights.digital.masterclass.tree.benchmarks;
+
+import lights.digital.masterclass.tree.Traversal;
+import lights.digital.masterclass.tree.Tree;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.TreeMap;
+
+/**
+ * A {@link Tree} over the keys of a {@link java.util.TreeMap}, used as the
+ * baseline of the benchmarks. {@code TreeMap} does not expose its height,
+ * so {@link #height()} returns the height of a complete binary tree of the
+ * same size, which is a lower bound of the height of any binary tree.
+ */
+final class TreeMapTree<T extends Comparable<T>> implements Tree<T> {
+
+    private final TreeMap<T, Boolean> map = new TreeMap<>();
+
+    @Override
+    public boolean contains(T key) {
+        if (key == null) {
+            throw new IllegalArgumentException("The value of argument key " +
+                    "in method contains should not be null!");
+        }
+
+        return map.containsKey(key);
+    }
+
+    @Override
+    public void insert(T value) {
+        if (value == null) {
+            throw new IllegalArgumentException("The value of argument value " +
+                    "in method insert should not be null!");
+        }
+
+        map.put(value, Boolean.TRUE);
+    }
+
+    @Override
+    public void erase(T key) {
+        if (key == null) {
+            throw new IllegalArgumentException("The value of argument key " +
+                    "in method erase should not be null!");
+        }
+
+        map.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public boolean empty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public int height() {
+        return 32 - Integer.numberOfLeadingZeros(map.size());
+    }
+
+    @Override
+    public Collection<T> getAllElements() {
+        return new ArrayList<>(map.keySet());
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return map.keySet().iterator();
+    }
+
+    /**
+     * Only the inorder traversal is supported, as the shape of a
+     * {@code TreeMap} is hidden.
+     */
+    @Override
+    public void text(Traversal traversal, Appendable output) throws IOException {
+        if (traversal != Traversal.INORDER) {
+            throw new UnsupportedOperationException("A TreeMap can be traversed only in order!");
+        }
+
+        for (T key : map.keySet()) {
+            output.append(String.valueOf(key)).append(' ');
+        }
+    }
+
+    @Override
+    public void prettyPrint() {
+        throw new UnsupportedOperationException("A TreeMap cannot be printed as a graph!");
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * @author Stiliyan Iliev
+ * @version 1.0
+ * Package for JMH benchmarks of the tree framework.
+ */
+package lights.digital.masterclass.tree.benchmarks;
+
+import lights.digital.masterclass.tree.Tree;
+import lights.digital.masterclass.tree.factory.TreeFactory;
+import lights.digital.masterclass.tree.factory.TreeType;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of inserting and erasing keys depending on the
+ * level of the logger of the trees. With {@code DEBUG} every operation
+ * builds and writes its message, as all of them did on the info level
+ * before, while with {@code INFO} (the default) and {@code OFF} the
+ * mutation path only checks the level and allocates no messages.
+ * The allocations can be compared with {@code -prof gc}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TreeMutationLoggingBenchmark {
+
+    private static final int SIZE = 100_000;
+
+    @Param({"BINARY_TREE", "RB_TREE"})
+    public TreeType treeType;
+
+    @Param({"OFF", "INFO", "DEBUG"})
+    public String logLevel;
+
+    private Tree<Integer> tree;
+
+    private Integer[] keys;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Logger.getLogger("lights.digital.masterclass.tree").setLevel(Level.toLevel(logLevel));
+
+        Random random = new Random(42);
+        keys = new Integer[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            keys[i] = random.nextInt();
+        }
+
+        tree = TreeFactory.getInstance(treeType);
+        for (Integer key : keys) {
+            tree.insert(key);
+        }
+    }
+
+    @Benchmark
+    public int eraseAndInsert() {
+        Integer key = keys[next];
+        next = next + 1 == SIZE ? 0 : next + 1;
+
+        tree.erase(key);
+        tree.insert(key);
+
+        return tree.size();
+    }
+}
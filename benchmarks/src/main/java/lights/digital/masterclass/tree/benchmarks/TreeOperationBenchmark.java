@@ -0,0 +1,70 @@
+/**
+ * @author Stiliyan Iliev
+ * @version 1.0
+ * Package for JMH benchmarks of the tree framework.
+ */
+package lights.digital.masterclass.tree.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of the operations on a single key and of
+ * {@code height()} for every tree in {@link TreeState}. The keys are
+ * visited in the order of their insertion, so with sorted keys the same
+ * path of the tree stays in the caches and with random keys it does not.
+ * A changed key is inserted back or erased again, so the size of the tree
+ * stays the same during the measurement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class TreeOperationBenchmark {
+
+    @Benchmark
+    public boolean contains(TreeState state) {
+        return state.tree.contains(state.nextKey());
+    }
+
+    /**
+     * Looks up the odd neighbour of every key, which is never in the tree.
+     */
+    @Benchmark
+    public boolean containsMissing(TreeState state) {
+        return state.tree.contains(state.nextKey() + 1);
+    }
+
+    @Benchmark
+    public int insert(TreeState state) {
+        Integer key = state.nextKey() + 1;
+
+        state.tree.insert(key);
+        state.tree.erase(key);
+
+        return state.tree.size();
+    }
+
+    @Benchmark
+    public int erase(TreeState state) {
+        Integer key = state.nextKey();
+
+        state.tree.erase(key);
+        state.tree.insert(key);
+
+        return state.tree.size();
+    }
+
+    @Benchmark
+    public int height(TreeState state) {
+        return state.tree.height();
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * @author Stiliyan Iliev
+ * @version 1.0
+ * Package for JMH benchmarks of the tree framework.
+ */
+package lights.digital.masterclass.tree.benchmarks;
+
+import lights.digital.masterclass.tree.balanced.redblack.RedBlackTree;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a sum and a filter over a {@link RedBlackTree} computed with a
+ * sequential stream, with a parallel stream split by the tree spliterator
+ * and with a parallel stream over a copy made by {@code getAllElements()}.
+ * The number of cores used by the parallel streams can be chosen with
+ * {@code -jvmArgs -Djava.util.concurrent.ForkJoinPool.common.parallelism=8}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TreeParallelStreamBenchmark {
+
+    @Param({"100000", "1000000", "10000000"})
+    public int size;
+
+    private RedBlackTree<Integer> tree;
+
+    @Setup
+    public void setUp() {
+        Logger.getRootLogger().setLevel(Level.OFF);
+
+        tree = new RedBlackTree<>();
+        Random random = new Random(42);
+        while (tree.size() < size) {
+            tree.insert(random.nextInt());
+        }
+    }
+
+    @Benchmark
+    public long sequentialSum() {
+        return tree.stream().mapToLong(Integer::longValue).sum();
+    }
+
+    @Benchmark
+    public long parallelSum() {
+        return tree.stream().parallel().mapToLong(Integer::longValue).sum();
+    }
+
+    @Benchmark
+    public long copiedParallelSum() {
+        return tree.getAllElements().stream().parallel().mapToLong(Integer::longValue).sum();
+    }
+
+    @Benchmark
+    public long sequentialFilter() {
+        return tree.stream().filter(value -> value % 7 == 0).count();
+    }
+
+    @Benchmark
+    public long parallelFilter() {
+        return tree.stream().parallel().filter(value -> value % 7 == 0).count();
+    }
+
+    @Benchmark
+    public long copiedParallelFilter() {
+        return tree.getAllElements().stream().parallel().filter(value -> value % 7 == 0).count();
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * @author Stiliyan Iliev
+ * @version 1.0
+ * Package for JMH benchmarks of the tree framework.
+ */
+package lights.digital.masterclass.tree.benchmarks;
+
+import lights.digital.masterclass.tree.Tree;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A tree of every {@link TreeImplementation} built from {@code size} keys
+ * inserted in the order of every {@link KeyDistribution}.
+ * <p>
+ * A {@code BinaryTree} built from sorted or adversarial keys is a path, so
+ * building it takes quadratic time. These trials are refused above
+ * {@value #MAXIMAL_DEGENERATE_SIZE} keys instead of running for hours; the
+ * remaining ones can be chosen with {@code -p}, for example
+ * {@code -p implementation=RB_TREE,TREE_MAP -p distribution=SORTED}.
+ */
+@State(Scope.Thread)
+public class TreeState {
+
+    /**
+     * The largest number of keys inserted into a degenerate binary tree.
+     */
+    public static final int MAXIMAL_DEGENERATE_SIZE = 100_000;
+
+    @Param({"BINARY_TREE", "RB_TREE", "B_TREE", "CONCURRENT_TREE", "TREE_MAP"})
+    public TreeImplementation implementation;
+
+    @Param({"SORTED", "RANDOM", "ADVERSARIAL"})
+    public KeyDistribution distribution;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    /**
+     * The keys of {@link #tree} in the order of their insertion.
+     */
+    public Integer[] keys;
+
+    public Tree<Integer> tree;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Logger.getRootLogger().setLevel(Level.OFF);
+
+        if (implementation == TreeImplementation.BINARY_TREE
+                && distribution != KeyDistribution.RANDOM
+                && size > MAXIMAL_DEGENERATE_SIZE) {
+            throw new IllegalStateException("A binary tree of " + size + " " + distribution
+                    + " keys is a path and takes quadratic time to build!");
+        }
+
+        keys = distribution.keys(size);
+        tree = implementation.create();
+        for (Integer key : keys) {
+            tree.insert(key);
+        }
+    }
+
+    /**
+     * @return The keys of the tree one by one, starting again after the last one.
+     */
+    public Integer nextKey() {
+        Integer key = keys[next];
+        next = next + 1 == size ? 0 : next + 1;
+
+        return key;
+    }
+}
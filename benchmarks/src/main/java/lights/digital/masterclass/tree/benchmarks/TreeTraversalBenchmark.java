@@ -0,0 +1,56 @@
+/**
+ * @author Stiliyan Iliev
+ * @version 1.0
+ * Package for JMH benchmarks of the tree framework.
+ */
+package lights.digital.masterclass.tree.benchmarks;
+
+import lights.digital.masterclass.tree.Tree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the operations on the whole tree for every tree in
+ * {@link TreeState}: building it by inserting all keys into an empty tree,
+ * iterating it and copying it with {@code getAllElements()}. The time is
+ * reported per tree, dividing it by {@code size} gives the time per key.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class TreeTraversalBenchmark {
+
+    @Benchmark
+    public Tree<Integer> insertAll(TreeState state) {
+        Tree<Integer> tree = state.implementation.create();
+        for (Integer key : state.keys) {
+            tree.insert(key);
+        }
+
+        return tree;
+    }
+
+    @Benchmark
+    public long iterate(TreeState state) {
+        long sum = 0;
+        for (Integer key : state.tree) {
+            sum += key;
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public int getAllElements(TreeState state) {
+        return state.tree.getAllElements().size();
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * @author Stiliyan Iliev
+ * @version 1.0
+ * Package for JMH benchmarks of the tree framework.
+ */
+package lights.digital.masterclass.tree.benchmarks;
+
+import lights.digital.masterclass.tree.Tree;
+import lights.digital.masterclass.tree.balanced.redblack.RedBlackTree;
+import lights.digital.masterclass.tree.io.KeyCodecs;
+import lights.digital.masterclass.tree.io.WriteAheadLogTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the throughput of inserting and erasing keys in a red-black
+ * tree without a log and with a write-ahead log whose records are forced
+ * to the storage device after every change ({@code groupCommitSize} 1) or
+ * in groups of 64 and 1024 changes. A group commit pays one {@code fsync}
+ * for the whole group, so the throughput should grow with the group size
+ * until writing the records costs more than forcing them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WriteAheadLogTreeBenchmark {
+
+    private static final int SIZE = 100_000;
+
+    /**
+     * The number of records in a group commit, 0 means no log at all.
+     */
+    @Param({"0", "1", "64", "1024"})
+    public int groupCommitSize;
+
+    private Tree<Integer> tree;
+
+    private Path directory;
+
+    private Integer[] keys;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        keys = new Integer[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            keys[i] = random.nextInt();
+        }
+
+        RedBlackTree<Integer> redBlackTree = new RedBlackTree<>();
+        for (Integer key : keys) {
+            redBlackTree.insert(key);
+        }
+
+        if (groupCommitSize == 0) {
+            tree = redBlackTree;
+        } else {
+            directory = Files.createTempDirectory("wal-benchmark");
+            WriteAheadLogTree<Integer> walTree = WriteAheadLogTree.open(new RedBlackTree<>(),
+                    directory, KeyCodecs.INTEGER, groupCommitSize, TimeUnit.MILLISECONDS.toNanos(10));
+            for (Integer key : keys) {
+                walTree.insert(key);
+            }
+            walTree.checkpoint();
+            tree = walTree;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (tree instanceof WriteAheadLogTree) {
+            ((WriteAheadLogTree<Integer>) tree).close();
+
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public int eraseAndInsert() {
+        Integer key = keys[next];
+        next = next + 1 == SIZE ? 0 : next + 1;
+
+        tree.erase(key);
+        tree.insert(key);
+
+        return tree.size();
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * @author Stiliyan Iliev
+ * @version 1.0
+ * Package for working with tree based data structures.
+ */
+package lights.digital.masterclass.tree;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A tree which can be built directly from sorted values in linear time,
+ * without searching for the place of every value and without rebalancing.
+ *
+ * @param <T> The data type in every node, which should be at least a class
+ *            implementing the interface Comparable.
+ */
+public interface BulkLoadableTree<T extends Comparable<T>> extends Tree<T> {
+
+    /**
+     *
+     * Replaces all elements of the current tree with {@code sortedValues}.
+     * If the values are in strictly ascending order the tree is built in
+     * linear time. Otherwise they are sorted first and duplicates are dropped,
+     * so the result is the same as inserting them one by one.
+     *
+     * @param sortedValues The values of the new tree, preferably in ascending order.
+     * @throws IllegalArgumentException If {@code sortedValues} is null or
+     *                                  contains a null value.
+     */
+    void buildFromSorted(Iterator<? extends T> sortedValues);
+
+    /**
+     * Copies {@code values} into a list in strictly ascending order. The
+     * list is sorted and deduplicated only if the values are not already
+     * strictly ascending, which is checked while they are copied.
+     *
+     * @param values The values which are to be copied.
+     * @param <T>    The data type of the values.
+     * @return A new list with the distinct values in ascending order.
+     * @throws IllegalArgumentException If {@code values} is null or
+     *                                  contains a null value.
+     */
+    static <T extends Comparable<T>> List<T> sortedDistinctValues(Iterator<? extends T> values) {
+        if (values == null) {
+            throw new IllegalArgumentException("The value of argument sortedValues " +
+                    "in method buildFromSorted cannot be null!");
+        }
+
+        List<T> result = new ArrayList<>();
+        boolean strictlyAscending = true;
+
+        while (values.hasNext()) {
+            T value = values.next();
+
+            if (value == null) {
+                throw new IllegalArgumentException("The values in method " +
+                        "buildFromSorted cannot be null!");
+            }
+
+            if (strictlyAscending && !result.isEmpty()
+                    && result.get(result.size() - 1).compareTo(value) >= 0) {
+                strictlyAscending = false;
+            }
+
+            result.add(value);
+        }
+
+        if (strictlyAscending) {
+            return result;
+        }
+
+        result.sort(null);
+
+        // Dropping the duplicates, which are next to each other after sorting:
+        int distinctCount = 0;
+        for (T value : result) {
+            if (distinctCount == 0 || result.get(distinctCount - 1).compareTo(value) != 0) {
+                result.set(distinctCount++, value);
+            }
+        }
+        result.subList(distinctCount, result.size()).clear();
+
+        return result;
+    }
+}
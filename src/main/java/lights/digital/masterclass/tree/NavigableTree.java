@@ -0,0 +1,74 @@
+/**
+ * @author Stiliyan Iliev
+ * @version 1.0
+ * Package for working with tree based data structures.
+ */
+package lights.digital.masterclass.tree;
+
+/**
+ * A tree which can find the nearest elements to a given value and walk
+ * a range of its elements in ascending order without visiting the
+ * elements outside of it.
+ *
+ * @param <T> The data type in every node, which should be at least a class
+ *            implementing the interface Comparable.
+ */
+public interface NavigableTree<T extends Comparable<T>> extends Tree<T> {
+
+    /**
+     * @return The smallest element of the current tree or null if it is empty.
+     */
+    T first();
+
+    /**
+     * @return The largest element of the current tree or null if it is empty.
+     */
+    T last();
+
+    /**
+     * @param key The value to which the result is compared.
+     * @throws IllegalArgumentException If {@code key} is null.
+     * @return The largest element less than or equal to {@code key}
+     *         or null if there is no such element.
+     */
+    T floor(T key);
+
+    /**
+     * @param key The value to which the result is compared.
+     * @throws IllegalArgumentException If {@code key} is null.
+     * @return The smallest element greater than or equal to {@code key}
+     *         or null if there is no such element.
+     */
+    T ceiling(T key);
+
+    /**
+     * @param key The value to which the result is compared.
+     * @throws IllegalArgumentException If {@code key} is null.
+     * @return The largest element strictly less than {@code key}
+     *         or null if there is no such element.
+     */
+    T lower(T key);
+
+    /**
+     * @param key The value to which the result is compared.
+     * @throws IllegalArgumentException If {@code key} is null.
+     * @return The smallest element strictly greater than {@code key}
+     *         or null if there is no such element.
+     */
+    T higher(T key);
+
+    /**
+     *
+     * A lazy view of the elements in {@code [fromKey, toKey)} in ascending
+     * order. Nothing is copied: every iteration of the view starts with one
+     * search for {@code fromKey} and then walks to the next elements one by
+     * one, so it reflects the state of the tree at the moment it is iterated.
+     *
+     * @param fromKey The smallest value of the range (inclusive).
+     * @param toKey   The end of the range (exclusive).
+     * @throws IllegalArgumentException If either argument is null or
+     *                                  {@code fromKey} is greater than {@code toKey}.
+     * @return An iterable over the elements of the range.
+     */
+    Iterable<T> subRange(T fromKey, T toKey);
+}
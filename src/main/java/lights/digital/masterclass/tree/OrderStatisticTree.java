@@ -0,0 +1,42 @@
+/**
+ * @author Stiliyan Iliev
+ * @version 1.0
+ * Package for working with tree based data structures.
+ */
+package lights.digital.masterclass.tree;
+
+/**
+ * A tree which knows the size of every subtree, so it can find an
+ * element by its position in ascending order and the position of an
+ * element in logarithmic time for balanced trees.
+ *
+ * @param <T> The data type in every node, which should be at least a class
+ *            implementing the interface Comparable.
+ */
+public interface OrderStatisticTree<T extends Comparable<T>> extends Tree<T> {
+
+    /**
+     *
+     * Counts the elements of the current tree which are smaller than {@code key}.
+     * {@code key} does not need to be in the tree.
+     *
+     * @param key The value whose rank is searched.
+     * @throws IllegalArgumentException If {@code key} is null.
+     * @return The number of elements smaller than {@code key}, which is
+     *         the index of {@code key} in ascending order if it is in the tree.
+     */
+    int rank(T key);
+
+    /**
+     *
+     * Finds the element with a given index in ascending order, for example
+     * {@code select(0)} is the smallest element and
+     * {@code select(size() - 1)} is the largest one.
+     *
+     * @param index The zero-based index of the wanted element.
+     * @throws IllegalArgumentException If {@code index} is negative or
+     *                                  not less than {@code size()}.
+     * @return The element with {@code index} elements smaller than it.
+     */
+    T select(int index);
+}
@@ -9,9 +9,24 @@ package lights.digital.masterclass.tree;
 import lights.digital.masterclass.tree.exceptions.NodeNotChildOfItsParentException;
 import lights.digital.masterclass.tree.print.pretty.PrettyPrintable;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public interface Tree<T extends Comparable<T>> extends PrettyPrintable {
+public interface Tree<T extends Comparable<T>> extends PrettyPrintable, Iterable<T> {
 
     /**
      *
@@ -47,6 +62,117 @@ public interface Tree<T extends Comparable<T>> extends PrettyPrintable {
      */
     void erase(T key);
 
+    /**
+     *
+     * Checks which of {@code keys} are in the current tree.
+     *
+     * @param keys The values which will be checked.
+     * @throws IllegalArgumentException If {@code keys} is null or contains a null value.
+     * @return A bitmap whose bit {@code i} is set if the {@code i}-th of
+     *         {@code keys} is in the current tree.
+     */
+    default BitSet containsAll(Iterable<? extends T> keys) {
+        List<T> batch = copyOfBatch(keys, "keys", "containsAll");
+        BitSet contained = new BitSet(batch.size());
+
+        for (int i = 0; i < batch.size(); i++) {
+            if (contains(batch.get(i))) {
+                contained.set(i);
+            }
+        }
+
+        return contained;
+    }
+
+    /**
+     *
+     * Adds all {@code values} into the current tree. The values which are
+     * already in it, or come earlier in {@code values}, are not added again.
+     *
+     * @param values The values which are going to be added.
+     * @throws IllegalArgumentException If {@code values} is null or contains
+     *                                  a null value, in which case no value is added.
+     * @return A bitmap whose bit {@code i} is set if the {@code i}-th of
+     *         {@code values} has been added.
+     */
+    default BitSet insertAll(Iterable<? extends T> values) {
+        List<T> batch = copyOfBatch(values, "values", "insertAll");
+        BitSet inserted = new BitSet(batch.size());
+
+        for (int i = 0; i < batch.size(); i++) {
+            int sizeBefore = size();
+            insert(batch.get(i));
+
+            if (size() != sizeBefore) {
+                inserted.set(i);
+            }
+        }
+
+        return inserted;
+    }
+
+    /**
+     *
+     * Removes all {@code keys} from the current tree.
+     *
+     * @param keys The values which are to be removed.
+     * @throws IllegalArgumentException If {@code keys} is null or contains
+     *                                  a null value, in which case no value is removed.
+     * @return A bitmap whose bit {@code i} is set if the {@code i}-th of
+     *         {@code keys} has been removed, so a key which is given twice
+     *         is reported only the first time.
+     */
+    default BitSet eraseAll(Iterable<? extends T> keys) {
+        List<T> batch = copyOfBatch(keys, "keys", "eraseAll");
+        BitSet erased = new BitSet(batch.size());
+
+        for (int i = 0; i < batch.size(); i++) {
+            int sizeBefore = size();
+            erase(batch.get(i));
+
+            if (size() != sizeBefore) {
+                erased.set(i);
+            }
+        }
+
+        return erased;
+    }
+
+    /**
+     * Copies a batch of values into a list and checks that none of them is
+     * null before any of them is used.
+     *
+     * @param values       The values of the batch.
+     * @param argumentName The name of the argument with the batch.
+     * @param methodName   The method which is given the batch.
+     * @param <T>          The data type of the values.
+     * @return A new list with the values in the order they were given.
+     * @throws IllegalArgumentException If {@code values} is null or
+     *                                  contains a null value.
+     */
+    static <T extends Comparable<T>> List<T> copyOfBatch(Iterable<? extends T> values,
+                                                         String argumentName,
+                                                         String methodName) {
+        if (values == null) {
+            throw new IllegalArgumentException("The value of argument " + argumentName +
+                    " in method " + methodName + " cannot be null!");
+        }
+
+        List<T> batch = values instanceof Collection<?> collection
+                ? new ArrayList<>(collection.size()) : new ArrayList<>();
+
+        for (T value : values) {
+            if (value == null) {
+                throw new IllegalArgumentException("The values in method " +
+                        methodName + " cannot be null!");
+            }
+
+            batch.add(value);
+        }
+
+        return batch;
+    }
+
     /**
      * Removing all element from the current tree and making it null.
      */
@@ -70,10 +196,38 @@ public interface Tree<T extends Comparable<T>> extends PrettyPrintable {
     int height();
 
     /**
-     * @return A mutable collection containing all element (nodes) of the tree.
+     * @return A mutable collection containing all element (nodes) of the tree
+     *         in ascending order.
      */
     Collection<T> getAllElements();
 
+    /**
+     * @return A lazy iterator over the elements of the current tree in ascending
+     *         order. The tree should not be changed while it is iterated.
+     */
+    @Override
+    Iterator<T> iterator();
+
+    /**
+     * @return A spliterator over the elements of the current tree in ascending
+     *         order, which reports the characteristics
+     *         {@code SORTED | DISTINCT | SIZED | ORDERED | NONNULL}.
+     */
+    @Override
+    default Spliterator<T> spliterator() {
+        return Spliterators.spliterator(iterator(), size(),
+                Spliterator.SORTED | Spliterator.DISTINCT
+                        | Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    /**
+     * @return A sequential stream over the elements of the current tree in
+     *         ascending order, which reads the tree lazily.
+     */
+    default Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
 
     /**
      * @param traversal An enum showing the needed traversal order.
@@ -81,5 +235,50 @@ public interface Tree<T extends Comparable<T>> extends PrettyPrintable {
      *          sequence of the vertexes in
      *          if the wanted traversal order.
      */
-    StringBuilder text(Traversal traversal);
-}
\ No newline at end of file
+    default StringBuilder text(Traversal traversal) {
+        StringBuilder result = new StringBuilder();
+
+        try {
+            text(traversal, result);
+        } catch (IOException e) {
+            // A StringBuilder does not throw IOException.
+            throw new UncheckedIOException(e);
+        }
+
+        return result;
+    }
+
+    /**
+     *
+     * Writes the same text as {@link #text(Traversal)} to {@code output}
+     * node by node, without building it in the memory first.
+     *
+     * @param traversal An enum showing the needed traversal order.
+     * @param output    The destination of the text, for example a
+     *                  {@link java.io.Writer}.
+     * @throws IllegalArgumentException If {@code traversal} or {@code output} is null.
+     * @throws IOException              If {@code output} cannot be written.
+     */
+    void text(Traversal traversal, Appendable output) throws IOException;
+
+    /**
+     *
+     * Writes the same text as {@link #text(Traversal)} to {@code output}
+     * in UTF-8. The stream is flushed, but not closed.
+     *
+     * @param traversal An enum showing the needed traversal order.
+     * @param output    The destination of the text.
+     * @throws IllegalArgumentException If {@code traversal} or {@code output} is null.
+     * @throws IOException              If {@code output} cannot be written.
+     */
+    default void text(Traversal traversal, OutputStream output) throws IOException {
+        if (output == null) {
+            throw new IllegalArgumentException("The value of argument output " +
+                    "in method text should not be null!");
+        }
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        text(traversal, writer);
+        writer.flush();
+    }
+}
@@ -1,69 +1,1148 @@
+/**
+ * @author Stiliyan Iliev
+ * @version 1.0
+ * Package for working with B-trees.
+ */
 package lights.digital.masterclass.tree.balanced.btree;
 
+import lights.digital.masterclass.tree.BulkLoadableTree;
 import lights.digital.masterclass.tree.Traversal;
-import lights.digital.masterclass.tree.Tree;
+import lights.digital.masterclass.tree.io.KeyCodec;
+import org.apache.log4j.Logger;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 
-public class BTree<T extends Comparable<T>> implements Tree<T> {
 
-    public BTree() {
+/**
+ * An implementation of a B-tree (as defined in "Introduction to Algorithms"
+ * by Cormen et al.) with a configurable minimum degree.
+ * <p>
+ * Every node keeps its keys in one contiguous array, which is searched with
+ * a binary search, so a lookup touches only {@code height()} nodes instead of
+ * one node per comparison as in the binary trees. Every node except the root
+ * holds between {@code t - 1} and {@code 2t - 1} keys, where {@code t} is the
+ * minimum degree. Full nodes are split on the way down during insertion and
+ * nodes with too few keys are refilled (by borrowing or merging) on the way
+ * down during erasing, so both operations are a single root-to-leaf pass.
+ * <p>
+ * A tree created by {@link #create(Path, KeyCodec, int)} or opened by
+ * {@link #open(Path, KeyCodec)} is stored in a memory-mapped file with one
+ * page per node (see {@link BTreePageFile} for the layout). Opening a file
+ * reads only its root, every other node is read when it is first needed.
+ * The changes are written to the file by {@link #sync()} and {@link #close()}.
+ * The nodes which have been read stay in the memory as a cache, also when
+ * they are only looked up, until {@link #sync()} or
+ * {@link #releaseCleanNodes()} drops them, so a long read-only workload
+ * should call the latter from time to time.
+ *
+ * @param <T> The data type in every node, which should be at least a class
+ *            implementing the interface Comparable.
+ */
+public class BTree<T extends Comparable<T>> implements BulkLoadableTree<T> {
+
+    /**
+     * The minimum degree used by the constructors without such an argument.
+     * A node of this degree holds up to 63 keys.
+     */
+    public static final int DEFAULT_MINIMUM_DEGREE = 32;
+
+    /**
+     * The minimum degree {@code t} of the current tree.
+     */
+    private final int minimumDegree;
+
+    /**
+     * A reference to the root of the current tree.
+     */
+    private BTreeNode<T> root;
+
+    /**
+     * The number of elements in the current tree.
+     */
+    private int size = 0;
+
+    /**
+     * The number of levels of nodes in the current tree.
+     */
+    private int height = 0;
+
+    /**
+     * The file in which the current tree is stored or null if the tree
+     * is only in the memory.
+     */
+    private final BTreePageFile<T> pageFile;
+
+    /**
+     * A log4j logger for logging information about thrown exceptions,
+     * added new elements to the tree and erased ones. It is shared by all
+     * trees, so creating a tree does not look up the logger again. The
+     * messages about single insertions and erasures are logged on the
+     * debug level and only built when that level is enabled.
+     */
+    protected static final Logger logger = Logger.getLogger(BTree.class);
+
+    /**
+     * Simple implementation of every node in the B-tree.
+     *
+     * @param <T> The data type in every node, which should be at least a class
+     *            implementing the interface Comparable.
+     */
+    protected static class BTreeNode<T extends Comparable<T>> {
+
+        /**
+         * The sorted keys of the current node. Only the first
+         * {@code keyCount} of them are valid.
+         */
+        public final T[] keys;
+
+        /**
+         * The children of the current node or null if the node is a leaf.
+         * Only the first {@code keyCount + 1} of them are valid.
+         */
+        public final BTreeNode<T>[] children;
+
+        /**
+         * The number of keys in the current node.
+         */
+        public int keyCount;
+
+        /**
+         * The page of the current node in the file of the tree or -1 if
+         * the node has not been written yet (or the tree has no file).
+         */
+        public int page = BTreePageFile.NO_PAGE;
 
+        /**
+         * Whether the current node has changed since it was last written to
+         * or read from the file of the tree. New nodes are dirty.
+         */
+        public boolean dirty = true;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public BTreeNode(final int minimumDegree, final boolean leaf) {
+            this.keys = (T[]) new Comparable[2 * minimumDegree - 1];
+            this.children = leaf ? null : new BTreeNode[2 * minimumDegree];
+            this.keyCount = 0;
+        }
+
+        private BTreeNode(final int page) {
+            this.keys = null;
+            this.children = null;
+            this.page = page;
+            this.dirty = false;
+        }
+
+        /**
+         * @return A placeholder for the node in {@code page}, which has
+         * not been read from the file yet.
+         */
+        public static <T extends Comparable<T>> BTreeNode<T> stub(final int page) {
+            return new BTreeNode<>(page);
+        }
+
+        /**
+         * @return True if the current node is only a placeholder for a
+         * node which has not been read from the file yet.
+         */
+        public boolean isStub() {
+            return keys == null;
+        }
+
+        /**
+         * @return True if the current node has no children.
+         */
+        public boolean isLeaf() {
+            return children == null;
+        }
+
+        /**
+         * Binary search for {@code key} between the valid keys of the current node.
+         *
+         * @param key The value we are searching.
+         * @return The index of {@code key} if it is in the node, otherwise
+         * {@code -(insertionPoint + 1)}, the same as
+         * {@link java.util.Arrays#binarySearch(Object[], Object)}.
+         */
+        public int search(final T key) {
+            int low = 0;
+            int high = keyCount - 1;
+
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int comparison = keys[middle].compareTo(key);
+
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else if (comparison > 0) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+
+            return -(low + 1);
+        }
+    }
+
+    public BTree() {
+        this(DEFAULT_MINIMUM_DEGREE);
     }
 
     public BTree(T initialRootValue) {
+        this(DEFAULT_MINIMUM_DEGREE);
+
+        if (initialRootValue == null) {
+            throw new IllegalArgumentException("The data value in the root node " +
+                    "cannot be null!");
+        }
+
+        insert(initialRootValue);
+    }
+
+    private BTree(final int minimumDegree) {
+        this(minimumDegree, null);
+    }
+
+    private BTree(final int minimumDegree, final BTreePageFile<T> pageFile) {
+        if (minimumDegree < 2) {
+            throw new IllegalArgumentException("The minimum degree of a B-tree " +
+                    "should be at least 2, but was " + minimumDegree + "!");
+        }
+
+        this.minimumDegree = minimumDegree;
+        this.pageFile = pageFile;
+        this.root = null;
+    }
+
+    /**
+     * Creates an empty B-tree whose nodes hold between
+     * {@code minimumDegree - 1} and {@code 2 * minimumDegree - 1} keys.
+     *
+     * @param minimumDegree The minimum degree {@code t} of the tree.
+     * @param <T>           The data type in every node.
+     * @return The new empty tree.
+     * @throws IllegalArgumentException If {@code minimumDegree} is less than 2.
+     */
+    public static <T extends Comparable<T>> BTree<T> ofMinimumDegree(final int minimumDegree) {
+        return new BTree<>(minimumDegree);
+    }
+
+    /**
+     * Creates an empty B-tree stored in {@code file}. An existing file is
+     * replaced.
+     *
+     * @param file          The file of the new tree.
+     * @param codec         The codec of the keys, which should encode all
+     *                      keys with the same number of bytes.
+     * @param minimumDegree The minimum degree {@code t} of the tree.
+     * @param <T>           The data type in every node.
+     * @return The new empty tree.
+     * @throws IllegalArgumentException If an argument is null, the codec has
+     *                                  no fixed width or {@code minimumDegree}
+     *                                  is less than 2.
+     * @throws IOException              If the file cannot be created.
+     */
+    public static <T extends Comparable<T>> BTree<T> create(final Path file,
+                                                            final KeyCodec<T> codec,
+                                                            final int minimumDegree) throws IOException {
+        if (file == null || codec == null) {
+            logger.error("The value of file or codec in method create is null!");
+            throw new IllegalArgumentException("The file and the codec of a B-tree " +
+                    "cannot be null!");
+        }
+        if (minimumDegree < 2) {
+            throw new IllegalArgumentException("The minimum degree of a B-tree " +
+                    "should be at least 2, but was " + minimumDegree + "!");
+        }
+
+        return new BTree<>(minimumDegree, BTreePageFile.create(file, codec, minimumDegree));
+    }
+
+    /**
+     * Opens a B-tree stored in {@code file} by {@link #create(Path, KeyCodec, int)}.
+     * Only the meta page and the root are read, so it takes the same time
+     * for any size of the tree.
+     *
+     * @param file  The file of the tree.
+     * @param codec The codec which was used when the tree was created.
+     * @param <T>   The data type in every node.
+     * @return The tree stored in the file.
+     * @throws IllegalArgumentException If an argument is null or the file is
+     *                                  not a B-tree file with keys of the
+     *                                  width of {@code codec}.
+     * @throws IOException              If the file cannot be read.
+     */
+    public static <T extends Comparable<T>> BTree<T> open(final Path file,
+                                                          final KeyCodec<T> codec) throws IOException {
+        if (file == null || codec == null) {
+            logger.error("The value of file or codec in method open is null!");
+            throw new IllegalArgumentException("The file and the codec of a B-tree " +
+                    "cannot be null!");
+        }
+
+        BTreePageFile<T> pageFile = BTreePageFile.open(file, codec);
+        BTree<T> tree = new BTree<>(pageFile.getMinimumDegree(), pageFile);
+
+        if (pageFile.getRootPage() != BTreePageFile.NO_PAGE) {
+            tree.root = pageFile.readNode(pageFile.getRootPage());
+        }
+        tree.size = pageFile.getSize();
+        tree.height = pageFile.getHeight();
+
+        logger.info("Opened a B-tree with " + tree.size + " keys from " + file + ".");
+
+        return tree;
+    }
+
+    /**
+     * Writes all nodes which have been changed or created since the tree was
+     * opened (or last synchronized) to its file and forces the file to the
+     * storage device. After that only the root stays in the memory, the
+     * other nodes are read again when they are needed. Does nothing if the
+     * tree is only in the memory.
+     *
+     * @throws IOException If the file cannot be grown.
+     */
+    public void sync() throws IOException {
+        if (this.pageFile == null) {
+            return;
+        }
+
+        if (this.root != null) {
+            writeNodesInMemory(this.root);
+        }
+
+        this.pageFile.writeMeta(this.root == null ? BTreePageFile.NO_PAGE : this.root.page,
+                this.height, this.size);
+        this.pageFile.force();
+    }
+
+    /**
+     * Writes the dirty nodes of the subtree of {@code node} which are in the
+     * memory, children before their parents, so every parent is written
+     * with the pages of its children. The written children are replaced
+     * with stubs, so the memory holds only the nodes changed or read since.
+     */
+    private void writeNodesInMemory(BTreeNode<T> node) throws IOException {
+        if (!node.isLeaf()) {
+            for (int i = 0; i <= node.keyCount; i++) {
+                BTreeNode<T> child = node.children[i];
+
+                if (!child.isStub()) {
+                    writeNodesInMemory(child);
+                    node.children[i] = BTreeNode.stub(child.page);
+                }
+            }
+        }
 
+        // A new node is dirty, as is its parent which got it as a child:
+        if (node.page == BTreePageFile.NO_PAGE) {
+            node.page = this.pageFile.allocatePage();
+        }
+        if (node.dirty) {
+            this.pageFile.writeNode(node);
+            node.dirty = false;
+        }
+    }
+
+    /**
+     * Drops the nodes which have been read from the file of the tree and not
+     * changed since, so they are read again when they are needed. Unlike
+     * {@link #sync()} it neither writes to the file nor drops the changed
+     * nodes and their ancestors. Does nothing if the tree is only in the memory.
+     */
+    public void releaseCleanNodes() {
+        if (this.pageFile != null && this.root != null) {
+            releaseCleanChildren(this.root);
+        }
+    }
+
+    /**
+     * Replaces the children of {@code node} whose subtrees in the memory
+     * hold no changed node with stubs.
+     *
+     * @return Whether the subtree of {@code node} holds a changed node.
+     */
+    private boolean releaseCleanChildren(BTreeNode<T> node) {
+        boolean dirty = node.dirty;
+
+        if (!node.isLeaf()) {
+            for (int i = 0; i <= node.keyCount; i++) {
+                BTreeNode<T> child = node.children[i];
+
+                if (!child.isStub()) {
+                    if (releaseCleanChildren(child)) {
+                        dirty = true;
+                    } else {
+                        node.children[i] = BTreeNode.stub(child.page);
+                    }
+                }
+            }
+        }
+
+        return dirty;
+    }
+
+    /**
+     * Synchronizes the tree with its file and closes the file. The tree
+     * should not be used after that. Does nothing if the tree is only in
+     * the memory.
+     *
+     * @throws IOException If the file cannot be written or closed.
+     */
+    public void close() throws IOException {
+        if (this.pageFile == null) {
+            return;
+        }
+
+        sync();
+        this.pageFile.close();
+    }
+
+    /**
+     * @return The child at {@code index} of {@code node}, which is read from
+     * the file of the tree if it is not in the memory yet. The read child
+     * stays attached to {@code node} until {@link #sync()} or
+     * {@link #releaseCleanNodes()}, also when the caller only looks it up.
+     */
+    private BTreeNode<T> child(BTreeNode<T> node, int index) {
+        BTreeNode<T> child = node.children[index];
+
+        if (child.isStub()) {
+            child = this.pageFile.readNode(child.page);
+            node.children[index] = child;
+        }
+
+        return child;
+    }
+
+    /**
+     * Gives the page of a node which is no longer in the tree back to the
+     * file of the tree.
+     */
+    private void releasePage(BTreeNode<T> node) {
+        if (this.pageFile != null) {
+            this.pageFile.releasePage(node.page);
+        }
+    }
+
+    /**
+     * @return The minimum degree {@code t} of the current tree.
+     */
+    public int getMinimumDegree() {
+        return this.minimumDegree;
+    }
+
+    /**
+     * Simple method which checks whether a given argument
+     * value is valid (is not null).
+     *
+     * @param argument     The argument which should be validated.
+     * @param argumentName The name of the argument.
+     * @param methodName   The method which is using this argument.
+     */
+    private void validationOfArgumentInMethods(final T argument,
+                                               final String argumentName,
+                                               final String methodName) {
+        if (argument == null) {
+            logger.error("The value of " + argumentName
+                    + " in method " + methodName
+                    + "is null!");
+            throw new IllegalArgumentException("The value of argument "
+                    + argumentName + " in method "
+                    + methodName + " cannot be null!");
+        }
     }
 
     @Override
     public boolean contains(T key) {
+        validationOfArgumentInMethods(key, "key", "contains");
+
+        BTreeNode<T> currentNode = this.root;
+
+        while (currentNode != null) {
+            int index = currentNode.search(key);
+
+            if (index >= 0) {
+                return true;
+            }
+
+            currentNode = currentNode.isLeaf() ? null : child(currentNode, -index - 1);
+        }
+
         return false;
     }
 
     @Override
     public void insert(T value) {
+        validationOfArgumentInMethods(value, "value", "insert");
 
+        if (this.root == null) {
+            this.root = new BTreeNode<>(minimumDegree, true);
+            this.height = 1;
+        }
+
+        // A full root is split before the descent, which is the only way
+        // the tree grows in height.
+        if (this.root.keyCount == 2 * minimumDegree - 1) {
+            BTreeNode<T> newRoot = new BTreeNode<>(minimumDegree, false);
+            newRoot.children[0] = this.root;
+            splitChild(newRoot, 0);
+
+            this.root = newRoot;
+            this.height++;
+        }
+
+        if (safeInsert(this.root, value)) {
+            this.size++;
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("Added the value: " + value + " to the current tree.");
+            }
+        }
+    }
+
+    /**
+     * A helper method to the insert method, which guaranteed takes only
+     * valid arguments and a non-full node.
+     *
+     * @param currentNode The non-full node to which should be added {@code value}.
+     * @param value       The value which is to be added.
+     * @return True if {@code value} was not already in the tree.
+     */
+    private boolean safeInsert(BTreeNode<T> currentNode, T value) {
+        while (true) {
+            int index = currentNode.search(value);
+
+            if (index >= 0) {
+                return false;
+            }
+
+            index = -index - 1;
+
+            if (currentNode.isLeaf()) {
+                System.arraycopy(currentNode.keys, index, currentNode.keys, index + 1,
+                        currentNode.keyCount - index);
+                currentNode.keys[index] = value;
+                currentNode.keyCount++;
+                currentNode.dirty = true;
+
+                return true;
+            }
+
+            if (child(currentNode, index).keyCount == 2 * minimumDegree - 1) {
+                splitChild(currentNode, index);
+
+                // The median of the child moved up to index, so the value
+                // may now belong to the right half.
+                int comparison = currentNode.keys[index].compareTo(value);
+
+                if (comparison == 0) {
+                    return false;
+                } else if (comparison < 0) {
+                    index++;
+                }
+            }
+
+            currentNode = child(currentNode, index);
+        }
+    }
+
+    /**
+     * Splits the full child at {@code childIndex} of {@code parent} into two
+     * nodes with {@code t - 1} keys each and moves its median key up into
+     * {@code parent}, which guaranteed is not full.
+     */
+    private void splitChild(BTreeNode<T> parent, int childIndex) {
+        int t = minimumDegree;
+        BTreeNode<T> fullChild = child(parent, childIndex);
+        BTreeNode<T> rightHalf = new BTreeNode<>(t, fullChild.isLeaf());
+
+        System.arraycopy(fullChild.keys, t, rightHalf.keys, 0, t - 1);
+        if (!fullChild.isLeaf()) {
+            System.arraycopy(fullChild.children, t, rightHalf.children, 0, t);
+            Arrays.fill(fullChild.children, t, 2 * t, null);
+        }
+        rightHalf.keyCount = t - 1;
+
+        T median = fullChild.keys[t - 1];
+        Arrays.fill(fullChild.keys, t - 1, 2 * t - 1, null);
+        fullChild.keyCount = t - 1;
+
+        System.arraycopy(parent.children, childIndex + 1, parent.children, childIndex + 2,
+                parent.keyCount - childIndex);
+        parent.children[childIndex + 1] = rightHalf;
+
+        System.arraycopy(parent.keys, childIndex, parent.keys, childIndex + 1,
+                parent.keyCount - childIndex);
+        parent.keys[childIndex] = median;
+        parent.keyCount++;
+
+        fullChild.dirty = true;
+        parent.dirty = true;
     }
 
     @Override
     public void erase(T key) {
+        validationOfArgumentInMethods(key, "key", "erase");
+
+        if (this.root == null) {
+            logger.debug("Trying to remove a non-containing value from the current tree.");
+            return;
+        }
+
+        boolean removed = safeErase(this.root, key);
+
+        // Merges at the top may leave the root without keys, in which
+        // case its only child becomes the new root.
+        if (this.root.keyCount == 0) {
+            BTreeNode<T> oldRoot = this.root;
 
+            this.root = oldRoot.isLeaf() ? null : child(oldRoot, 0);
+            this.height--;
+            releasePage(oldRoot);
+        }
+
+        if (removed) {
+            this.size--;
+
+            /// If the program has worked properly we should notify the logger for
+            /// the removal of the certain value.
+            if (logger.isDebugEnabled()) {
+                logger.debug("Removed value: " + key + " from current tree.");
+            }
+        } else {
+            logger.debug("Trying to remove a non-containing value from the current tree.");
+        }
+    }
+
+    /**
+     * A helper method to the erase method, which guaranteed takes only
+     * valid arguments. Every node it descends into has at least {@code t}
+     * keys (except the root), so a key can always be removed from it.
+     *
+     * @param currentNode The node from whose subtree {@code key} is removed.
+     * @param key         The value we are removing.
+     * @return True if {@code key} was in the tree.
+     */
+    private boolean safeErase(BTreeNode<T> currentNode, T key) {
+        int t = minimumDegree;
+
+        while (true) {
+            int index = currentNode.search(key);
+
+            if (currentNode.isLeaf()) {
+                if (index < 0) {
+                    return false;
+                }
+
+                removeFromNode(currentNode, index);
+                return true;
+            }
+
+            if (index >= 0) {
+                BTreeNode<T> leftChild = child(currentNode, index);
+                BTreeNode<T> rightChild = child(currentNode, index + 1);
+
+                if (leftChild.keyCount >= t) {
+                    // Replace the key with its predecessor and remove the
+                    // predecessor from the left subtree.
+                    T predecessor = lastKey(leftChild);
+                    currentNode.keys[index] = predecessor;
+                    currentNode.dirty = true;
+                    key = predecessor;
+                    currentNode = leftChild;
+                } else if (rightChild.keyCount >= t) {
+                    T successor = firstKey(rightChild);
+                    currentNode.keys[index] = successor;
+                    currentNode.dirty = true;
+                    key = successor;
+                    currentNode = rightChild;
+                } else {
+                    // Both neighbours are minimal, so the key goes down
+                    // into their merged node.
+                    mergeChildren(currentNode, index);
+                    currentNode = leftChild;
+                }
+
+                continue;
+            }
+
+            index = -index - 1;
+
+            if (child(currentNode, index).keyCount == t - 1) {
+                index = refillChild(currentNode, index);
+            }
+
+            currentNode = child(currentNode, index);
+        }
+    }
+
+    /**
+     * Makes sure the child at {@code childIndex} of {@code parent} has at least
+     * {@code t} keys by borrowing a key from a sibling or by merging it with one.
+     *
+     * @return The index of the child which now covers the same range of keys.
+     */
+    private int refillChild(BTreeNode<T> parent, int childIndex) {
+        int t = minimumDegree;
+        BTreeNode<T> child = child(parent, childIndex);
+
+        if (childIndex > 0 && child(parent, childIndex - 1).keyCount >= t) {
+            BTreeNode<T> leftSibling = child(parent, childIndex - 1);
+
+            System.arraycopy(child.keys, 0, child.keys, 1, child.keyCount);
+            child.keys[0] = parent.keys[childIndex - 1];
+            if (!child.isLeaf()) {
+                System.arraycopy(child.children, 0, child.children, 1, child.keyCount + 1);
+                child.children[0] = leftSibling.children[leftSibling.keyCount];
+                leftSibling.children[leftSibling.keyCount] = null;
+            }
+            child.keyCount++;
+
+            parent.keys[childIndex - 1] = leftSibling.keys[leftSibling.keyCount - 1];
+            leftSibling.keys[leftSibling.keyCount - 1] = null;
+            leftSibling.keyCount--;
+
+            child.dirty = true;
+            leftSibling.dirty = true;
+            parent.dirty = true;
+
+            return childIndex;
+        }
+
+        if (childIndex < parent.keyCount && child(parent, childIndex + 1).keyCount >= t) {
+            BTreeNode<T> rightSibling = child(parent, childIndex + 1);
+
+            child.keys[child.keyCount] = parent.keys[childIndex];
+            if (!child.isLeaf()) {
+                child.children[child.keyCount + 1] = rightSibling.children[0];
+                System.arraycopy(rightSibling.children, 1, rightSibling.children, 0,
+                        rightSibling.keyCount);
+                rightSibling.children[rightSibling.keyCount] = null;
+            }
+            child.keyCount++;
+
+            parent.keys[childIndex] = rightSibling.keys[0];
+            removeFromNode(rightSibling, 0);
+
+            child.dirty = true;
+            parent.dirty = true;
+
+            return childIndex;
+        }
+
+        if (childIndex < parent.keyCount) {
+            mergeChildren(parent, childIndex);
+            return childIndex;
+        }
+
+        mergeChildren(parent, childIndex - 1);
+        return childIndex - 1;
+    }
+
+    /**
+     * Merges the child at {@code index + 1} of {@code parent} and the key at
+     * {@code index} into the child at {@code index}. Both children guaranteed
+     * have {@code t - 1} keys.
+     */
+    private void mergeChildren(BTreeNode<T> parent, int index) {
+        BTreeNode<T> leftChild = child(parent, index);
+        BTreeNode<T> rightChild = child(parent, index + 1);
+
+        leftChild.keys[leftChild.keyCount] = parent.keys[index];
+        System.arraycopy(rightChild.keys, 0, leftChild.keys, leftChild.keyCount + 1,
+                rightChild.keyCount);
+        if (!leftChild.isLeaf()) {
+            System.arraycopy(rightChild.children, 0, leftChild.children, leftChild.keyCount + 1,
+                    rightChild.keyCount + 1);
+        }
+        leftChild.keyCount += rightChild.keyCount + 1;
+        leftChild.dirty = true;
+
+        System.arraycopy(parent.children, index + 2, parent.children, index + 1,
+                parent.keyCount - index - 1);
+        parent.children[parent.keyCount] = null;
+        removeFromNode(parent, index);
+        releasePage(rightChild);
+    }
+
+    /**
+     * Removes the key at {@code index} of {@code node} by shifting the
+     * following keys one position to the left.
+     */
+    private void removeFromNode(BTreeNode<T> node, int index) {
+        System.arraycopy(node.keys, index + 1, node.keys, index, node.keyCount - index - 1);
+        node.keyCount--;
+        node.keys[node.keyCount] = null;
+        node.dirty = true;
+    }
+
+    private T firstKey(BTreeNode<T> node) {
+        while (!node.isLeaf()) {
+            node = child(node, 0);
+        }
+
+        return node.keys[0];
+    }
+
+    private T lastKey(BTreeNode<T> node) {
+        while (!node.isLeaf()) {
+            node = child(node, node.keyCount);
+        }
+
+        return node.keys[node.keyCount - 1];
+    }
+
+    /**
+     * Builds the tree bottom-up with the smallest possible height, filling
+     * the nodes as evenly as the minimum degree allows.
+     */
+    @Override
+    public void buildFromSorted(Iterator<? extends T> sortedValues) {
+        List<T> values = BulkLoadableTree.sortedDistinctValues(sortedValues);
+
+        if (this.pageFile != null) {
+            this.pageFile.releaseAllPages();
+        }
+
+        int newHeight = 0;
+        while (maximalNumberOfKeys(newHeight) < values.size()) {
+            newHeight++;
+        }
+
+        this.root = values.isEmpty() ? null
+                : buildSubtree(values, 0, values.size(), newHeight, true);
+        this.size = values.size();
+        this.height = newHeight;
+
+        logger.info("Built the current tree from " + this.size + " sorted values.");
+    }
+
+    /**
+     * @return The number of keys in a subtree of height {@code height}
+     * whose nodes are all full, or {@code Long.MAX_VALUE} if it does not fit.
+     */
+    private long maximalNumberOfKeys(int height) {
+        long keys = 1;
+
+        for (int i = 0; i < height; i++) {
+            if (keys > Long.MAX_VALUE / (2L * minimumDegree)) {
+                return Long.MAX_VALUE;
+            }
+            keys *= 2L * minimumDegree;
+        }
+
+        return keys - 1;
+    }
+
+    /**
+     * Builds a subtree of exactly {@code height} levels from the values with
+     * indices in {@code [from, to)}. The caller guarantees their number is
+     * between the minimal and the maximal number of keys of such a subtree.
+     */
+    private BTreeNode<T> buildSubtree(List<T> values, int from, int to,
+                                      int height, boolean isRoot) {
+        int keys = to - from;
+
+        if (height == 1) {
+            BTreeNode<T> leaf = new BTreeNode<>(minimumDegree, true);
+            for (int i = 0; i < keys; i++) {
+                leaf.keys[i] = values.get(from + i);
+            }
+            leaf.keyCount = keys;
+
+            return leaf;
+        }
+
+        // The fewest children which can hold all keys, but at least the
+        // minimal number of children of an inner node:
+        long childCapacity = maximalNumberOfKeys(height - 1);
+        int children = (int) Math.max(isRoot ? 2 : minimumDegree,
+                (keys + childCapacity + 1) / (childCapacity + 1));
+
+        // The keys which are not separators are shared between the
+        // children as evenly as possible:
+        int keysInChildren = keys - (children - 1);
+        int keysPerChild = keysInChildren / children;
+        int childrenWithOneMoreKey = keysInChildren % children;
+
+        BTreeNode<T> node = new BTreeNode<>(minimumDegree, false);
+        int start = from;
+
+        for (int i = 0; i < children; i++) {
+            int end = start + keysPerChild + (i < childrenWithOneMoreKey ? 1 : 0);
+            node.children[i] = buildSubtree(values, start, end, height - 1, false);
+
+            if (i < children - 1) {
+                node.keys[i] = values.get(end);
+            }
+            start = end + 1;
+        }
+        node.keyCount = children - 1;
+
+        return node;
     }
 
     @Override
     public void clear() {
+        this.root = null;
+        this.size = 0;
+        this.height = 0;
 
+        if (this.pageFile != null) {
+            this.pageFile.releaseAllPages();
+        }
+
+        logger.warn("Cleared the whole tree.");
     }
 
     @Override
     public boolean empty() {
-        return false;
+        return this.root == null;
     }
 
     @Override
     public int size() {
-        return 0;
+        return this.size;
     }
 
     @Override
     public int height() {
-        return 0;
+        return this.height;
+    }
+
+    /**
+     * @return The root of the current tree, for the tests of the package.
+     */
+    BTreeNode<T> root() {
+        return this.root;
     }
 
     @Override
     public Collection<T> getAllElements() {
-        return null;
+        Collection<T> collectionOfAllElementsInTree = new ArrayList<>(this.size);
+
+        safeGetAllElements(this.root, collectionOfAllElementsInTree);
+
+        return collectionOfAllElementsInTree;
+    }
+
+    /**
+     * A helper method to the getAllElements method, which stores the
+     * elements of {@code currentNode} in ascending order.
+     */
+    private void safeGetAllElements(BTreeNode<T> currentNode,
+                                    Collection<T> collectionOfAllElementsInTree) {
+        if (currentNode == null) {
+            return;
+        }
+
+        for (int i = 0; i < currentNode.keyCount; i++) {
+            if (!currentNode.isLeaf()) {
+                safeGetAllElements(child(currentNode, i), collectionOfAllElementsInTree);
+            }
+            collectionOfAllElementsInTree.add(currentNode.keys[i]);
+        }
+
+        if (!currentNode.isLeaf()) {
+            safeGetAllElements(child(currentNode, currentNode.keyCount),
+                    collectionOfAllElementsInTree);
+        }
     }
 
     @Override
-    public StringBuilder text(Traversal traversal) {
+    public Iterator<T> iterator() {
+        return new InorderIterator();
+    }
+
+    /**
+     * Walks the keys in ascending order with an explicit stack of
+     * {@code height()} positions, one for every level of the tree.
+     */
+    private class InorderIterator implements Iterator<T> {
+
+        /**
+         * The nodes on the path from the root to the current node.
+         */
+        private final BTreeNode<T>[] nodes;
+
+        /**
+         * The index of the next key to be returned from every node on the path.
+         */
+        private final int[] indices;
+
+        /**
+         * The index of the current node in {@code nodes} or -1 if
+         * there are no more keys.
+         */
+        private int depth = -1;
 
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        InorderIterator() {
+            this.nodes = new BTreeNode[height];
+            this.indices = new int[height];
 
-        return null;
+            if (root != null && root.keyCount > 0) {
+                pushLeftmostPath(root);
+            }
+        }
+
+        private void pushLeftmostPath(BTreeNode<T> node) {
+            while (true) {
+                depth++;
+                nodes[depth] = node;
+                indices[depth] = 0;
+
+                if (node.isLeaf()) {
+                    return;
+                }
+                node = child(node, 0);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth >= 0;
+        }
+
+        @Override
+        public T next() {
+            if (depth < 0) {
+                throw new NoSuchElementException();
+            }
+
+            BTreeNode<T> node = nodes[depth];
+            int index = indices[depth]++;
+            T key = node.keys[index];
+
+            if (!node.isLeaf()) {
+                // The keys between this one and the next one are in the child after it:
+                pushLeftmostPath(child(node, index + 1));
+            } else {
+                while (depth >= 0 && indices[depth] >= nodes[depth].keyCount) {
+                    nodes[depth] = null;
+                    depth--;
+                }
+            }
+
+            return key;
+        }
+    }
+
+    @Override
+    public void text(Traversal traversal, Appendable output) throws IOException {
+        if (traversal == null || output == null) {
+            logger.error("The value of argument traversal or output in method text is null.");
+            throw new IllegalArgumentException("The values of arguments traversal and output " +
+                    "in method text in class BTree should not be null!");
+        }
+
+        if (traversal == Traversal.INORDER) {
+            for (T key : this) {
+                output.append(String.valueOf(key)).append(' ');
+            }
+        } else {
+            appendDepthFirstTraversal(traversal == Traversal.PREORDER, output);
+        }
+    }
+
+    /**
+     * Writes the keys of every node before ({@code preorder}) or after the
+     * keys of its subtrees. The tree is walked with an explicit stack of
+     * {@code height()} positions instead of recursion.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void appendDepthFirstTraversal(boolean preorder, Appendable output) throws IOException {
+        if (this.root == null || this.root.keyCount == 0) {
+            return;
+        }
+
+        BTreeNode<T>[] nodes = new BTreeNode[this.height];
+        // The index of the next child to be visited in every node on the path:
+        int[] nextChildren = new int[this.height];
+        int depth = 0;
+
+        nodes[0] = this.root;
+        if (preorder) {
+            appendKeys(this.root, output);
+        }
+
+        while (depth >= 0) {
+            BTreeNode<T> node = nodes[depth];
+
+            if (!node.isLeaf() && nextChildren[depth] <= node.keyCount) {
+                BTreeNode<T> nextChild = child(node, nextChildren[depth]++);
+
+                depth++;
+                nodes[depth] = nextChild;
+                nextChildren[depth] = 0;
+                if (preorder) {
+                    appendKeys(nextChild, output);
+                }
+            } else {
+                if (!preorder) {
+                    appendKeys(node, output);
+                }
+                nodes[depth] = null;
+                depth--;
+            }
+        }
     }
 
+    private static <T extends Comparable<T>> void appendKeys(BTreeNode<T> node,
+                                                             Appendable output) throws IOException {
+        for (int i = 0; i < node.keyCount; i++) {
+            output.append(String.valueOf(node.keys[i])).append(' ');
+        }
+    }
+
+    /**
+     * Prints every level of the tree on a separate line, with the keys of
+     * every node in square brackets.
+     */
     @Override
     public void prettyPrint() {
+        StringBuilder output = new StringBuilder();
+        List<BTreeNode<T>> level = new ArrayList<>();
+        List<BTreeNode<T>> next = new ArrayList<>();
+
+        if (this.root != null) {
+            level.add(this.root);
+        }
+
+        while (!level.isEmpty()) {
+            for (BTreeNode<T> node : level) {
+                output.append('[');
+                for (int i = 0; i < node.keyCount; i++) {
+                    if (i > 0) {
+                        output.append(' ');
+                    }
+                    output.append(node.keys[i]);
+                }
+                output.append("] ");
+
+                if (!node.isLeaf()) {
+                    for (int i = 0; i <= node.keyCount; i++) {
+                        next.add(child(node, i));
+                    }
+                }
+            }
+            output.append(System.lineSeparator());
+
+            List<BTreeNode<T>> tmp = level;
+            level = next;
+            next = tmp;
+            next.clear();
+        }
 
+        System.out.print(output);
     }
 }
@@ -0,0 +1,373 @@
+/**
+ * @author Stiliyan Iliev
+ * @version 1.0
+ * Package for working with B-trees.
+ */
+package lights.digital.masterclass.tree.balanced.btree;
+
+import lights.digital.masterclass.tree.io.KeyCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * The file of a {@link BTree}, made of pages of equal size which are
+ * accessed through memory mappings of {@value #REGION_SIZE} bytes.
+ * <p>
+ * The layout of the file (all numbers are big-endian):
+ * <pre>
+ * page 0 (meta page):
+ *   int  magic number 0x42545245 ("BTRE")
+ *   int  version of the format (1)
+ *   int  page size in bytes
+ *   int  minimum degree t
+ *   int  width of an encoded key in bytes
+ *   int  page of the root or -1 if the tree is empty
+ *   int  height of the tree
+ *   int  number of keys in the tree
+ *   int  number of pages in the file (including the meta page)
+ *   int  first page of the list of free pages or -1
+ *
+ * every other page (a node):
+ *   byte 1 if the node is a leaf, else 0
+ *   3 bytes padding
+ *   int  number of keys k
+ *   (2t - 1) keys of the key width, the first k of them are valid
+ *   2t child pages as int, the first k + 1 of them are valid in inner nodes
+ *
+ * a free page:
+ *   int  the next free page or -1
+ * </pre>
+ * The file is consistent only after {@link #force()}, the pages are not
+ * written atomically.
+ *
+ * @param <T> The data type of the keys.
+ */
+final class BTreePageFile<T extends Comparable<T>> {
+
+    static final int NO_PAGE = -1;
+
+    /**
+     * The number of bytes mapped at once.
+     */
+    static final int REGION_SIZE = 1 << 22;
+
+    private static final int MAGIC = 0x42545245;
+
+    private static final int VERSION = 1;
+
+    private static final int META_SIZE = 10 * Integer.BYTES;
+
+    private static final int NODE_HEADER_SIZE = 8;
+
+    private final FileChannel channel;
+
+    private final KeyCodec<T> codec;
+
+    private final int minimumDegree;
+
+    private final int pageSize;
+
+    private final int pagesPerRegion;
+
+    private final List<MappedByteBuffer> regions = new ArrayList<>();
+
+    /**
+     * The number of pages in the file, including the meta page.
+     */
+    private int pageCount;
+
+    /**
+     * The pages which can be reused, used as a stack.
+     */
+    private int[] freePages = new int[16];
+
+    private int freePageCount = 0;
+
+    /// The contents of the meta page at the time the file was opened:
+    private int rootPage = NO_PAGE;
+    private int height = 0;
+    private int size = 0;
+
+    private BTreePageFile(FileChannel channel, KeyCodec<T> codec, int minimumDegree, int pageSize) {
+        this.channel = channel;
+        this.codec = codec;
+        this.minimumDegree = minimumDegree;
+        this.pageSize = pageSize;
+        this.pagesPerRegion = Math.max(1, REGION_SIZE / pageSize);
+    }
+
+    /**
+     * @return The size of the pages of a tree with minimum degree
+     * {@code minimumDegree} and keys of {@code keyWidth} bytes.
+     */
+    static int pageSize(int minimumDegree, int keyWidth) {
+        long nodeSize = NODE_HEADER_SIZE + (2L * minimumDegree - 1) * keyWidth
+                + 2L * minimumDegree * Integer.BYTES;
+
+        if (nodeSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The nodes of a B-tree with minimum degree "
+                    + minimumDegree + " do not fit in a page!");
+        }
+
+        return Math.max(META_SIZE, (int) nodeSize);
+    }
+
+    /**
+     * Creates a new file (replacing an existing one) with an empty tree.
+     */
+    static <T extends Comparable<T>> BTreePageFile<T> create(Path file, KeyCodec<T> codec,
+                                                             int minimumDegree) throws IOException {
+        if (codec.width() <= 0) {
+            throw new IllegalArgumentException("The keys of a B-tree file should " +
+                    "have a fixed width!");
+        }
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        BTreePageFile<T> pageFile = new BTreePageFile<>(channel, codec, minimumDegree,
+                pageSize(minimumDegree, codec.width()));
+
+        pageFile.pageCount = 1;
+        pageFile.mapRegions();
+        pageFile.writeMeta(NO_PAGE, 0, 0);
+        pageFile.force();
+
+        return pageFile;
+    }
+
+    /**
+     * Opens an existing file. Only its meta page and the list of free pages
+     * are read, the nodes are read when they are needed.
+     */
+    static <T extends Comparable<T>> BTreePageFile<T> open(Path file, KeyCodec<T> codec) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            ByteBuffer meta = ByteBuffer.allocate(META_SIZE);
+            while (meta.hasRemaining() && channel.read(meta, meta.position()) >= 0) {
+                // Reading until the whole meta page is in the buffer.
+            }
+            meta.flip();
+
+            if (meta.remaining() < META_SIZE || meta.getInt() != MAGIC) {
+                throw new IllegalArgumentException("The file " + file + " is not a B-tree file!");
+            }
+            if (meta.getInt() != VERSION) {
+                throw new IllegalArgumentException("The version of the B-tree file "
+                        + file + " is not supported!");
+            }
+
+            int pageSize = meta.getInt();
+            int minimumDegree = meta.getInt();
+            int keyWidth = meta.getInt();
+
+            if (keyWidth != codec.width()) {
+                throw new IllegalArgumentException("The keys in the B-tree file " + file
+                        + " have " + keyWidth + " bytes, but the codec writes "
+                        + codec.width() + " bytes!");
+            }
+            if (pageSize != pageSize(minimumDegree, keyWidth)) {
+                throw new IllegalArgumentException("The pages in the B-tree file " + file
+                        + " have " + pageSize + " bytes, but a node of minimum degree "
+                        + minimumDegree + " takes " + pageSize(minimumDegree, keyWidth) + " bytes!");
+            }
+
+            BTreePageFile<T> pageFile = new BTreePageFile<>(channel, codec, minimumDegree, pageSize);
+            pageFile.rootPage = meta.getInt();
+            pageFile.height = meta.getInt();
+            pageFile.size = meta.getInt();
+            pageFile.pageCount = meta.getInt();
+            pageFile.mapRegions();
+
+            for (int page = meta.getInt(); page != NO_PAGE; page = pageFile.page(page).getInt()) {
+                pageFile.pushFreePage(page);
+            }
+
+            return pageFile;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    int getMinimumDegree() {
+        return minimumDegree;
+    }
+
+    int getRootPage() {
+        return rootPage;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * Maps the regions which are needed for all {@code pageCount} pages,
+     * which grows the file if it is shorter.
+     */
+    private void mapRegions() throws IOException {
+        long regionBytes = (long) pagesPerRegion * pageSize;
+
+        while ((long) regions.size() * pagesPerRegion < pageCount) {
+            regions.add(channel.map(FileChannel.MapMode.READ_WRITE,
+                    regions.size() * regionBytes, regionBytes));
+        }
+    }
+
+    /**
+     * @return A buffer over the bytes of {@code page} whose position is
+     * at the beginning of the page.
+     */
+    private ByteBuffer page(int page) {
+        int offset = (page % pagesPerRegion) * pageSize;
+
+        return regions.get(page / pagesPerRegion).duplicate()
+                .position(offset)
+                .limit(offset + pageSize)
+                .slice();
+    }
+
+    /**
+     * Reads the node in {@code page}. Its children are left as stubs, which
+     * hold only their pages.
+     */
+    BTree.BTreeNode<T> readNode(int page) {
+        ByteBuffer buffer = page(page);
+        boolean leaf = buffer.get() == 1;
+        int keyCount = buffer.getInt(4);
+
+        BTree.BTreeNode<T> node = new BTree.BTreeNode<>(minimumDegree, leaf);
+        node.page = page;
+        node.dirty = false;
+        node.keyCount = keyCount;
+
+        buffer.position(NODE_HEADER_SIZE);
+        for (int i = 0; i < keyCount; i++) {
+            node.keys[i] = codec.read(buffer);
+        }
+
+        if (!leaf) {
+            buffer.position(NODE_HEADER_SIZE + (2 * minimumDegree - 1) * codec.width());
+            for (int i = 0; i <= keyCount; i++) {
+                node.children[i] = BTree.BTreeNode.stub(buffer.getInt());
+            }
+        }
+
+        return node;
+    }
+
+    /**
+     * Writes {@code node} in its page. All its children guaranteed have pages.
+     */
+    void writeNode(BTree.BTreeNode<T> node) {
+        ByteBuffer buffer = page(node.page);
+
+        buffer.put((byte) (node.isLeaf() ? 1 : 0));
+        buffer.putInt(4, node.keyCount);
+
+        buffer.position(NODE_HEADER_SIZE);
+        for (int i = 0; i < node.keyCount; i++) {
+            codec.write(node.keys[i], buffer);
+        }
+
+        if (!node.isLeaf()) {
+            buffer.position(NODE_HEADER_SIZE + (2 * minimumDegree - 1) * codec.width());
+            for (int i = 0; i <= node.keyCount; i++) {
+                buffer.putInt(node.children[i].page);
+            }
+        }
+    }
+
+    /**
+     * @return A free page or a new page at the end of the file.
+     */
+    int allocatePage() throws IOException {
+        if (freePageCount > 0) {
+            return freePages[--freePageCount];
+        }
+
+        pageCount++;
+        mapRegions();
+
+        return pageCount - 1;
+    }
+
+    /**
+     * Marks {@code page} as free, so it can be reused for another node.
+     */
+    void releasePage(int page) {
+        if (page != NO_PAGE) {
+            pushFreePage(page);
+        }
+    }
+
+    private void pushFreePage(int page) {
+        if (freePageCount == freePages.length) {
+            freePages = Arrays.copyOf(freePages, freePageCount * 2);
+        }
+
+        freePages[freePageCount++] = page;
+    }
+
+    /**
+     * Marks all pages except the meta page as free, because the whole tree
+     * is replaced.
+     */
+    void releaseAllPages() {
+        freePageCount = 0;
+        for (int page = 1; page < pageCount; page++) {
+            pushFreePage(page);
+        }
+    }
+
+    /**
+     * Writes the meta page and links the free pages in a list.
+     */
+    void writeMeta(int rootPage, int height, int size) {
+        int nextFreePage = NO_PAGE;
+        for (int i = 0; i < freePageCount; i++) {
+            page(freePages[i]).putInt(nextFreePage);
+            nextFreePage = freePages[i];
+        }
+
+        ByteBuffer meta = page(0);
+        meta.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(pageSize)
+                .putInt(minimumDegree)
+                .putInt(codec.width())
+                .putInt(rootPage)
+                .putInt(height)
+                .putInt(size)
+                .putInt(pageCount)
+                .putInt(nextFreePage);
+    }
+
+    /**
+     * Writes all changed pages to the storage device.
+     */
+    void force() {
+        for (MappedByteBuffer region : regions) {
+            region.force();
+        }
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,731 @@
+package lights.digital.masterclass.tree.balanced.redblack;
+
+import lights.digital.masterclass.tree.BulkLoadableTree;
+import lights.digital.masterclass.tree.Traversal;
+import lights.digital.masterclass.tree.print.PrintableNode;
+import lights.digital.masterclass.tree.print.pretty.PrettyPrinter;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+
+/**
+ * The rebalancing part of the red-black trees whose nodes are not objects
+ * but slots with {@code int} indices in some storage (parallel arrays, a
+ * buffer, ...). The links between the nodes are indices and {@link #NIL}
+ * stands for a missing node. The subclasses keep the storage and the keys
+ * and search for the keys, while all structural changes (linking, rotations
+ * and recoloring) and the reuse of the slots of erased nodes are done here.
+ *
+ * @param <T> The data type of the keys, which should be at least a class
+ *            implementing the interface Comparable.
+ */
+public abstract class AbstractIndexedRedBlackTree<T extends Comparable<T>> implements BulkLoadableTree<T> {
+
+    /**
+     * The index of a missing node.
+     */
+    protected static final int NIL = -1;
+
+    /**
+     * A log4j logger for logging information about thrown exceptions,
+     * added new elements to the tree and erased ones. The messages about
+     * single insertions and erasures are logged on the debug level.
+     */
+    protected static final Logger logger = Logger.getLogger(AbstractIndexedRedBlackTree.class);
+
+    /**
+     * The index of the root of the current tree.
+     */
+    protected int root = NIL;
+
+    /**
+     * The number of elements in the current tree.
+     */
+    protected int size = 0;
+
+    /**
+     * The number of slots which have been handed out since the tree was
+     * created or cleared. All slots above it are unused.
+     */
+    private int usedSlots = 0;
+
+    /**
+     * The first slot of the list of erased slots, which are linked by
+     * their left links, or NIL if there are no erased slots.
+     */
+    private int freeListHead = NIL;
+
+    /// Access to the storage of the nodes:
+
+    protected abstract int leftChild(int node);
+
+    protected abstract void setLeftChild(int node, int child);
+
+    protected abstract int rightChild(int node);
+
+    protected abstract void setRightChild(int node, int child);
+
+    protected abstract int parent(int node);
+
+    protected abstract void setParent(int node, int parent);
+
+    protected abstract boolean isRed(int node);
+
+    protected abstract void setRed(int node, boolean red);
+
+    /**
+     * @return The number of slots the storage can hold without growing.
+     */
+    protected abstract int capacity();
+
+    /**
+     * Makes the storage big enough for at least {@code minimumCapacity}
+     * slots, keeping the contents of the existing ones.
+     */
+    protected abstract void growStorage(int minimumCapacity);
+
+    /**
+     * Drops the contents of all slots, so the storage can be reused
+     * from its beginning.
+     */
+    protected abstract void clearStorage();
+
+    /**
+     * Replaces the key of {@code node} with the key of {@code other}.
+     */
+    protected abstract void copyKey(int other, int node);
+
+    /**
+     * Stores {@code key} in {@code node}.
+     */
+    protected abstract void setKey(int node, T key);
+
+    /**
+     * Drops the key of the erased {@code node}, so the storage does not
+     * keep it reachable. Primitive keys do not need to be dropped.
+     */
+    protected void clearKey(int node) {
+    }
+
+    /**
+     * @return The key of {@code node}, boxed if it is stored as a primitive.
+     */
+    protected abstract T key(int node);
+
+    /**
+     * Simple method which checks whether a given argument
+     * value is valid (is not null).
+     *
+     * @param argument     The argument which should be validated.
+     * @param argumentName The name of the argument.
+     * @param methodName   The method which is using this argument.
+     */
+    protected void validationOfArgumentInMethods(final Object argument,
+                                                 final String argumentName,
+                                                 final String methodName) {
+        if (argument == null) {
+            logger.error("The value of " + argumentName
+                    + " in method " + methodName
+                    + " is null!");
+            throw new IllegalArgumentException("The value of argument "
+                    + argumentName + " in method "
+                    + methodName + " cannot be null!");
+        }
+    }
+
+    /**
+     * A red-black tree with {@code n} nodes is at most {@code 2·log2(n + 1)}
+     * high, so a search from the root which visits more nodes than this has
+     * followed links changed during it by another thread (as an optimistic
+     * read does) and is stopped with {@link #changedDuringSearch()}.
+     *
+     * @return The most nodes a search from the root can visit.
+     */
+    protected int maximalSearchLength() {
+        return 2 * (Integer.SIZE - Integer.numberOfLeadingZeros(this.size + 1)) + 2;
+    }
+
+    /**
+     * @return The exception which a search longer than
+     * {@link #maximalSearchLength()} should throw instead of looping.
+     */
+    protected static ConcurrentModificationException changedDuringSearch() {
+        return new ConcurrentModificationException("The tree was changed during the search.");
+    }
+
+    /**
+     * Takes a slot for a new node from the list of erased slots, or after
+     * the used ones if the list is empty.
+     *
+     * @param parent The parent of the new node.
+     * @return The index of a black node without children.
+     */
+    protected int allocateNode(int parent) {
+        int node;
+
+        if (freeListHead != NIL) {
+            node = freeListHead;
+            freeListHead = leftChild(node);
+        } else {
+            if (usedSlots == capacity()) {
+                growStorage(usedSlots + 1);
+            }
+
+            node = usedSlots++;
+        }
+
+        setLeftChild(node, NIL);
+        setRightChild(node, NIL);
+        setParent(node, parent);
+        setRed(node, false);
+
+        return node;
+    }
+
+    private void freeNode(int node) {
+        clearKey(node);
+        setRightChild(node, NIL);
+        setParent(node, NIL);
+        setLeftChild(node, freeListHead);
+        freeListHead = node;
+    }
+
+    /**
+     * Links {@code newNode}, which the subclass has allocated under
+     * {@code parent} after searching for its key, to the tree and
+     * rebalances the tree.
+     *
+     * @param parent      The last node visited by the search or NIL if the
+     *                    tree is empty.
+     * @param newNode     The new node, whose key is already stored.
+     * @param isLeftChild Whether the key of {@code newNode} is less than the
+     *                    key of {@code parent}.
+     */
+    protected void linkNewNode(int parent, int newNode, boolean isLeftChild) {
+        if (parent == NIL) {
+            this.root = newNode;
+        } else if (isLeftChild) {
+            setLeftChild(parent, newNode);
+        } else {
+            setRightChild(parent, newNode);
+        }
+
+        setRed(newNode, true);
+        balancingTreeAfterInsertion(newNode);
+        this.size++;
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Added the value: " + key(newNode) + " to the current tree.");
+        }
+    }
+
+    /**
+     * Removes {@code node}, which the subclass has found by its key, from
+     * the tree, rebalances the tree and puts the slot of the removed node
+     * in the list of erased slots. A node with two children takes the key
+     * of its in-order successor and the successor is removed instead.
+     */
+    protected void deleteNode(int node) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Removed value: " + key(node) + " from current tree.");
+        }
+
+        if (leftChild(node) != NIL && rightChild(node) != NIL) {
+            int inOrderSuccessor = successor(node);
+            copyKey(inOrderSuccessor, node);
+            node = inOrderSuccessor;
+        }
+
+        // The node has at most one child now:
+        int replacement = leftChild(node) != NIL ? leftChild(node) : rightChild(node);
+
+        if (replacement != NIL) {
+            replaceParentsChild(parent(node), node, replacement);
+
+            // The child of a removed black node has to make up for the
+            // missing black node (a red child is simply recolored).
+            if (!isRed(node)) {
+                balancingTreeAfterErasure(replacement);
+            }
+        } else if (parent(node) == NIL) {
+            this.root = NIL;
+        } else {
+            // A black leaf stays in the tree as its own "doubly black"
+            // placeholder while the tree is balanced and is unlinked after that.
+            if (!isRed(node)) {
+                balancingTreeAfterErasure(node);
+            }
+
+            replaceParentsChild(parent(node), node, NIL);
+        }
+
+        freeNode(node);
+        this.size--;
+    }
+
+    private void replaceParentsChild(int parent, int oldChild, int newChild) {
+        if (parent == NIL) {
+            this.root = newChild;
+        } else if (leftChild(parent) == oldChild) {
+            setLeftChild(parent, newChild);
+        } else {
+            setRightChild(parent, newChild);
+        }
+
+        if (newChild != NIL) {
+            setParent(newChild, parent);
+        }
+    }
+
+    private void leftRotation(int node) {
+        int rightSubtree = rightChild(node);
+        int innerGrandchild = leftChild(rightSubtree);
+
+        setRightChild(node, innerGrandchild);
+        if (innerGrandchild != NIL) {
+            setParent(innerGrandchild, node);
+        }
+
+        replaceParentsChild(parent(node), node, rightSubtree);
+        setLeftChild(rightSubtree, node);
+        setParent(node, rightSubtree);
+    }
+
+    private void rightRotation(int node) {
+        int leftSubtree = leftChild(node);
+        int innerGrandchild = rightChild(leftSubtree);
+
+        setLeftChild(node, innerGrandchild);
+        if (innerGrandchild != NIL) {
+            setParent(innerGrandchild, node);
+        }
+
+        replaceParentsChild(parent(node), node, leftSubtree);
+        setRightChild(leftSubtree, node);
+        setParent(node, leftSubtree);
+    }
+
+    /// NIL-safe helpers, a missing node is black and has no links:
+
+    private boolean isRedNode(int node) {
+        return node != NIL && isRed(node);
+    }
+
+    private int parentOf(int node) {
+        return node == NIL ? NIL : parent(node);
+    }
+
+    private int leftOf(int node) {
+        return node == NIL ? NIL : leftChild(node);
+    }
+
+    private int rightOf(int node) {
+        return node == NIL ? NIL : rightChild(node);
+    }
+
+    private void setRedNode(int node, boolean red) {
+        if (node != NIL) {
+            setRed(node, red);
+        }
+    }
+
+    /// After inserting a red node its parent may also be red, so we move the
+    /// red-red violation up by recoloring and end it with at most two rotations.
+    private void balancingTreeAfterInsertion(int node) {
+        while (node != this.root && isRed(parent(node))) {
+            int parent = parent(node);
+            int grandparent = parentOf(parent);
+
+            if (parent == leftOf(grandparent)) {
+                int uncle = rightOf(grandparent);
+
+                if (isRedNode(uncle)) {
+                    setRed(parent, false);
+                    setRed(uncle, false);
+                    setRedNode(grandparent, true);
+                    node = grandparent;
+                } else {
+                    if (node == rightChild(parent)) {
+                        node = parent;
+                        leftRotation(node);
+                    }
+                    setRed(parent(node), false);
+                    setRed(parent(parent(node)), true);
+                    rightRotation(parent(parent(node)));
+                }
+            } else {
+                int uncle = leftOf(grandparent);
+
+                if (isRedNode(uncle)) {
+                    setRed(parent, false);
+                    setRed(uncle, false);
+                    setRedNode(grandparent, true);
+                    node = grandparent;
+                } else {
+                    if (node == leftChild(parent)) {
+                        node = parent;
+                        rightRotation(node);
+                    }
+                    setRed(parent(node), false);
+                    setRed(parent(parent(node)), true);
+                    leftRotation(parent(parent(node)));
+                }
+            }
+        }
+
+        setRed(this.root, false);
+    }
+
+    /// After erasing a black node one path of the tree has one black node
+    /// less than the others ({@code node} is "doubly black"), so we have to
+    /// balance it.
+    private void balancingTreeAfterErasure(int node) {
+        while (node != this.root && !isRed(node)) {
+            if (node == leftOf(parentOf(node))) {
+                int sibling = rightOf(parentOf(node));
+
+                if (isRedNode(sibling)) {
+                    setRedNode(sibling, false);
+                    setRedNode(parentOf(node), true);
+                    leftRotation(parentOf(node));
+                    sibling = rightOf(parentOf(node));
+                }
+
+                if (!isRedNode(leftOf(sibling)) && !isRedNode(rightOf(sibling))) {
+                    setRedNode(sibling, true);
+                    node = parentOf(node);
+                } else {
+                    if (!isRedNode(rightOf(sibling))) {
+                        setRedNode(leftOf(sibling), false);
+                        setRedNode(sibling, true);
+                        rightRotation(sibling);
+                        sibling = rightOf(parentOf(node));
+                    }
+                    setRedNode(sibling, isRedNode(parentOf(node)));
+                    setRedNode(parentOf(node), false);
+                    setRedNode(rightOf(sibling), false);
+                    leftRotation(parentOf(node));
+                    node = this.root;
+                }
+            } else {
+                int sibling = leftOf(parentOf(node));
+
+                if (isRedNode(sibling)) {
+                    setRedNode(sibling, false);
+                    setRedNode(parentOf(node), true);
+                    rightRotation(parentOf(node));
+                    sibling = leftOf(parentOf(node));
+                }
+
+                if (!isRedNode(rightOf(sibling)) && !isRedNode(leftOf(sibling))) {
+                    setRedNode(sibling, true);
+                    node = parentOf(node);
+                } else {
+                    if (!isRedNode(leftOf(sibling))) {
+                        setRedNode(rightOf(sibling), false);
+                        setRedNode(sibling, true);
+                        leftRotation(sibling);
+                        sibling = leftOf(parentOf(node));
+                    }
+                    setRedNode(sibling, isRedNode(parentOf(node)));
+                    setRedNode(parentOf(node), false);
+                    setRedNode(leftOf(sibling), false);
+                    rightRotation(parentOf(node));
+                    node = this.root;
+                }
+            }
+        }
+
+        setRedNode(node, false);
+    }
+
+    /**
+     * @return The node with the smallest key in the current tree or NIL if
+     * the tree is empty.
+     */
+    protected int firstNode() {
+        int node = this.root;
+
+        if (node != NIL) {
+            while (leftChild(node) != NIL) {
+                node = leftChild(node);
+            }
+        }
+
+        return node;
+    }
+
+    /**
+     * @return The node with the next bigger key after the key of {@code node}
+     * or NIL if {@code node} holds the biggest key.
+     */
+    protected int successor(int node) {
+        if (rightChild(node) != NIL) {
+            node = rightChild(node);
+            while (leftChild(node) != NIL) {
+                node = leftChild(node);
+            }
+
+            return node;
+        }
+
+        int parent = parent(node);
+        while (parent != NIL && node == rightChild(parent)) {
+            node = parent;
+            parent = parent(parent);
+        }
+
+        return parent;
+    }
+
+    @Override
+    public void buildFromSorted(Iterator<? extends T> sortedValues) {
+        List<T> values = BulkLoadableTree.sortedDistinctValues(sortedValues);
+
+        clearStorage();
+        if (capacity() < values.size()) {
+            growStorage(values.size());
+        }
+
+        for (int node = 0; node < values.size(); node++) {
+            setKey(node, values.get(node));
+        }
+        linkSortedSlots(values.size());
+
+        logger.info("Built the current tree from " + this.size + " sorted values.");
+    }
+
+    /**
+     * Replaces the current tree with a balanced tree of the first
+     * {@code count} slots, whose keys are already stored in strictly
+     * ascending order. The storage has to hold at least {@code count} slots.
+     *
+     * @param count The number of slots which become the nodes of the tree.
+     */
+    protected void linkSortedSlots(int count) {
+        int redLevel = 0;
+        for (int m = count - 1; m >= 0; m = m / 2 - 1) {
+            redLevel++;
+        }
+
+        this.usedSlots = count;
+        this.freeListHead = NIL;
+        this.root = linkBalancedSubtree(0, count - 1, NIL, 0, redLevel);
+        this.size = count;
+    }
+
+    /**
+     * Links the slots with indices in {@code [low, high]} into a perfectly
+     * balanced subtree. Only its deepest level may be incomplete, so
+     * coloring that level red keeps the number of black nodes on every path
+     * the same.
+     */
+    private int linkBalancedSubtree(int low, int high, int parent, int level, int redLevel) {
+        if (low > high) {
+            return NIL;
+        }
+
+        int middle = (low + high) >>> 1;
+
+        setParent(middle, parent);
+        setLeftChild(middle, linkBalancedSubtree(low, middle - 1, middle, level + 1, redLevel));
+        setRightChild(middle, linkBalancedSubtree(middle + 1, high, middle, level + 1, redLevel));
+        setRed(middle, level == redLevel);
+
+        return middle;
+    }
+
+    @Override
+    public void clear() {
+        clearStorage();
+        this.usedSlots = 0;
+        this.freeListHead = NIL;
+        this.size = 0;
+        this.root = NIL;
+
+        logger.warn("Cleared the whole tree.");
+    }
+
+    @Override
+    public boolean empty() {
+        return this.root == NIL;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return The height of the current tree. The nodes do not keep their
+     * heights, so it takes linear time.
+     */
+    @Override
+    public int height() {
+        return height(this.root);
+    }
+
+    private int height(int node) {
+        if (node == NIL) {
+            return 0;
+        }
+
+        return 1 + Math.max(height(leftChild(node)), height(rightChild(node)));
+    }
+
+    @Override
+    public Collection<T> getAllElements() {
+        Collection<T> collectionOfAllElementsInTree = new ArrayList<>(this.size);
+
+        for (T element : this) {
+            collectionOfAllElementsInTree.add(element);
+        }
+
+        return collectionOfAllElementsInTree;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private int next = firstNode();
+
+            @Override
+            public boolean hasNext() {
+                return next != NIL;
+            }
+
+            @Override
+            public T next() {
+                if (next == NIL) {
+                    throw new NoSuchElementException();
+                }
+
+                T key = key(next);
+                next = successor(next);
+
+                return key;
+            }
+        };
+    }
+
+    /**
+     * A view of a slot as a node for the printer, which is created only
+     * while the tree is printed.
+     */
+    private final class PrintableSlot implements PrintableNode {
+        private final int node;
+
+        private PrintableSlot(int node) {
+            this.node = node;
+        }
+
+        @Override
+        public PrintableNode getLeft() {
+            return leftChild(node) == NIL ? null : new PrintableSlot(leftChild(node));
+        }
+
+        @Override
+        public PrintableNode getRight() {
+            return rightChild(node) == NIL ? null : new PrintableSlot(rightChild(node));
+        }
+
+        @Override
+        public String getText() {
+            return String.valueOf(key(node));
+        }
+    }
+
+    @Override
+    public void prettyPrint() {
+        PrettyPrinter.print(this.root == NIL ? null : new PrintableSlot(this.root));
+    }
+
+    /**
+     * Prints the first {@code maximalDepth} levels of the current tree, but
+     * at most {@code maximalNodes} nodes, as a graph to {@code output}.
+     *
+     * @see PrettyPrinter#print(PrintableNode, Appendable, int, int)
+     */
+    public void prettyPrint(Appendable output, int maximalDepth, int maximalNodes) throws IOException {
+        PrettyPrinter.print(this.root == NIL ? null : new PrintableSlot(this.root), output, maximalDepth, maximalNodes);
+    }
+
+    /**
+     * Writes the nodes one by one while the tree is walked through the
+     * links to the parents, without recursion.
+     */
+    @Override
+    public void text(Traversal traversal, Appendable output) throws IOException {
+        if (traversal == null || output == null) {
+            logger.error("The value of argument traversal or output in method text is null.");
+            throw new IllegalArgumentException("The values of arguments traversal and output " +
+                    "in method text should not be null!");
+        }
+
+        switch (traversal) {
+            case INORDER -> {
+                for (int node = firstNode(); node != NIL; node = successor(node)) {
+                    output.append(String.valueOf(key(node))).append(' ');
+                }
+            }
+            case PREORDER -> {
+                for (int node = this.root; node != NIL; node = preorderSuccessor(node)) {
+                    output.append(String.valueOf(key(node))).append(' ');
+                }
+            }
+            case POSTORDER -> {
+                for (int node = firstPostorderNode(this.root); node != NIL; node = postorderSuccessor(node)) {
+                    output.append(String.valueOf(key(node))).append(' ');
+                }
+            }
+        }
+    }
+
+    private int preorderSuccessor(int node) {
+        if (leftChild(node) != NIL) {
+            return leftChild(node);
+        }
+        if (rightChild(node) != NIL) {
+            return rightChild(node);
+        }
+
+        // Going up to the first node with a right subtree which is not visited yet:
+        while (parent(node) != NIL
+                && (node == rightChild(parent(node)) || rightChild(parent(node)) == NIL)) {
+            node = parent(node);
+        }
+
+        return parent(node) == NIL ? NIL : rightChild(parent(node));
+    }
+
+    private int firstPostorderNode(int node) {
+        while (node != NIL) {
+            if (leftChild(node) != NIL) {
+                node = leftChild(node);
+            } else if (rightChild(node) != NIL) {
+                node = rightChild(node);
+            } else {
+                return node;
+            }
+        }
+
+        return NIL;
+    }
+
+    private int postorderSuccessor(int node) {
+        int parent = parent(node);
+
+        if (parent != NIL && node == leftChild(parent) && rightChild(parent) != NIL) {
+            return firstPostorderNode(rightChild(parent));
+        }
+
+        return parent;
+    }
+}
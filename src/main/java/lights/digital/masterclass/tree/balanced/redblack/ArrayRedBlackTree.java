@@ -0,0 +1,242 @@
+package lights.digital.masterclass.tree.balanced.redblack;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+
+/**
+ * A red-black tree whose nodes are slots in parallel arrays instead of
+ * objects. The links of a node are {@code int} indices in three arrays, its
+ * color is a bit in a {@link BitSet} and its key is an element of an array,
+ * so a key costs about 16 bytes of the tree (and the slots are not separate
+ * objects for the garbage collector), instead of a node object of about 48
+ * bytes. The slots of erased keys are reused by the next insertions.
+ *
+ * @param <T> The data type in every node, which should be at least a class
+ *            implementing the interface Comparable.
+ */
+public class ArrayRedBlackTree<T extends Comparable<T>> extends AbstractIndexedRedBlackTree<T> {
+
+    /**
+     * The number of slots of a new tree.
+     */
+    public static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    private final int initialCapacity;
+
+    private T[] keys;
+
+    private int[] leftChildren;
+
+    private int[] rightChildren;
+
+    private int[] parents;
+
+    /**
+     * The bit of every red node is set.
+     */
+    private BitSet redNodes;
+
+    public ArrayRedBlackTree() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public ArrayRedBlackTree(T initialRootValue) {
+        this(DEFAULT_INITIAL_CAPACITY);
+        insert(initialRootValue);
+    }
+
+    private ArrayRedBlackTree(int initialCapacity) {
+        this.initialCapacity = initialCapacity;
+        allocateArrays(initialCapacity);
+    }
+
+    /**
+     * Creates an empty tree whose arrays are allocated once for
+     * {@code initialCapacity} keys.
+     *
+     * @param initialCapacity The number of keys the tree can hold before
+     *                        its arrays have to grow.
+     * @param <T>             The data type in every node.
+     * @return The new empty tree.
+     * @throws IllegalArgumentException If {@code initialCapacity} is negative.
+     */
+    public static <T extends Comparable<T>> ArrayRedBlackTree<T> withInitialCapacity(int initialCapacity) {
+        if (initialCapacity < 0) {
+            logger.error("The value of initialCapacity in method withInitialCapacity is "
+                    + initialCapacity + ".");
+            throw new IllegalArgumentException("The initial capacity of " +
+                    "the tree cannot be negative!");
+        }
+
+        return new ArrayRedBlackTree<>(initialCapacity);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void allocateArrays(int capacity) {
+        this.keys = (T[]) new Comparable[capacity];
+        this.leftChildren = new int[capacity];
+        this.rightChildren = new int[capacity];
+        this.parents = new int[capacity];
+        this.redNodes = new BitSet(capacity);
+    }
+
+    @Override
+    protected int leftChild(int node) {
+        return leftChildren[node];
+    }
+
+    @Override
+    protected void setLeftChild(int node, int child) {
+        leftChildren[node] = child;
+    }
+
+    @Override
+    protected int rightChild(int node) {
+        return rightChildren[node];
+    }
+
+    @Override
+    protected void setRightChild(int node, int child) {
+        rightChildren[node] = child;
+    }
+
+    @Override
+    protected int parent(int node) {
+        return parents[node];
+    }
+
+    @Override
+    protected void setParent(int node, int parent) {
+        parents[node] = parent;
+    }
+
+    @Override
+    protected boolean isRed(int node) {
+        return redNodes.get(node);
+    }
+
+    @Override
+    protected void setRed(int node, boolean red) {
+        redNodes.set(node, red);
+    }
+
+    @Override
+    protected int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Grows the arrays by half of their length (at least to
+     * {@code minimumCapacity}), like {@link java.util.ArrayList} does.
+     */
+    @Override
+    protected void growStorage(int minimumCapacity) {
+        int newCapacity = Math.max(minimumCapacity, keys.length + (keys.length >> 1));
+        newCapacity = Math.max(newCapacity, DEFAULT_INITIAL_CAPACITY);
+
+        keys = Arrays.copyOf(keys, newCapacity);
+        leftChildren = Arrays.copyOf(leftChildren, newCapacity);
+        rightChildren = Arrays.copyOf(rightChildren, newCapacity);
+        parents = Arrays.copyOf(parents, newCapacity);
+    }
+
+    /**
+     * Drops the arrays, so a cleared tree gives back their memory.
+     */
+    @Override
+    protected void clearStorage() {
+        allocateArrays(initialCapacity);
+    }
+
+    @Override
+    protected void copyKey(int other, int node) {
+        keys[node] = keys[other];
+    }
+
+    @Override
+    protected void setKey(int node, T key) {
+        keys[node] = key;
+    }
+
+    @Override
+    protected void clearKey(int node) {
+        keys[node] = null;
+    }
+
+    @Override
+    protected T key(int node) {
+        return keys[node];
+    }
+
+    /**
+     * @return The slot holding {@code key} or NIL if it is not in the tree.
+     */
+    private int findNode(T key) {
+        int currentNode = this.root;
+        int remainingSteps = maximalSearchLength();
+
+        while (currentNode != NIL) {
+            if (--remainingSteps < 0) {
+                throw changedDuringSearch();
+            }
+
+            int comparison = key.compareTo(keys[currentNode]);
+
+            if (comparison < 0) {
+                currentNode = leftChildren[currentNode];
+            } else if (comparison > 0) {
+                currentNode = rightChildren[currentNode];
+            } else {
+                return currentNode;
+            }
+        }
+
+        return NIL;
+    }
+
+    @Override
+    public boolean contains(T key) {
+        validationOfArgumentInMethods(key, "key", "contains");
+
+        return findNode(key) != NIL;
+    }
+
+    @Override
+    public void insert(T value) {
+        validationOfArgumentInMethods(value, "value", "insert");
+
+        int parent = NIL;
+        int currentNode = this.root;
+        int comparison = 0;
+
+        while (currentNode != NIL) {
+            comparison = value.compareTo(keys[currentNode]);
+
+            if (comparison == 0) {
+                return;
+            }
+
+            parent = currentNode;
+            currentNode = comparison < 0 ? leftChildren[currentNode] : rightChildren[currentNode];
+        }
+
+        int newNode = allocateNode(parent);
+        keys[newNode] = value;
+
+        linkNewNode(parent, newNode, comparison < 0);
+    }
+
+    @Override
+    public void erase(T key) {
+        validationOfArgumentInMethods(key, "key", "erase");
+
+        int node = findNode(key);
+
+        if (node != NIL) {
+            deleteNode(node);
+        } else if (logger.isDebugEnabled()) {
+            logger.debug("Trying to remove a non-containing value from the current tree.");
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package lights.digital.masterclass.tree.balanced.redblack;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+
+/**
+ * A red-black tree of {@code int} keys. The nodes are slots in parallel
+ * arrays like the nodes of {@link ArrayRedBlackTree}, but the keys are kept
+ * unboxed in an {@code int[]} and compared with the primitive operators, so
+ * the primitive methods ({@link #insert(int)}, {@link #erase(int)},
+ * {@link #contains(int)}, {@link #intStream()}) neither allocate boxes nor
+ * call {@code compareTo}. The methods with {@link Integer} arguments unbox
+ * them and delegate to the primitive ones.
+ */
+public class IntRedBlackTree extends AbstractIndexedRedBlackTree<Integer> {
+
+    private int[] keys;
+
+    private int[] leftChildren;
+
+    private int[] rightChildren;
+
+    private int[] parents;
+
+    /**
+     * The bit of every red node is set.
+     */
+    private BitSet redNodes;
+
+    public IntRedBlackTree() {
+        allocateArrays(ArrayRedBlackTree.DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public IntRedBlackTree(int initialRootValue) {
+        this();
+        insert(initialRootValue);
+    }
+
+    private void allocateArrays(int capacity) {
+        this.keys = new int[capacity];
+        this.leftChildren = new int[capacity];
+        this.rightChildren = new int[capacity];
+        this.parents = new int[capacity];
+        this.redNodes = new BitSet(capacity);
+    }
+
+    @Override
+    protected int leftChild(int node) {
+        return leftChildren[node];
+    }
+
+    @Override
+    protected void setLeftChild(int node, int child) {
+        leftChildren[node] = child;
+    }
+
+    @Override
+    protected int rightChild(int node) {
+        return rightChildren[node];
+    }
+
+    @Override
+    protected void setRightChild(int node, int child) {
+        rightChildren[node] = child;
+    }
+
+    @Override
+    protected int parent(int node) {
+        return parents[node];
+    }
+
+    @Override
+    protected void setParent(int node, int parent) {
+        parents[node] = parent;
+    }
+
+    @Override
+    protected boolean isRed(int node) {
+        return redNodes.get(node);
+    }
+
+    @Override
+    protected void setRed(int node, boolean red) {
+        redNodes.set(node, red);
+    }
+
+    @Override
+    protected int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Grows the arrays by half of their length (at least to
+     * {@code minimumCapacity}), like {@link java.util.ArrayList} does.
+     */
+    @Override
+    protected void growStorage(int minimumCapacity) {
+        int newCapacity = Math.max(minimumCapacity, keys.length + (keys.length >> 1));
+
+        keys = Arrays.copyOf(keys, newCapacity);
+        leftChildren = Arrays.copyOf(leftChildren, newCapacity);
+        rightChildren = Arrays.copyOf(rightChildren, newCapacity);
+        parents = Arrays.copyOf(parents, newCapacity);
+    }
+
+    /**
+     * Drops the arrays, so a cleared tree gives back their memory.
+     */
+    @Override
+    protected void clearStorage() {
+        allocateArrays(ArrayRedBlackTree.DEFAULT_INITIAL_CAPACITY);
+    }
+
+    @Override
+    protected void copyKey(int other, int node) {
+        keys[node] = keys[other];
+    }
+
+    @Override
+    protected void setKey(int node, Integer key) {
+        keys[node] = key;
+    }
+
+    @Override
+    protected Integer key(int node) {
+        return keys[node];
+    }
+
+    /**
+     * @param key The value which will be checked whether is
+     *            in the current tree or not.
+     * @return True if {@code key} is in the current tree else it returns false.
+     */
+    public boolean contains(int key) {
+        return findNode(key) != NIL;
+    }
+
+    /**
+     * Adding a new value into the current tree.
+     * If the element is in the current tree, it will not be added a second time.
+     *
+     * @param value The value which is going to be added the current tree.
+     */
+    public void insert(int value) {
+        int parent = NIL;
+        int currentNode = this.root;
+        boolean isLeftChild = false;
+
+        while (currentNode != NIL) {
+            int currentKey = keys[currentNode];
+
+            if (value == currentKey) {
+                return;
+            }
+
+            parent = currentNode;
+            isLeftChild = value < currentKey;
+            currentNode = isLeftChild ? leftChildren[currentNode] : rightChildren[currentNode];
+        }
+
+        int newNode = allocateNode(parent);
+        keys[newNode] = value;
+
+        linkNewNode(parent, newNode, isLeftChild);
+    }
+
+    /**
+     * Removing a certain value from the tree.
+     *
+     * @param key The certain value which is to be removed.
+     */
+    public void erase(int key) {
+        int node = findNode(key);
+
+        if (node != NIL) {
+            deleteNode(node);
+        } else if (logger.isDebugEnabled()) {
+            logger.debug("Trying to remove a non-containing value from the current tree.");
+        }
+    }
+
+    private int findNode(int key) {
+        int currentNode = this.root;
+        int remainingSteps = maximalSearchLength();
+
+        while (currentNode != NIL) {
+            if (--remainingSteps < 0) {
+                throw changedDuringSearch();
+            }
+
+            int currentKey = keys[currentNode];
+
+            if (key < currentKey) {
+                currentNode = leftChildren[currentNode];
+            } else if (key > currentKey) {
+                currentNode = rightChildren[currentNode];
+            } else {
+                return currentNode;
+            }
+        }
+
+        return NIL;
+    }
+
+    @Override
+    public boolean contains(Integer key) {
+        validationOfArgumentInMethods(key, "key", "contains");
+
+        return contains(key.intValue());
+    }
+
+    @Override
+    public void insert(Integer value) {
+        validationOfArgumentInMethods(value, "value", "insert");
+
+        insert(value.intValue());
+    }
+
+    @Override
+    public void erase(Integer key) {
+        validationOfArgumentInMethods(key, "key", "erase");
+
+        erase(key.intValue());
+    }
+
+    /**
+     * @return All keys of the current tree in ascending order.
+     */
+    public int[] toArray() {
+        int[] result = new int[this.size];
+        int index = 0;
+
+        for (int node = firstNode(); node != NIL; node = successor(node)) {
+            result[index++] = keys[node];
+        }
+
+        return result;
+    }
+
+    /**
+     * @return A lazy iterator over the keys of the current tree in ascending
+     * order, whose {@code nextInt()} does not box them. The tree should not
+     * be changed while it is iterated.
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int next = firstNode();
+
+            @Override
+            public boolean hasNext() {
+                return next != NIL;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next == NIL) {
+                    throw new NoSuchElementException();
+                }
+
+                int key = keys[next];
+                next = successor(next);
+
+                return key;
+            }
+        };
+    }
+
+    @Override
+    public Spliterator.OfInt spliterator() {
+        return Spliterators.spliterator(iterator(), size(),
+                Spliterator.SORTED | Spliterator.DISTINCT
+                        | Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    /**
+     * @return A sequential stream over the keys of the current tree in
+     * ascending order, which reads the tree lazily.
+     */
+    public IntStream intStream() {
+        return StreamSupport.intStream(spliterator(), false);
+    }
+
+    /**
+     * Performs {@code action} on every key of the current tree in ascending
+     * order without boxing it.
+     */
+    public void forEachInt(IntConsumer action) {
+        for (int node = firstNode(); node != NIL; node = successor(node)) {
+            action.accept(keys[node]);
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package lights.digital.masterclass.tree.balanced.redblack;
+
+import java.io.Closeable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+
+/**
+ * A red-black tree of {@code long} keys whose nodes live outside the Java
+ * heap, in direct {@link ByteBuffer} chunks. Every node takes
+ * {@value #NODE_SIZE} bytes of a chunk (the key, three {@code int} links
+ * and the color), so the heap holds only one buffer object per
+ * {@value #NODES_PER_CHUNK} nodes and the garbage collector has nothing to
+ * trace however big the tree grows. New chunks are added when the tree
+ * grows, without copying the old ones.
+ * <p>
+ * The chunks count against the limit of direct memory of the JVM, which is
+ * as big as the maximal heap by default. So a tree bigger than the heap
+ * needs the limit to be raised, for example {@code -XX:MaxDirectMemorySize=16g}
+ * for about 700 million nodes, or it fails with
+ * {@code OutOfMemoryError: Direct buffer memory}. The memory of dropped
+ * chunks is given back only when the garbage collector collects their
+ * buffers; {@link #close()} gives it back at once.
+ */
+public class OffHeapLongRedBlackTree extends AbstractIndexedRedBlackTree<Long> implements Closeable {
+
+    /**
+     * The number of bytes of every node.
+     */
+    public static final int NODE_SIZE = 24;
+
+    /**
+     * The number of nodes in a single chunk (1.5 MB).
+     */
+    public static final int NODES_PER_CHUNK = 1 << 16;
+
+    private static final int CHUNK_SHIFT = 16;
+
+    private static final int NODE_IN_CHUNK_MASK = NODES_PER_CHUNK - 1;
+
+    /// The offsets of the fields in a node:
+    private static final int KEY_OFFSET = 0;
+    private static final int LEFT_CHILD_OFFSET = 8;
+    private static final int RIGHT_CHILD_OFFSET = 12;
+    private static final int PARENT_OFFSET = 16;
+    private static final int COLOR_OFFSET = 20;
+
+    private static final byte RED = 1;
+    private static final byte BLACK = 0;
+
+    /**
+     * {@code sun.misc.Unsafe.invokeCleaner(ByteBuffer)}, which frees the
+     * memory of a direct buffer at once, or null if it is not available.
+     */
+    private static final MethodHandle INVOKE_CLEANER = findInvokeCleaner();
+
+    private ByteBuffer[] chunks = new ByteBuffer[0];
+
+    private static MethodHandle findInvokeCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner",
+                            MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warn("The memory of the off-heap trees will be given back " +
+                    "only by the garbage collector.", e);
+            return null;
+        }
+    }
+
+    public OffHeapLongRedBlackTree() {
+        this.root = NIL;
+    }
+
+    public OffHeapLongRedBlackTree(long initialRootValue) {
+        insert(initialRootValue);
+    }
+
+    private ByteBuffer chunk(int node) {
+        return chunks[node >>> CHUNK_SHIFT];
+    }
+
+    private static int offset(int node) {
+        return (node & NODE_IN_CHUNK_MASK) * NODE_SIZE;
+    }
+
+    private long keyOf(int node) {
+        return chunk(node).getLong(offset(node) + KEY_OFFSET);
+    }
+
+    @Override
+    protected int leftChild(int node) {
+        return chunk(node).getInt(offset(node) + LEFT_CHILD_OFFSET);
+    }
+
+    @Override
+    protected void setLeftChild(int node, int child) {
+        chunk(node).putInt(offset(node) + LEFT_CHILD_OFFSET, child);
+    }
+
+    @Override
+    protected int rightChild(int node) {
+        return chunk(node).getInt(offset(node) + RIGHT_CHILD_OFFSET);
+    }
+
+    @Override
+    protected void setRightChild(int node, int child) {
+        chunk(node).putInt(offset(node) + RIGHT_CHILD_OFFSET, child);
+    }
+
+    @Override
+    protected int parent(int node) {
+        return chunk(node).getInt(offset(node) + PARENT_OFFSET);
+    }
+
+    @Override
+    protected void setParent(int node, int parent) {
+        chunk(node).putInt(offset(node) + PARENT_OFFSET, parent);
+    }
+
+    @Override
+    protected boolean isRed(int node) {
+        return chunk(node).get(offset(node) + COLOR_OFFSET) == RED;
+    }
+
+    @Override
+    protected void setRed(int node, boolean red) {
+        chunk(node).put(offset(node) + COLOR_OFFSET, red ? RED : BLACK);
+    }
+
+    @Override
+    protected int capacity() {
+        return chunks.length * NODES_PER_CHUNK;
+    }
+
+    /**
+     * Adds as many new chunks as needed for {@code minimumCapacity} nodes.
+     */
+    @Override
+    protected void growStorage(int minimumCapacity) {
+        int numberOfChunks = (int) (((long) minimumCapacity + NODES_PER_CHUNK - 1) >>> CHUNK_SHIFT);
+        int oldNumberOfChunks = chunks.length;
+
+        chunks = Arrays.copyOf(chunks, numberOfChunks);
+        for (int i = oldNumberOfChunks; i < numberOfChunks; i++) {
+            chunks[i] = ByteBuffer.allocateDirect(NODES_PER_CHUNK * NODE_SIZE)
+                    .order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Drops all chunks, so their native memory is given back when the
+     * buffers are collected.
+     */
+    @Override
+    protected void clearStorage() {
+        chunks = new ByteBuffer[0];
+    }
+
+    /**
+     * Removes all elements and frees the memory of all chunks at once,
+     * instead of when the garbage collector gets to their buffers. The
+     * tree can still be used after that and allocates new chunks, but
+     * iterators made before must not be used any more.
+     */
+    @Override
+    public void close() {
+        ByteBuffer[] releasedChunks = this.chunks;
+
+        clear();
+
+        if (INVOKE_CLEANER != null) {
+            for (ByteBuffer chunk : releasedChunks) {
+                try {
+                    INVOKE_CLEANER.invokeExact(chunk);
+                } catch (Throwable e) {
+                    throw new IllegalStateException("The memory of a chunk cannot be freed!", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the keys straight into the slots of new chunks in the order
+     * they come and links the slots into a balanced tree after that, so the
+     * keys are not copied into a list on the heap first. Equal neighbours
+     * are written once. If a key is less than the one before it, the tree is
+     * built from the keys before it and the rest are inserted one by one.
+     *
+     * @throws IllegalArgumentException If {@code sortedValues} is null or
+     *                                  contains a null value, in which case
+     *                                  the tree is left empty.
+     */
+    @Override
+    public void buildFromSorted(Iterator<? extends Long> sortedValues) {
+        if (sortedValues == null) {
+            logger.error("The value of sortedValues in method buildFromSorted is null!");
+            throw new IllegalArgumentException("The value of argument sortedValues " +
+                    "in method buildFromSorted cannot be null!");
+        }
+
+        clearStorage();
+
+        int count = 0;
+        Long unsortedValue = null;
+
+        while (sortedValues.hasNext()) {
+            Long value = nonNullValue(sortedValues.next());
+
+            if (count > 0 && keyOf(count - 1) >= value) {
+                if (keyOf(count - 1) == value) {
+                    continue;
+                }
+
+                unsortedValue = value;
+                break;
+            }
+
+            if (count == capacity()) {
+                growStorage(count + 1);
+            }
+            chunk(count).putLong(offset(count) + KEY_OFFSET, value);
+            count++;
+        }
+
+        linkSortedSlots(count);
+
+        if (unsortedValue != null) {
+            insert(unsortedValue.longValue());
+            while (sortedValues.hasNext()) {
+                insert(nonNullValue(sortedValues.next()).longValue());
+            }
+        }
+
+        logger.info("Built the current tree from " + this.size + " sorted values.");
+    }
+
+    /**
+     * @return {@code value} if it is not null.
+     * @throws IllegalArgumentException If {@code value} is null, after the
+     *                                  tree has been cleared.
+     */
+    private Long nonNullValue(Long value) {
+        if (value == null) {
+            clear();
+
+            logger.error("A value in method buildFromSorted is null!");
+            throw new IllegalArgumentException("The values in method " +
+                    "buildFromSorted cannot be null!");
+        }
+
+        return value;
+    }
+
+    @Override
+    protected void copyKey(int other, int node) {
+        chunk(node).putLong(offset(node) + KEY_OFFSET, keyOf(other));
+    }
+
+    @Override
+    protected void setKey(int node, Long key) {
+        chunk(node).putLong(offset(node) + KEY_OFFSET, key);
+    }
+
+    @Override
+    protected Long key(int node) {
+        return keyOf(node);
+    }
+
+    private int findNode(long key) {
+        int currentNode = this.root;
+        int remainingSteps = maximalSearchLength();
+
+        while (currentNode != NIL) {
+            if (--remainingSteps < 0) {
+                throw changedDuringSearch();
+            }
+
+            long currentKey = keyOf(currentNode);
+
+            if (key < currentKey) {
+                currentNode = leftChild(currentNode);
+            } else if (key > currentKey) {
+                currentNode = rightChild(currentNode);
+            } else {
+                return currentNode;
+            }
+        }
+
+        return NIL;
+    }
+
+    /**
+     * @param key The value which will be checked whether is
+     *            in the current tree or not.
+     * @return True if {@code key} is in the current tree else it returns false.
+     */
+    public boolean contains(long key) {
+        return findNode(key) != NIL;
+    }
+
+    /**
+     * Adding a new value into the current tree.
+     * If the element is in the current tree, it will not be added a second time.
+     *
+     * @param value The value which is going to be added the current tree.
+     */
+    public void insert(long value) {
+        int parent = NIL;
+        int currentNode = this.root;
+        boolean isLeftChild = false;
+
+        while (currentNode != NIL) {
+            long currentKey = keyOf(currentNode);
+
+            if (value == currentKey) {
+                return;
+            }
+
+            parent = currentNode;
+            isLeftChild = value < currentKey;
+            currentNode = isLeftChild ? leftChild(currentNode) : rightChild(currentNode);
+        }
+
+        int newNode = allocateNode(parent);
+        chunk(newNode).putLong(offset(newNode) + KEY_OFFSET, value);
+
+        linkNewNode(parent, newNode, isLeftChild);
+    }
+
+    /**
+     * Removing a certain value from the tree.
+     *
+     * @param key The certain value which is to be removed.
+     */
+    public void erase(long key) {
+        int node = findNode(key);
+
+        if (node != NIL) {
+            deleteNode(node);
+        } else if (logger.isDebugEnabled()) {
+            logger.debug("Trying to remove a non-containing value from the current tree.");
+        }
+    }
+
+    @Override
+    public boolean contains(Long key) {
+        validationOfArgumentInMethods(key, "key", "contains");
+
+        return contains(key.longValue());
+    }
+
+    @Override
+    public void insert(Long value) {
+        validationOfArgumentInMethods(value, "value", "insert");
+
+        insert(value.longValue());
+    }
+
+    @Override
+    public void erase(Long key) {
+        validationOfArgumentInMethods(key, "key", "erase");
+
+        erase(key.longValue());
+    }
+
+    /**
+     * @return A lazy iterator over the keys of the current tree in ascending
+     * order, whose {@code nextLong()} does not box them. The tree should not
+     * be changed while it is iterated.
+     */
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int next = firstNode();
+
+            @Override
+            public boolean hasNext() {
+                return next != NIL;
+            }
+
+            @Override
+            public long nextLong() {
+                if (next == NIL) {
+                    throw new NoSuchElementException();
+                }
+
+                long key = keyOf(next);
+                next = successor(next);
+
+                return key;
+            }
+        };
+    }
+}
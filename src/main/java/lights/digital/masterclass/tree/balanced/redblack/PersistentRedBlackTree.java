@@ -0,0 +1,565 @@
+package lights.digital.masterclass.tree.balanced.redblack;
+
+import lights.digital.masterclass.tree.BulkLoadableTree;
+import lights.digital.masterclass.tree.Traversal;
+import lights.digital.masterclass.tree.balanced.redblack.color.Color;
+import lights.digital.masterclass.tree.print.PrintableNode;
+import lights.digital.masterclass.tree.print.pretty.PrettyPrinter;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static lights.digital.masterclass.tree.balanced.redblack.color.Color.BLACK;
+import static lights.digital.masterclass.tree.balanced.redblack.color.Color.RED;
+
+
+/**
+ * A persistent red-black tree: its nodes are never changed after they are
+ * created. An insertion or an erasure copies only the nodes on the path from
+ * the root to the changed place (path copying) and shares all other nodes
+ * with the previous version, so it allocates {@code O(log n)} nodes. The
+ * nodes have no links to their parents, which would tie a node to a single
+ * version.
+ * <p>
+ * The tree is kept left-leaning (as defined in "Left-leaning Red-Black
+ * Trees" by Sedgewick): a red node is always a left child, which makes the
+ * rebalancing short enough to be written as a copy of the path.
+ * <p>
+ * Every version is published by one write of the volatile root, so
+ * {@link #snapshot()} takes {@code O(1)} time and readers of any version,
+ * including the iterators, never take a lock and never see a change in
+ * progress. The changes of the current tree are serialized by its monitor.
+ *
+ * @param <T> The data type in every node, which should be at least a class
+ *            implementing the interface Comparable.
+ */
+public class PersistentRedBlackTree<T extends Comparable<T>> implements BulkLoadableTree<T> {
+
+    /**
+     * A log4j logger for logging information about thrown exceptions,
+     * added new elements to the tree and erased ones. The messages about
+     * single insertions and erasures are logged on the debug level and only
+     * built when that level is enabled.
+     */
+    protected static final Logger logger = Logger.getLogger(PersistentRedBlackTree.class);
+
+    /**
+     * An immutable node of the tree, which may be shared by several versions.
+     *
+     * @param <T> The data type in every node.
+     */
+    protected static final class PersistentNode<T extends Comparable<T>> implements PrintableNode {
+
+        public final T data;
+
+        public final PersistentNode<T> leftChild;
+
+        public final PersistentNode<T> rightChild;
+
+        public final Color color;
+
+        /**
+         * The number of nodes on the longest path from the current node
+         * down to a leaf (a leaf has height 1).
+         */
+        public final int height;
+
+        /**
+         * The number of nodes in the subtree rooted at the current node.
+         */
+        public final int subtreeSize;
+
+        private PersistentNode(final T data, final PersistentNode<T> leftChild,
+                               final PersistentNode<T> rightChild, final Color color) {
+            this.data = data;
+            this.leftChild = leftChild;
+            this.rightChild = rightChild;
+            this.color = color;
+            this.height = 1 + Math.max(height(leftChild), height(rightChild));
+            this.subtreeSize = 1 + subtreeSize(leftChild) + subtreeSize(rightChild);
+        }
+
+        public static int subtreeSize(final PersistentNode<?> node) {
+            return node == null ? 0 : node.subtreeSize;
+        }
+
+        public static int height(final PersistentNode<?> node) {
+            return node == null ? 0 : node.height;
+        }
+
+        private PersistentNode<T> withLeftChild(final PersistentNode<T> newLeftChild) {
+            return newLeftChild == leftChild ? this
+                    : new PersistentNode<>(data, newLeftChild, rightChild, color);
+        }
+
+        private PersistentNode<T> withRightChild(final PersistentNode<T> newRightChild) {
+            return newRightChild == rightChild ? this
+                    : new PersistentNode<>(data, leftChild, newRightChild, color);
+        }
+
+        private PersistentNode<T> withColor(final Color newColor) {
+            return newColor == color ? this
+                    : new PersistentNode<>(data, leftChild, rightChild, newColor);
+        }
+
+        @Override
+        public PrintableNode getLeft() {
+            return this.leftChild;
+        }
+
+        @Override
+        public PrintableNode getRight() {
+            return this.rightChild;
+        }
+
+        @Override
+        public String getText() {
+            return data.toString() + " " + color;
+        }
+    }
+
+    private volatile PersistentNode<T> root;
+
+    public PersistentRedBlackTree() {
+        this.root = null;
+    }
+
+    public PersistentRedBlackTree(T initialRootValue) {
+        insert(initialRootValue);
+    }
+
+    private PersistentRedBlackTree(PersistentNode<T> root) {
+        this.root = root;
+    }
+
+    private void validationOfArgumentInMethods(final T argument,
+                                               final String argumentName,
+                                               final String methodName) {
+        if (argument == null) {
+            logger.error("The value of " + argumentName
+                    + " in method " + methodName
+                    + " is null!");
+            throw new IllegalArgumentException("The value of argument "
+                    + argumentName + " in method "
+                    + methodName + " cannot be null!");
+        }
+    }
+
+    /**
+     * @return A tree with the current elements, which shares all nodes with
+     * the current tree. Later changes of either tree are not seen by the
+     * other one.
+     */
+    public PersistentRedBlackTree<T> snapshot() {
+        return new PersistentRedBlackTree<>(this.root);
+    }
+
+    private static boolean isRed(PersistentNode<?> node) {
+        return node != null && node.color == RED;
+    }
+
+    private static Color flip(Color color) {
+        return color == RED ? BLACK : RED;
+    }
+
+    private static <T extends Comparable<T>> PersistentNode<T> rotateLeft(PersistentNode<T> node) {
+        PersistentNode<T> rightSubtree = node.rightChild;
+        PersistentNode<T> newLeftChild = new PersistentNode<>(node.data,
+                node.leftChild, rightSubtree.leftChild, RED);
+
+        return new PersistentNode<>(rightSubtree.data, newLeftChild, rightSubtree.rightChild, node.color);
+    }
+
+    private static <T extends Comparable<T>> PersistentNode<T> rotateRight(PersistentNode<T> node) {
+        PersistentNode<T> leftSubtree = node.leftChild;
+        PersistentNode<T> newRightChild = new PersistentNode<>(node.data,
+                leftSubtree.rightChild, node.rightChild, RED);
+
+        return new PersistentNode<>(leftSubtree.data, leftSubtree.leftChild, newRightChild, node.color);
+    }
+
+    private static <T extends Comparable<T>> PersistentNode<T> flipColors(PersistentNode<T> node) {
+        return new PersistentNode<>(node.data,
+                node.leftChild.withColor(flip(node.leftChild.color)),
+                node.rightChild.withColor(flip(node.rightChild.color)),
+                flip(node.color));
+    }
+
+    /**
+     * Restores the left-leaning invariants of {@code node} on the way up.
+     */
+    private static <T extends Comparable<T>> PersistentNode<T> balance(PersistentNode<T> node) {
+        if (isRed(node.rightChild) && !isRed(node.leftChild)) {
+            node = rotateLeft(node);
+        }
+        if (isRed(node.leftChild) && isRed(node.leftChild.leftChild)) {
+            node = rotateRight(node);
+        }
+        if (isRed(node.leftChild) && isRed(node.rightChild)) {
+            node = flipColors(node);
+        }
+
+        return node;
+    }
+
+    private static <T extends Comparable<T>> PersistentNode<T> moveRedLeft(PersistentNode<T> node) {
+        node = flipColors(node);
+        if (isRed(node.rightChild.leftChild)) {
+            node = node.withRightChild(rotateRight(node.rightChild));
+            node = flipColors(rotateLeft(node));
+        }
+
+        return node;
+    }
+
+    private static <T extends Comparable<T>> PersistentNode<T> moveRedRight(PersistentNode<T> node) {
+        node = flipColors(node);
+        if (isRed(node.leftChild.leftChild)) {
+            node = flipColors(rotateRight(node));
+        }
+
+        return node;
+    }
+
+    @Override
+    public boolean contains(T key) {
+        validationOfArgumentInMethods(key, "key", "contains");
+
+        PersistentNode<T> currentNode = this.root;
+
+        while (currentNode != null) {
+            int comparison = key.compareTo(currentNode.data);
+
+            if (comparison == 0) {
+                return true;
+            }
+            currentNode = comparison < 0 ? currentNode.leftChild : currentNode.rightChild;
+        }
+
+        return false;
+    }
+
+    @Override
+    public synchronized void insert(T value) {
+        validationOfArgumentInMethods(value, "value", "insert");
+
+        PersistentNode<T> newRoot = insert(this.root, value);
+        if (newRoot == this.root) {
+            return;
+        }
+
+        this.root = newRoot.withColor(BLACK);
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Added the value: " + value + " to the current tree.");
+        }
+    }
+
+    /**
+     * @return The copy of the subtree of {@code node} with {@code value}, or
+     * {@code node} itself if it already contains {@code value}.
+     */
+    private static <T extends Comparable<T>> PersistentNode<T> insert(PersistentNode<T> node, T value) {
+        if (node == null) {
+            return new PersistentNode<>(value, null, null, RED);
+        }
+
+        int comparison = value.compareTo(node.data);
+        PersistentNode<T> newNode;
+
+        if (comparison < 0) {
+            newNode = node.withLeftChild(insert(node.leftChild, value));
+        } else if (comparison > 0) {
+            newNode = node.withRightChild(insert(node.rightChild, value));
+        } else {
+            return node;
+        }
+
+        return newNode == node ? node : balance(newNode);
+    }
+
+    @Override
+    public synchronized void erase(T key) {
+        validationOfArgumentInMethods(key, "key", "erase");
+
+        if (!contains(key)) {
+            logger.debug("Trying to remove a non-containing value from the current tree.");
+            return;
+        }
+
+        PersistentNode<T> currentRoot = this.root;
+        if (!isRed(currentRoot.leftChild) && !isRed(currentRoot.rightChild)) {
+            currentRoot = currentRoot.withColor(RED);
+        }
+
+        PersistentNode<T> newRoot = erase(currentRoot, key);
+        this.root = newRoot == null ? null : newRoot.withColor(BLACK);
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Removed value: " + key + " from current tree.");
+        }
+    }
+
+    /**
+     * @return The copy of the subtree of {@code node} without {@code key},
+     * which has to be in it.
+     */
+    private static <T extends Comparable<T>> PersistentNode<T> erase(PersistentNode<T> node, T key) {
+        if (key.compareTo(node.data) < 0) {
+            if (!isRed(node.leftChild) && !isRed(node.leftChild.leftChild)) {
+                node = moveRedLeft(node);
+            }
+            node = node.withLeftChild(erase(node.leftChild, key));
+        } else {
+            if (isRed(node.leftChild)) {
+                node = rotateRight(node);
+            }
+            if (key.compareTo(node.data) == 0 && node.rightChild == null) {
+                return null;
+            }
+            if (!isRed(node.rightChild) && !isRed(node.rightChild.leftChild)) {
+                node = moveRedRight(node);
+            }
+            if (key.compareTo(node.data) == 0) {
+                PersistentNode<T> successor = node.rightChild;
+                while (successor.leftChild != null) {
+                    successor = successor.leftChild;
+                }
+                node = new PersistentNode<>(successor.data, node.leftChild,
+                        eraseMinimum(node.rightChild), node.color);
+            } else {
+                node = node.withRightChild(erase(node.rightChild, key));
+            }
+        }
+
+        return balance(node);
+    }
+
+    private static <T extends Comparable<T>> PersistentNode<T> eraseMinimum(PersistentNode<T> node) {
+        if (node.leftChild == null) {
+            return null;
+        }
+        if (!isRed(node.leftChild) && !isRed(node.leftChild.leftChild)) {
+            node = moveRedLeft(node);
+        }
+
+        return balance(node.withLeftChild(eraseMinimum(node.leftChild)));
+    }
+
+    @Override
+    public synchronized void clear() {
+        this.root = null;
+
+        logger.warn("Cleared the whole tree.");
+    }
+
+    /**
+     * Builds the tree as a 2-3 tree with all leaves on the same level, whose
+     * nodes with two keys become a black node with a red left child. So the
+     * result is left-leaning and no rebalancing is needed.
+     */
+    @Override
+    public synchronized void buildFromSorted(Iterator<? extends T> sortedValues) {
+        List<T> values = BulkLoadableTree.sortedDistinctValues(sortedValues);
+
+        // The smallest number of levels of a 2-3 tree which can hold all values:
+        int levels = 0;
+        long capacity = 0;
+        while (capacity < values.size()) {
+            levels++;
+            capacity = 3 * capacity + 2;
+        }
+
+        this.root = buildSubtree(values, 0, values.size(), levels);
+
+        logger.info("Built the current tree from " + values.size() + " sorted values.");
+    }
+
+    /**
+     * @return The subtree of the values from {@code from} (inclusive) to
+     * {@code to} (exclusive) as a 2-3 tree of {@code levels} levels, which
+     * can hold between {@code 2^levels - 1} and {@code 3^levels - 1} values.
+     */
+    private static <T extends Comparable<T>> PersistentNode<T> buildSubtree(List<T> values, int from,
+                                                                          int to, int levels) {
+        if (levels == 0) {
+            return null;
+        }
+
+        int count = to - from;
+        long childCapacity = 1;
+        for (int level = 1; level < levels; level++) {
+            childCapacity *= 3;
+        }
+        childCapacity -= 1;
+
+        if (count - 1 <= 2 * childCapacity) {
+            // A node with one key and two children of equal size, give or take one.
+            int middle = from + count / 2;
+
+            return new PersistentNode<>(values.get(middle),
+                    buildSubtree(values, from, middle, levels - 1),
+                    buildSubtree(values, middle + 1, to, levels - 1), BLACK);
+        }
+
+        // A node with two keys and three children of equal size, give or take one.
+        int childCount = count - 2;
+        int firstKey = from + (childCount + 2) / 3;
+        int secondKey = firstKey + 1 + (childCount + 1) / 3;
+
+        PersistentNode<T> redLeftChild = new PersistentNode<>(values.get(firstKey),
+                buildSubtree(values, from, firstKey, levels - 1),
+                buildSubtree(values, firstKey + 1, secondKey, levels - 1), RED);
+
+        return new PersistentNode<>(values.get(secondKey), redLeftChild,
+                buildSubtree(values, secondKey + 1, to, levels - 1), BLACK);
+    }
+
+    @Override
+    public boolean empty() {
+        return this.root == null;
+    }
+
+    @Override
+    public int size() {
+        return PersistentNode.subtreeSize(this.root);
+    }
+
+    @Override
+    public int height() {
+        return PersistentNode.height(this.root);
+    }
+
+    /**
+     * @return The root of the current version, so the tests can check the
+     * shape of the tree.
+     */
+    PersistentNode<T> root() {
+        return this.root;
+    }
+
+    @Override
+    public Collection<T> getAllElements() {
+        PersistentNode<T> currentRoot = this.root;
+        Collection<T> collectionOfAllElementsInTree =
+                new ArrayList<>(PersistentNode.subtreeSize(currentRoot));
+
+        for (Iterator<T> iterator = new InorderIterator<>(currentRoot); iterator.hasNext(); ) {
+            collectionOfAllElementsInTree.add(iterator.next());
+        }
+
+        return collectionOfAllElementsInTree;
+    }
+
+    /**
+     * @return An iterator over the version of the tree at the time of the
+     * call, which is not affected by later changes.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new InorderIterator<>(this.root);
+    }
+
+    /**
+     * Walks a version of the tree in order with a stack of the nodes whose
+     * right subtree is not visited yet, as the nodes have no parent links.
+     */
+    private static final class InorderIterator<T extends Comparable<T>> implements Iterator<T> {
+
+        private final Deque<PersistentNode<T>> path = new ArrayDeque<>();
+
+        private InorderIterator(PersistentNode<T> root) {
+            pushLeftPath(root);
+        }
+
+        private void pushLeftPath(PersistentNode<T> node) {
+            while (node != null) {
+                path.push(node);
+                node = node.leftChild;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !path.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (path.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+
+            PersistentNode<T> node = path.pop();
+            pushLeftPath(node.rightChild);
+
+            return node.data;
+        }
+    }
+
+    @Override
+    public void text(Traversal traversal, Appendable output) throws IOException {
+        if (traversal == null || output == null) {
+            logger.error("The value of argument traversal or output in method text is null.");
+            throw new IllegalArgumentException("The values of arguments traversal and output " +
+                    "in method text in class PersistentRedBlackTree should not be null!");
+        }
+
+        PersistentNode<T> currentRoot = this.root;
+
+        switch (traversal) {
+            case INORDER -> {
+                for (Iterator<T> iterator = new InorderIterator<>(currentRoot); iterator.hasNext(); ) {
+                    output.append(String.valueOf(iterator.next())).append(' ');
+                }
+            }
+            case PREORDER -> {
+                Deque<PersistentNode<T>> stack = new ArrayDeque<>();
+                if (currentRoot != null) {
+                    stack.push(currentRoot);
+                }
+                while (!stack.isEmpty()) {
+                    PersistentNode<T> node = stack.pop();
+                    output.append(String.valueOf(node.data)).append(' ');
+                    if (node.rightChild != null) {
+                        stack.push(node.rightChild);
+                    }
+                    if (node.leftChild != null) {
+                        stack.push(node.leftChild);
+                    }
+                }
+            }
+            case POSTORDER -> {
+                Deque<PersistentNode<T>> stack = new ArrayDeque<>();
+                PersistentNode<T> node = currentRoot;
+                PersistentNode<T> lastVisited = null;
+                while (node != null || !stack.isEmpty()) {
+                    if (node != null) {
+                        stack.push(node);
+                        node = node.leftChild;
+                        continue;
+                    }
+                    PersistentNode<T> top = stack.peek();
+                    if (top.rightChild != null && top.rightChild != lastVisited) {
+                        node = top.rightChild;
+                    } else {
+                        output.append(String.valueOf(top.data)).append(' ');
+                        lastVisited = stack.pop();
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void prettyPrint() {
+        PrettyPrinter.print(this.root);
+    }
+}
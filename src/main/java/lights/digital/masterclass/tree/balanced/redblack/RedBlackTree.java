@@ -11,26 +11,11 @@ import static lights.digital.masterclass.tree.balanced.redblack.color.Color.RED;
 
 public class RedBlackTree<T extends Comparable<T>> extends AbstractBinaryTree<T> {
 
-    private void replaceParentsChild(BinaryTreeNode<T> parent,
-                                     BinaryTreeNode<T> oldChild,
-                                     BinaryTreeNode<T> newChild) {
-
-        if (parent == null) {
-            root = newChild;
-        } else if (parent.leftChild == oldChild) {
-            parent.leftChild = newChild;
-        } else if (parent.rightChild == oldChild) {
-            parent.rightChild = newChild;
-        } else {
-            logger.error("The current node is not a child of its parent.");
-
-            throw new NodeNotChildOfItsParentException("Node is not a child of its parent");
-        }
-
-        if (newChild != null) {
-            newChild.parent = parent;
-        }
-    }
+    /**
+     * A temporary black leaf which stands in for a removed black leaf
+     * while the tree is balanced after an erasure.
+     */
+    private final BinaryTreeNode<T> nilNode = new BinaryTreeNode<>(null);
 
     private void rightRotation(BinaryTreeNode<T> currentNode)
             throws NodeNotChildOfItsParentException {
@@ -38,32 +23,44 @@ public class RedBlackTree<T extends Comparable<T>> extends AbstractBinaryTree<T>
         BinaryTreeNode<T> parent = currentNode.parent;
         BinaryTreeNode<T> leftSubtree = currentNode.leftChild;
 
-        currentNode.leftChild = leftSubtree.rightChild;
+        setLeftChild(currentNode, leftSubtree.rightChild);
         if (leftSubtree.rightChild != null) {
             leftSubtree.rightChild.parent = currentNode;
         }
 
-        leftSubtree.rightChild = currentNode;
+        setRightChild(leftSubtree, currentNode);
         currentNode.parent = leftSubtree;
 
         replaceParentsChild(parent, currentNode, leftSubtree);
+
+        // currentNode is now the child of leftSubtree, so walking up from it
+        // refreshes both rotated nodes and everything above them.
+        updateSubtreeInfoUpwards(currentNode);
     }
 
     private void leftRotation(BinaryTreeNode<T> currentNode) throws NodeNotChildOfItsParentException {
         BinaryTreeNode<T> parent = currentNode.parent;
         BinaryTreeNode<T> rightSubtree = currentNode.rightChild;
 
-        currentNode.rightChild = rightSubtree.leftChild;
+        setRightChild(currentNode, rightSubtree.leftChild);
         if (rightSubtree.leftChild != null) {
             rightSubtree.leftChild.parent = currentNode;
         }
 
-        rightSubtree.leftChild = currentNode;
+        setLeftChild(rightSubtree, currentNode);
         currentNode.parent = rightSubtree;
 
         replaceParentsChild(parent, currentNode, rightSubtree);
+
+        updateSubtreeInfoUpwards(currentNode);
     }
 
+    /**
+     * Inserts {@code key} as a red leaf and rebalances the tree.
+     *
+     * @return The newly created node or null if {@code key} was already
+     * in the tree.
+     */
     @Override
     protected BinaryTreeNode<T> safeInsert(BinaryTreeNode<T> currentNode, T key)
             throws NodeNotChildOfItsParentException {
@@ -94,17 +91,18 @@ public class RedBlackTree<T extends Comparable<T>> extends AbstractBinaryTree<T>
 
         // Setting the child-parent connection between newNode and parent:
         if (parent == null) {
-            currentNode = newNode;
+            root = newNode;
         } else if (key.compareTo(parent.data) < 0) {
-            parent.leftChild = newNode;
+            setLeftChild(parent, newNode);
         } else {
-            parent.rightChild = newNode;
+            setRightChild(parent, newNode);
         }
         newNode.parent = parent;
+        updateSubtreeInfoUpwards(parent);
 
         balancingTreeAfterInsertion(newNode);
 
-        return parent;
+        return newNode;
     }
 
 
@@ -193,8 +191,231 @@ public class RedBlackTree<T extends Comparable<T>> extends AbstractBinaryTree<T>
         }
     }
 
-    private void safeErase(BinaryTreeNode<T> currentNode, T key) {
+    /**
+     * A helper method to the erase method, which guaranteed takes only
+     * valid arguments.
+     *
+     * @param currentNode A reference to the tree we are checking.
+     * @param key         The value we are removing.
+     * @return True if {@code key} was in the tree and has been removed.
+     */
+    @Override
+    protected boolean safeErase(BinaryTreeNode<T> currentNode, T key)
+            throws NodeNotChildOfItsParentException {
+
+        // Find the node to be deleted:
+        while (currentNode != null) {
+            int comparison = key.compareTo(currentNode.data);
+
+            if (comparison < 0) {
+                currentNode = currentNode.leftChild;
+            } else if (comparison > 0) {
+                currentNode = currentNode.rightChild;
+            } else {
+                break;
+            }
+        }
+
+        // The key is not in the tree:
+        if (currentNode == null) {
+            return false;
+        }
+
+        // In this variable, we'll store the node at which we're going to start
+        // to fix the red-black properties after deleting a node.
+        BinaryTreeNode<T> movedUpNode;
+        Color deletedNodeColor;
+
+        if (currentNode.leftChild == null || currentNode.rightChild == null) {
+            // Node has zero or one child:
+            movedUpNode = deleteNodeWithZeroOrOneChild(currentNode);
+            deletedNodeColor = currentNode.color;
+        } else {
+            // Node has two children:
+            // Copy the in-order successor's data to the current node (keep its color!)
+            // and delete the in-order successor, which has at most one (right) child.
+            BinaryTreeNode<T> inOrderSuccessor = currentNode.rightChild;
+            while (inOrderSuccessor.leftChild != null) {
+                inOrderSuccessor = inOrderSuccessor.leftChild;
+            }
+
+            setData(currentNode, inOrderSuccessor.data);
+
+            movedUpNode = deleteNodeWithZeroOrOneChild(inOrderSuccessor);
+            deletedNodeColor = inOrderSuccessor.color;
+        }
+
+        // Removing a red node never breaks the red-black properties.
+        if (deletedNodeColor == Color.BLACK) {
+            if (movedUpNode != null && movedUpNode.color == RED) {
+                // A red child takes over the black of its removed parent.
+                movedUpNode.color = Color.BLACK;
+            } else {
+                balancingTreeAfterErasure(movedUpNode);
+
+                // Remove the temporary NIL node:
+                if (movedUpNode == nilNode) {
+                    BinaryTreeNode<T> nilParent = nilNode.parent;
+
+                    replaceParentsChild(nilParent, nilNode, null);
+                    updateSubtreeInfoUpwards(nilParent);
+                    nilNode.parent = null;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Unlinks {@code node}, which has at most one child, from the tree.
+     *
+     * @return The child which took the place of {@code node}, or a temporary
+     * black NIL node if {@code node} was a black leaf (the fix-up needs a
+     * node with a parent and a sibling to start from).
+     */
+    private BinaryTreeNode<T> deleteNodeWithZeroOrOneChild(BinaryTreeNode<T> node)
+            throws NodeNotChildOfItsParentException {
+
+        // Node has ONLY a left child --> replace by its left child
+        // Node has ONLY a right child --> replace by its right child
+        // Node has no children -->
+        // * node is red --> just remove it
+        // * node is black --> replace it by a temporary NIL node (needed to fix the R-B rules)
+        BinaryTreeNode<T> newChild;
+        if (node.leftChild != null) {
+            newChild = node.leftChild;
+        } else if (node.rightChild != null) {
+            newChild = node.rightChild;
+        } else {
+            newChild = node.color == Color.BLACK ? nilNode : null;
+        }
+
+        replaceParentsChild(node.parent, node, newChild);
+        updateSubtreeInfoUpwards(node.parent);
+
+        return newChild;
+    }
+
+    /// After erasing a black node one path of the tree has one black node
+    /// less than the others ({@code node} is "doubly black"), so we have to
+    /// balance it.
+    private void balancingTreeAfterErasure(BinaryTreeNode<T> node)
+            throws NodeNotChildOfItsParentException {
+
+        // Case 1: Examined node is root, end of recursion
+        if (node == root) {
+            node.color = Color.BLACK;
+            return;
+        }
+
+        BinaryTreeNode<T> sibling = getSibling(node);
+
+        // Case 2: Red sibling
+        if (sibling.color == RED) {
+            handleRedSibling(node, sibling);
+            sibling = getSibling(node); // Get new sibling for fall-through to cases 3-6
+        }
+
+        // Cases 3+4: Black sibling with two black children
+        if (isBlack(sibling.leftChild) && isBlack(sibling.rightChild)) {
+            sibling.color = RED;
+
+            // Case 3: Black sibling with two black children + red parent
+            if (node.parent.color == RED) {
+                node.parent.color = Color.BLACK;
+            }
+
+            // Case 4: Black sibling with two black children + black parent
+            else {
+                balancingTreeAfterErasure(node.parent);
+            }
+        }
+
+        // Case 5+6: Black sibling with at least one red child
+        else {
+            handleBlackSiblingWithAtLeastOneRedChild(node, sibling);
+        }
+    }
+
+    private void handleRedSibling(BinaryTreeNode<T> node, BinaryTreeNode<T> sibling)
+            throws NodeNotChildOfItsParentException {
+        // Recolor...
+        sibling.color = Color.BLACK;
+        node.parent.color = RED;
+
+        // ... and rotate
+        if (node == node.parent.leftChild) {
+            leftRotation(node.parent);
+        } else {
+            rightRotation(node.parent);
+        }
+    }
+
+    private void handleBlackSiblingWithAtLeastOneRedChild(BinaryTreeNode<T> node,
+                                                          BinaryTreeNode<T> sibling)
+            throws NodeNotChildOfItsParentException {
+        boolean nodeIsLeftChild = node == node.parent.leftChild;
+
+        // Case 5: Black sibling with at least one red child + "outer nephew" is black
+        // --> Recolor sibling and its child, and rotate around sibling
+        if (nodeIsLeftChild && isBlack(sibling.rightChild)) {
+            sibling.leftChild.color = Color.BLACK;
+            sibling.color = RED;
+            rightRotation(sibling);
+            sibling = node.parent.rightChild;
+        } else if (!nodeIsLeftChild && isBlack(sibling.leftChild)) {
+            sibling.rightChild.color = Color.BLACK;
+            sibling.color = RED;
+            leftRotation(sibling);
+            sibling = node.parent.leftChild;
+        }
 
+        // Fall-through to case 6...
+
+        // Case 6: Black sibling with at least one red child + "outer nephew" is red
+        // --> Recolor sibling + parent + sibling's child, and rotate around parent
+        sibling.color = node.parent.color;
+        node.parent.color = Color.BLACK;
+        if (nodeIsLeftChild) {
+            sibling.rightChild.color = Color.BLACK;
+            leftRotation(node.parent);
+        } else {
+            sibling.leftChild.color = Color.BLACK;
+            rightRotation(node.parent);
+        }
+    }
+
+    private BinaryTreeNode<T> getSibling(BinaryTreeNode<T> node)
+            throws NodeNotChildOfItsParentException {
+        BinaryTreeNode<T> parent = node.parent;
+        if (node == parent.leftChild) {
+            return parent.rightChild;
+        } else if (node == parent.rightChild) {
+            return parent.leftChild;
+        } else {
+            throw new NodeNotChildOfItsParentException("Parent is not our parent");
+        }
+    }
+
+    private boolean isBlack(BinaryTreeNode<T> node) {
+        return node == null || node.color == Color.BLACK;
+    }
+
+    /**
+     * Only the deepest level of a bulk loaded tree may be incomplete, so
+     * coloring it red (when it is incomplete) keeps the number of black
+     * nodes on every path the same.
+     */
+    @Override
+    protected int levelOfRedNodesAfterBulkLoading(int size) {
+        int level = 0;
+
+        for (int m = size - 1; m >= 0; m = m / 2 - 1) {
+            level++;
+        }
+
+        return level;
     }
 
     /**
@@ -220,19 +441,17 @@ public class RedBlackTree<T extends Comparable<T>> extends AbstractBinaryTree<T>
     public void insert(T value) throws NodeNotChildOfItsParentException {
         validationOfArgumentInMethods(value, "value", "insert");
 
-        // Spacial case for empty tree:
-        if (this.root == null) {
-            this.root = new BinaryTreeNode<T>(value);
-        }
-
-        // after the validation the real insertion (safeInsert) is called:
-        safeInsert(this.root, value);
-
-        // Notifying the logger that everything is ok.
-        logger.info("Added the value: " + value + " to the current tree.");
+        // after the validation the real insertion (safeInsert) is called,
+        // which also handles the special case for empty tree:
+        if (safeInsert(this.root, value) != null) {
+            // Notifying the logger that everything is ok.
+            if (logger.isDebugEnabled()) {
+                logger.debug("Added the value: " + value + " to the current tree.");
+            }
 
-        // Updating the size:
-        this.size++;
+            // Updating the size:
+            this.size++;
+        }
     }
 
     @Override
@@ -242,17 +461,19 @@ public class RedBlackTree<T extends Comparable<T>> extends AbstractBinaryTree<T>
 
         validationOfArgumentInMethods(key, "key", "erase");
 
-
-        safeErase(this.root, key);
-        this.size--;
+        if (safeErase(this.root, key)) {
+            this.size--;
+        }
 
         /// If the program has worked properly we should notify the logger for
-        /// the removal of the certain value.
-        logger.info("Removed value: " + key + "from current tree.");
-
-        /// If we are trying to remove a non-containing value we should warn the logger
-        if (sizeBeforeRemoval == this.size) {
-            logger.warn("Trying to remove a non-containing value from the current tree.");
+        /// the removal of the certain value. The message is built only when
+        /// somebody is listening on the debug level.
+        if (logger.isDebugEnabled()) {
+            if (sizeBeforeRemoval == this.size) {
+                logger.debug("Trying to remove a non-containing value from the current tree.");
+            } else {
+                logger.debug("Removed value: " + key + " from current tree.");
+            }
         }
     }
 }
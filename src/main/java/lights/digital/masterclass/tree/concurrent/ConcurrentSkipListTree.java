@@ -0,0 +1,334 @@
+/**
+ * @author Stiliyan Iliev
+ * @version 1.0
+ * Package for trees which can be used by several threads at once.
+ */
+package lights.digital.masterclass.tree.concurrent;
+
+import lights.digital.masterclass.tree.BulkLoadableTree;
+import lights.digital.masterclass.tree.Traversal;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * A thread-safe tree backed by the keys of a {@link ConcurrentSkipListMap}
+ * (the values are not used). A skip list
+ * is a search tree whose levels are sorted linked lists: every key is in the
+ * bottom list and in each list above it with probability 1/2, so a search
+ * skips whole ranges of keys on the upper levels and takes {@code O(log n)}
+ * steps on average without any rebalancing.
+ * <p>
+ * {@link #contains(Comparable)} and the iterators never take a lock, they
+ * only read the links. {@link #insert(Comparable)} and
+ * {@link #erase(Comparable)} change the links with compare-and-set, so two
+ * writers contend only if their keys are neighbours in some level.
+ * <p>
+ * The iterators, {@link #getAllElements()} and {@link #text(Traversal, Appendable)}
+ * are weakly consistent: they never fail because of concurrent changes and
+ * contain every key which is in the tree during the whole walk, but may or
+ * may not contain the keys changed during it. {@link #size()} is counted
+ * by the changes, so it takes constant time (the size of the map takes
+ * linear time), but it is exact only when no change is in progress.
+ * <p>
+ * The levels of the skip list are random and not visible outside of it, so
+ * this tree has no defined height or postorder: {@link #height()} returns
+ * {@code -1} and {@link #text(Traversal, Appendable)} writes the keys in
+ * ascending order for every traversal.
+ *
+ * @param <T> The data type in every node, which should be at least a class
+ *            implementing the interface Comparable.
+ */
+public class ConcurrentSkipListTree<T extends Comparable<T>> implements BulkLoadableTree<T> {
+
+    /**
+     * A log4j logger for logging information about thrown exceptions,
+     * added new elements to the tree and erased ones. The messages about
+     * single insertions and erasures are logged on the debug level and only
+     * built when that level is enabled.
+     */
+    protected static final Logger logger = Logger.getLogger(ConcurrentSkipListTree.class);
+
+    /**
+     * The keys with their counter, so that {@link #clear()} replaces both
+     * at once.
+     *
+     * @param <T> The data type in every node.
+     */
+    private static final class Contents<T> {
+
+        private final ConcurrentSkipListMap<T, Boolean> keys;
+
+        private final LongAdder size = new LongAdder();
+
+        private Contents(ConcurrentSkipListMap<T, Boolean> keys) {
+            this.keys = keys;
+        }
+    }
+
+    /**
+     * A sorted map over a list of sorted distinct keys, each mapped to true.
+     * {@link ConcurrentSkipListMap#ConcurrentSkipListMap(SortedMap)} builds
+     * its levels from a sorted map in one pass over its entries, while the
+     * other constructors and the sets built from a collection insert the keys
+     * one by one. The constructor reads only the comparator and the entries,
+     * so the views of a part of the map are not supported.
+     *
+     * @param <T> The data type of the keys.
+     */
+    private static final class SortedKeys<T> extends AbstractMap<T, Boolean>
+            implements SortedMap<T, Boolean> {
+
+        private final List<T> keys;
+
+        private SortedKeys(List<T> keys) {
+            this.keys = keys;
+        }
+
+        @Override
+        public Comparator<? super T> comparator() {
+            return null;
+        }
+
+        @Override
+        public Set<Map.Entry<T, Boolean>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<T, Boolean>> iterator() {
+                    Iterator<T> iterator = keys.iterator();
+
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Map.Entry<T, Boolean> next() {
+                            return Map.entry(iterator.next(), Boolean.TRUE);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keys.size();
+                }
+            };
+        }
+
+        @Override
+        public T firstKey() {
+            return keys.get(0);
+        }
+
+        @Override
+        public T lastKey() {
+            return keys.get(keys.size() - 1);
+        }
+
+        @Override
+        public SortedMap<T, Boolean> subMap(T fromKey, T toKey) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedMap<T, Boolean> headMap(T toKey) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedMap<T, Boolean> tailMap(T fromKey) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private volatile Contents<T> contents = new Contents<>(new ConcurrentSkipListMap<>());
+
+    public ConcurrentSkipListTree() {
+    }
+
+    public ConcurrentSkipListTree(T initialRootValue) {
+        insert(initialRootValue);
+    }
+
+    private static void validationOfArgumentInMethods(final Object argument,
+                                                      final String argumentName,
+                                                      final String methodName) {
+        if (argument == null) {
+            logger.error("The value of " + argumentName
+                    + " in method " + methodName
+                    + " is null!");
+            throw new IllegalArgumentException("The value of argument "
+                    + argumentName + " in method "
+                    + methodName + " cannot be null!");
+        }
+    }
+
+    @Override
+    public boolean contains(T key) {
+        validationOfArgumentInMethods(key, "key", "contains");
+
+        return contents.keys.containsKey(key);
+    }
+
+    @Override
+    public void insert(T value) {
+        validationOfArgumentInMethods(value, "value", "insert");
+
+        Contents<T> contents = this.contents;
+        if (contents.keys.putIfAbsent(value, Boolean.TRUE) == null) {
+            contents.size.increment();
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("Added the value: " + value + " to the current tree.");
+            }
+        }
+    }
+
+    @Override
+    public void erase(T key) {
+        validationOfArgumentInMethods(key, "key", "erase");
+
+        Contents<T> contents = this.contents;
+        if (contents.keys.remove(key) != null) {
+            contents.size.decrement();
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("Removed value: " + key + " from current tree.");
+            }
+        } else if (logger.isDebugEnabled()) {
+            logger.debug("Trying to remove a non-containing value from the current tree.");
+        }
+    }
+
+    /**
+     * Replaces all keys at once. Changes which run concurrently with the
+     * clearing may be applied to the old keys and lost.
+     */
+    @Override
+    public void clear() {
+        this.contents = new Contents<>(new ConcurrentSkipListMap<>());
+
+        logger.warn("Cleared the whole tree.");
+    }
+
+    /**
+     * Builds a new skip list from the values in linear time and publishes it
+     * at once, so readers see either the old or the new tree.
+     */
+    @Override
+    public void buildFromSorted(Iterator<? extends T> sortedValues) {
+        List<T> values = BulkLoadableTree.sortedDistinctValues(sortedValues);
+
+        Contents<T> newContents = new Contents<>(new ConcurrentSkipListMap<>(new SortedKeys<>(values)));
+        newContents.size.add(values.size());
+        this.contents = newContents;
+
+        logger.info("Built the current tree from " + values.size() + " sorted values.");
+    }
+
+    @Override
+    public boolean empty() {
+        return contents.keys.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.max(0, contents.size.sum());
+    }
+
+    /**
+     * @return {@code -1}, as the height of this tree is not defined (the
+     * levels of the skip list are random and not visible).
+     */
+    @Override
+    public int height() {
+        return -1;
+    }
+
+    @Override
+    public Collection<T> getAllElements() {
+        return new ArrayList<>(contents.keys.keySet());
+    }
+
+    /**
+     * @return A weakly consistent iterator over the keys in ascending order.
+     * Its {@code remove()} is not supported, as it would bypass the counter.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        Iterator<T> keys = contents.keys.keySet().iterator();
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return keys.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return keys.next();
+            }
+        };
+    }
+
+    /**
+     * @return A weakly consistent spliterator, which reports the
+     * characteristics {@code SORTED | DISTINCT | ORDERED | NONNULL | CONCURRENT}.
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+        return contents.keys.keySet().spliterator();
+    }
+
+    /**
+     * Writes the keys in ascending order for every traversal. The keys
+     * precede the ones after them in every level, so the preorder is the
+     * ascending order too, while the postorder would depend on the random
+     * levels and is not defined.
+     */
+    @Override
+    public void text(Traversal traversal, Appendable output) throws IOException {
+        if (traversal == null || output == null) {
+            logger.error("The value of argument traversal or output in method text is null.");
+            throw new IllegalArgumentException("The values of arguments traversal and output " +
+                    "in method text in class ConcurrentSkipListTree should not be null!");
+        }
+
+        for (T key : this) {
+            output.append(String.valueOf(key)).append(' ');
+        }
+    }
+
+    /**
+     * Prints the keys in ascending order on one line, which is the bottom
+     * level of the skip list. The upper levels are not visible.
+     */
+    @Override
+    public void prettyPrint() {
+        StringBuilder result = new StringBuilder();
+
+        for (T key : this) {
+            result.append(key).append(' ');
+        }
+        result.append('\n');
+
+        System.out.print(result);
+        System.out.flush();
+    }
+}
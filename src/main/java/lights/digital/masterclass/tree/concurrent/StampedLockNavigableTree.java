@@ -0,0 +1,82 @@
+/**
+ * @author Stiliyan Iliev
+ * @version 1.0
+ * Package for trees which can be used by several threads at once.
+ */
+package lights.digital.masterclass.tree.concurrent;
+
+import lights.digital.masterclass.tree.NavigableTree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * A {@link StampedLockTree} over a {@link NavigableTree}, which also guards
+ * its navigation methods. The searches for a single key run as optimistic
+ * reads like the other lookups, while {@link #subRange(Comparable, Comparable)}
+ * copies the range under the read lock, as it may be too long to be
+ * repeated after a failed optimistic read.
+ *
+ * @param <T> The data type in every node, which should be at least a class
+ *            implementing the interface Comparable.
+ */
+public class StampedLockNavigableTree<T extends Comparable<T>> extends StampedLockTree<T>
+        implements NavigableTree<T> {
+
+    private final NavigableTree<T> tree;
+
+    /**
+     * @param tree The tree which is to be guarded.
+     * @throws IllegalArgumentException If {@code tree} is null.
+     */
+    public StampedLockNavigableTree(NavigableTree<T> tree) {
+        super(tree);
+        this.tree = tree;
+    }
+
+    @Override
+    public T first() {
+        return readOptimistically(tree::first);
+    }
+
+    @Override
+    public T last() {
+        return readOptimistically(tree::last);
+    }
+
+    @Override
+    public T floor(T key) {
+        return readOptimistically(() -> tree.floor(key));
+    }
+
+    @Override
+    public T ceiling(T key) {
+        return readOptimistically(() -> tree.ceiling(key));
+    }
+
+    @Override
+    public T lower(T key) {
+        return readOptimistically(() -> tree.lower(key));
+    }
+
+    @Override
+    public T higher(T key) {
+        return readOptimistically(() -> tree.higher(key));
+    }
+
+    /**
+     * @return A copy of the elements from {@code fromKey} (inclusive) to
+     * {@code toKey} (exclusive) made under the read lock.
+     */
+    @Override
+    public Iterable<T> subRange(T fromKey, T toKey) {
+        return readLocked(() -> {
+            List<T> elements = new ArrayList<>();
+            for (T element : tree.subRange(fromKey, toKey)) {
+                elements.add(element);
+            }
+            return elements;
+        });
+    }
+}
@@ -0,0 +1,251 @@
+/**
+ * @author Stiliyan Iliev
+ * @version 1.0
+ * Package for trees which can be used by several threads at once.
+ */
+package lights.digital.masterclass.tree.concurrent;
+
+import lights.digital.masterclass.tree.Traversal;
+import lights.digital.masterclass.tree.Tree;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+
+/**
+ * A thread-safe view of another tree, which guards it with a
+ * {@link StampedLock}. The changes take the write lock. The lookups
+ * ({@link #contains(Comparable)}, {@link #containsAll(Iterable)},
+ * {@link #size()} and the others) first run without any lock as optimistic
+ * reads and keep the result only if no change has started meanwhile;
+ * otherwise they run again under the read lock. So the readers do not write
+ * to a shared lock word while no change is in progress.
+ * <p>
+ * A walk through a tree in the middle of a change can follow a stale link
+ * or read a half-written node. The failures this causes are caught and the
+ * lookup is retried under the read lock. A stale link could also lead the
+ * walk in a cycle, so the wrapped tree has to stop a search which takes more
+ * steps than its height allows, as the binary and red-black trees of this
+ * library do with a {@link java.util.ConcurrentModificationException}.
+ * <p>
+ * The wrapped tree has to be changed only through this view, and its
+ * lookups must not change it themselves (which the file-backed B-trees do
+ * when they load pages).
+ * <p>
+ * {@link #iterator()} and {@link #stream()} walk a copy of the elements
+ * made under the read lock, so they never see a change in progress.
+ * {@link StampedLockNavigableTree} adds the navigation methods for trees
+ * which support them.
+ *
+ * @param <T> The data type in every node, which should be at least a class
+ *            implementing the interface Comparable.
+ */
+public class StampedLockTree<T extends Comparable<T>> implements Tree<T> {
+
+    private static final Logger logger = Logger.getLogger(StampedLockTree.class);
+
+    private final Tree<T> tree;
+
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * @param tree The tree which is to be guarded.
+     * @throws IllegalArgumentException If {@code tree} is null.
+     */
+    public StampedLockTree(Tree<T> tree) {
+        if (tree == null) {
+            logger.error("The value of tree in the constructor of StampedLockTree is null!");
+            throw new IllegalArgumentException("The value of argument tree " +
+                    "in the constructor of StampedLockTree cannot be null!");
+        }
+
+        this.tree = tree;
+    }
+
+    /**
+     * Runs {@code read} as an optimistic read and, if a change has
+     * interfered with it, again under the read lock. An exception thrown by
+     * {@code read} is passed on only if no change has interfered, otherwise
+     * it comes from a torn state and the read is retried.
+     */
+    protected <R> R readOptimistically(Supplier<R> read) {
+        long stamp = lock.tryOptimisticRead();
+
+        if (stamp != 0L) {
+            try {
+                R result = read.get();
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException | StackOverflowError e) {
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+            }
+        }
+
+        return readLocked(read);
+    }
+
+    /**
+     * Runs {@code read} under the read lock.
+     */
+    protected <R> R readLocked(Supplier<R> read) {
+        long stamp = lock.readLock();
+        try {
+            return read.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public boolean contains(T key) {
+        return readOptimistically(() -> tree.contains(key));
+    }
+
+    @Override
+    public void insert(T value) {
+        long stamp = lock.writeLock();
+        try {
+            tree.insert(value);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void erase(T key) {
+        long stamp = lock.writeLock();
+        try {
+            tree.erase(key);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Checks all {@code keys} in one read, so the result is the same as if
+     * they were all checked at the same moment.
+     */
+    @Override
+    public BitSet containsAll(Iterable<? extends T> keys) {
+        // The keys are copied first, as a retried read has to see them again.
+        List<T> batch = Tree.copyOfBatch(keys, "keys", "containsAll");
+
+        return readOptimistically(() -> tree.containsAll(batch));
+    }
+
+    /**
+     * Inserts all {@code values} under one acquisition of the write lock,
+     * so readers see either none or all of them.
+     */
+    @Override
+    public BitSet insertAll(Iterable<? extends T> values) {
+        if (values == null) {
+            logger.error("The value of values in method insertAll is null!");
+            throw new IllegalArgumentException("The value of argument values " +
+                    "in method insertAll cannot be null!");
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            return tree.insertAll(values);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Erases all {@code keys} under one acquisition of the write lock,
+     * so readers see either none or all of them erased.
+     */
+    @Override
+    public BitSet eraseAll(Iterable<? extends T> keys) {
+        if (keys == null) {
+            logger.error("The value of keys in method eraseAll is null!");
+            throw new IllegalArgumentException("The value of argument keys " +
+                    "in method eraseAll cannot be null!");
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            return tree.eraseAll(keys);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            tree.clear();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean empty() {
+        return readOptimistically(tree::empty);
+    }
+
+    @Override
+    public int size() {
+        return readOptimistically(tree::size);
+    }
+
+    @Override
+    public int height() {
+        return readOptimistically(tree::height);
+    }
+
+    @Override
+    public Collection<T> getAllElements() {
+        return readLocked(tree::getAllElements);
+    }
+
+    /**
+     * @return An iterator over a copy of the elements made under the read lock.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return getAllElements().iterator();
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return Spliterators.spliterator(getAllElements(),
+                Spliterator.SORTED | Spliterator.DISTINCT
+                        | Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    @Override
+    public void text(Traversal traversal, Appendable output) throws IOException {
+        long stamp = lock.readLock();
+        try {
+            tree.text(traversal, output);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void prettyPrint() {
+        long stamp = lock.readLock();
+        try {
+            tree.prettyPrint();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+}
@@ -5,28 +5,95 @@
  */
 package lights.digital.masterclass.tree.factory;
 
+import lights.digital.masterclass.tree.BulkLoadableTree;
 import lights.digital.masterclass.tree.Tree;
 import lights.digital.masterclass.tree.balanced.btree.BTree;
+import lights.digital.masterclass.tree.balanced.redblack.ArrayRedBlackTree;
 import lights.digital.masterclass.tree.twonode.binary.BinaryTree;
+import lights.digital.masterclass.tree.balanced.redblack.IntRedBlackTree;
+import lights.digital.masterclass.tree.balanced.redblack.LongRedBlackTree;
+import lights.digital.masterclass.tree.balanced.redblack.OffHeapLongRedBlackTree;
+import lights.digital.masterclass.tree.balanced.redblack.PersistentRedBlackTree;
 import lights.digital.masterclass.tree.balanced.redblack.RedBlackTree;
+import lights.digital.masterclass.tree.concurrent.ConcurrentSkipListTree;
+
+import java.util.Iterator;
 
 
 public interface TreeFactory<T extends Comparable<T>> {
 
+    /**
+     * Creates an empty tree of a given type. The trees of type
+     * {@code INT_RB_TREE} hold only {@link Integer} values and the trees of
+     * type {@code LONG_RB_TREE} and {@code OFF_HEAP_RB_TREE} only {@link Long}
+     * values, so they should be requested only with that type of values.
+     * Only the trees of type {@code CONCURRENT_TREE} can be used by several
+     * threads at once.
+     *
+     * @param treeType The type of the new tree.
+     * @param <T>      The data type in every node.
+     * @return The new empty tree.
+     */
+    @SuppressWarnings("unchecked")
     static <T extends Comparable<T>> Tree<T> getInstance(TreeType treeType) {
         return switch (treeType) {
             case B_TREE -> new BTree<>();
 //            case TT_TREE -> new TTTree<>();
             case RB_TREE -> new RedBlackTree<>();
+            case ARRAY_RB_TREE -> new ArrayRedBlackTree<>();
+            case INT_RB_TREE -> (Tree<T>) new IntRedBlackTree();
+            case LONG_RB_TREE -> (Tree<T>) new LongRedBlackTree();
+            case OFF_HEAP_RB_TREE -> (Tree<T>) new OffHeapLongRedBlackTree();
+            case CONCURRENT_TREE -> new ConcurrentSkipListTree<>();
+            case PERSISTENT_RB_TREE -> new PersistentRedBlackTree<>();
             default -> new BinaryTree<>();
         };
     }
 
+    /**
+     * Creates a tree of a given type from values in ascending order in
+     * linear time. Values which are not in strictly ascending order are
+     * sorted first and their duplicates are dropped.
+     *
+     * @param treeType     The type of the new tree.
+     * @param sortedValues The values of the new tree, preferably in ascending order.
+     * @param <T>          The data type in every node.
+     * @return The new tree containing all {@code sortedValues}.
+     * @throws IllegalArgumentException If {@code sortedValues} is null or
+     *                                  contains a null value.
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends Comparable<T>> Tree<T> getInstanceFromSorted(TreeType treeType,
+                                                                   Iterator<? extends T> sortedValues) {
+        BulkLoadableTree<T> tree = switch (treeType) {
+            case B_TREE -> new BTree<>();
+            case RB_TREE -> new RedBlackTree<>();
+            case ARRAY_RB_TREE -> new ArrayRedBlackTree<>();
+            case INT_RB_TREE -> (BulkLoadableTree<T>) new IntRedBlackTree();
+            case LONG_RB_TREE -> (BulkLoadableTree<T>) new LongRedBlackTree();
+            case OFF_HEAP_RB_TREE -> (BulkLoadableTree<T>) new OffHeapLongRedBlackTree();
+            case CONCURRENT_TREE -> new ConcurrentSkipListTree<>();
+            case PERSISTENT_RB_TREE -> new PersistentRedBlackTree<>();
+            default -> new BinaryTree<>();
+        };
+
+        tree.buildFromSorted(sortedValues);
+
+        return tree;
+    }
+
+    @SuppressWarnings("unchecked")
     static <T extends Comparable<T>> Tree<T> getInstance(TreeType treeType, T initialRootValue) {
         return switch (treeType) {
             case B_TREE -> new BTree<>(initialRootValue);
 //            case TT_TREE -> new TTTree<>(initialRootValue);
             case RB_TREE -> new RedBlackTree<>(initialRootValue);
+            case ARRAY_RB_TREE -> new ArrayRedBlackTree<>(initialRootValue);
+            case INT_RB_TREE -> (Tree<T>) new IntRedBlackTree((Integer) initialRootValue);
+            case LONG_RB_TREE -> (Tree<T>) new LongRedBlackTree((Long) initialRootValue);
+            case OFF_HEAP_RB_TREE -> (Tree<T>) new OffHeapLongRedBlackTree((Long) initialRootValue);
+            case CONCURRENT_TREE -> new ConcurrentSkipListTree<>(initialRootValue);
+            case PERSISTENT_RB_TREE -> new PersistentRedBlackTree<>(initialRootValue);
             default -> new BinaryTree<>(initialRootValue);
         };
     }
@@ -10,5 +10,11 @@ public enum TreeType {
     TT_TREE,
     BINARY_TREE,
     RB_TREE,
+    INT_RB_TREE,
+    LONG_RB_TREE,
+    ARRAY_RB_TREE,
+    OFF_HEAP_RB_TREE,
+    CONCURRENT_TREE,
+    PERSISTENT_RB_TREE,
     ALV
 }
@@ -0,0 +1,80 @@
+/**
+ * @author Stiliyan Iliev
+ * @version 1.0
+ * Package for storing trees outside of the memory.
+ */
+package lights.digital.masterclass.tree.io;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Converts the keys of a tree to bytes and back.
+ *
+ * @param <T> The data type of the keys.
+ */
+public interface KeyCodec<T> {
+
+    /**
+     * @return The number of bytes of every encoded key or -1 if
+     *         the keys are encoded with different lengths.
+     */
+    int width();
+
+    /**
+     * Writes {@code key} at the position of {@code buffer} and moves the
+     * position after it.
+     *
+     * @param key    The key which is to be written.
+     * @param buffer The buffer with enough remaining bytes for the key.
+     */
+    void write(T key, ByteBuffer buffer);
+
+    /**
+     * Reads a key written by {@link #write(Object, ByteBuffer)} from the
+     * position of {@code buffer} and moves the position after it.
+     *
+     * @param buffer The buffer holding the key.
+     * @return The read key.
+     */
+    T read(ByteBuffer buffer);
+
+    /**
+     * Encodes {@code key} without anything which tells where it ends, so
+     * keys which start the same way have bytes which start the same way.
+     * The default implementation returns the bytes written by
+     * {@link #write(Object, ByteBuffer)}.
+     *
+     * @param key The key which is to be encoded.
+     * @return A new array with the bytes of the key.
+     */
+    default byte[] toBytes(T key) {
+        ByteBuffer buffer = ByteBuffer.allocate(width() > 0 ? width() : 32);
+
+        while (true) {
+            try {
+                write(key, buffer);
+                break;
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            }
+        }
+
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip().get(bytes);
+
+        return bytes;
+    }
+
+    /**
+     * Decodes a key encoded by {@link #toBytes(Object)}. The array can
+     * be reused by the caller, so the key should not keep a reference to it.
+     *
+     * @param bytes  The array holding the key at its beginning.
+     * @param length The number of bytes of the key.
+     * @return The decoded key.
+     */
+    default T fromBytes(byte[] bytes, int length) {
+        return read(ByteBuffer.wrap(bytes, 0, length));
+    }
+}
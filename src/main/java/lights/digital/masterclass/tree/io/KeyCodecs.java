@@ -0,0 +1,98 @@
+/**
+ * @author Stiliyan Iliev
+ * @version 1.0
+ * Package for storing trees outside of the memory.
+ */
+package lights.digital.masterclass.tree.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The codecs of the common types of keys.
+ */
+public final class KeyCodecs {
+
+    /**
+     * Encodes an {@link Integer} in 4 bytes.
+     */
+    public static final KeyCodec<Integer> INTEGER = new KeyCodec<>() {
+        @Override
+        public int width() {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void write(Integer key, ByteBuffer buffer) {
+            buffer.putInt(key);
+        }
+
+        @Override
+        public Integer read(ByteBuffer buffer) {
+            return buffer.getInt();
+        }
+    };
+
+    /**
+     * Encodes a {@link Long} in 8 bytes.
+     */
+    public static final KeyCodec<Long> LONG = new KeyCodec<>() {
+        @Override
+        public int width() {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void write(Long key, ByteBuffer buffer) {
+            buffer.putLong(key);
+        }
+
+        @Override
+        public Long read(ByteBuffer buffer) {
+            return buffer.getLong();
+        }
+    };
+
+    /**
+     * Encodes a {@link String} as the number of its UTF-8 bytes
+     * (4 bytes) followed by the bytes themselves.
+     */
+    public static final KeyCodec<String> STRING = new KeyCodec<>() {
+        @Override
+        public int width() {
+            return -1;
+        }
+
+        @Override
+        public void write(String key, ByteBuffer buffer) {
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+
+        @Override
+        public String read(ByteBuffer buffer) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * @return Only the UTF-8 bytes of {@code key}, without their number.
+         */
+        @Override
+        public byte[] toBytes(String key) {
+            return key.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String fromBytes(byte[] bytes, int length) {
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+    };
+
+    private KeyCodecs() {
+    }
+}
@@ -0,0 +1,274 @@
+/**
+ * @author Stiliyan Iliev
+ * @version 1.0
+ * Package for storing trees outside of the memory.
+ */
+package lights.digital.masterclass.tree.io;
+
+import lights.digital.masterclass.tree.BulkLoadableTree;
+import lights.digital.masterclass.tree.Tree;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+
+/**
+ * Writes the keys of a tree to a stream in a compact binary format and
+ * reads them back. The keys are written in ascending order, so a tree is
+ * restored through {@link BulkLoadableTree#buildFromSorted(Iterator)} in
+ * linear time and without any rebalancing. Neither the writer nor the
+ * reader holds more than one key in the memory.
+ * <p>
+ * The layout of a snapshot (all numbers are big-endian):
+ * <pre>
+ *   int  magic number 0x54534E50 ("TSNP")
+ *   byte version of the format (1)
+ *   byte 1 if the keys are prefix compressed, else 0
+ *   int  width of an encoded key in bytes or -1 if it is variable
+ *   long number of keys
+ *   the keys, every one of them as:
+ *     fixed width:                     the bytes of the key
+ *     fixed width, prefix compressed:  varint p, the last (width - p) bytes
+ *     variable width:                  varint n, n bytes
+ *     variable width, prefix compressed: varint p, varint n, n bytes
+ * </pre>
+ * where p is the number of leading bytes which the key shares with the
+ * previous one and a varint is an unsigned number written in 7 bits per
+ * byte, lowest first. The keys are encoded by {@link KeyCodec#toBytes(Object)}.
+ */
+public final class TreeSnapshot {
+
+    private static final Logger logger = Logger.getLogger(TreeSnapshot.class);
+
+    private static final int MAGIC = 0x54534E50;
+
+    private static final byte VERSION = 1;
+
+    private static final byte PREFIX_COMPRESSED = 1;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private TreeSnapshot() {
+    }
+
+    /**
+     * Writes the keys of {@code tree} to {@code output}, prefix compressed
+     * only if their width is variable.
+     *
+     * @see #write(Tree, OutputStream, KeyCodec, boolean)
+     */
+    public static <T extends Comparable<T>> void write(Tree<T> tree, OutputStream output,
+                                                       KeyCodec<T> codec) throws IOException {
+        validationOfArguments(tree, output, codec, "write");
+
+        write(tree, output, codec, codec.width() <= 0);
+    }
+
+    /**
+     * Writes the keys of {@code tree} to {@code output}. The stream is
+     * flushed, but not closed.
+     *
+     * @param tree              The tree whose keys are written.
+     * @param output            The stream of the snapshot.
+     * @param codec             The codec of the keys.
+     * @param prefixCompression Whether the bytes which a key shares with the
+     *                          previous one are left out. It pays off for
+     *                          strings and for dense numbers.
+     * @param <T>               The data type in every node.
+     * @throws IllegalArgumentException If an argument is null.
+     * @throws IOException              If the stream cannot be written.
+     */
+    public static <T extends Comparable<T>> void write(Tree<T> tree, OutputStream output,
+                                                       KeyCodec<T> codec,
+                                                       boolean prefixCompression) throws IOException {
+        validationOfArguments(tree, output, codec, "write");
+
+        int width = codec.width() > 0 ? codec.width() : -1;
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(output, BUFFER_SIZE));
+
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeByte(prefixCompression ? PREFIX_COMPRESSED : 0);
+        data.writeInt(width);
+        data.writeLong(tree.size());
+
+        byte[] previous = new byte[0];
+        for (T key : tree) {
+            byte[] bytes = codec.toBytes(key);
+
+            if (width > 0 && bytes.length != width) {
+                throw new IllegalArgumentException("The codec wrote " + bytes.length
+                        + " bytes for a key of width " + width + "!");
+            }
+
+            int sharedLength = 0;
+            if (prefixCompression) {
+                int mismatch = Arrays.mismatch(previous, bytes);
+                sharedLength = mismatch < 0 ? bytes.length : mismatch;
+
+                writeVarint(data, sharedLength);
+                previous = bytes;
+            }
+            if (width < 0) {
+                writeVarint(data, bytes.length - sharedLength);
+            }
+
+            data.write(bytes, sharedLength, bytes.length - sharedLength);
+        }
+
+        data.flush();
+    }
+
+    /**
+     * Replaces the elements of {@code tree} with the keys of the snapshot
+     * in {@code input}. The stream is not closed, but it can be read
+     * beyond the end of the snapshot.
+     *
+     * @param tree  The tree which is to be rebuilt.
+     * @param input The stream of the snapshot.
+     * @param codec The codec of the keys.
+     * @param <T>   The data type in every node.
+     * @throws IllegalArgumentException If an argument is null or the stream
+     *                                  does not hold a snapshot written with
+     *                                  a codec of the same width.
+     * @throws IOException              If the stream cannot be read or ends
+     *                                  before the last key.
+     */
+    public static <T extends Comparable<T>> void read(BulkLoadableTree<T> tree, InputStream input,
+                                                      KeyCodec<T> codec) throws IOException {
+        validationOfArguments(tree, input, codec, "read");
+
+        DataInputStream data = new DataInputStream(new BufferedInputStream(input, BUFFER_SIZE));
+
+        if (data.readInt() != MAGIC) {
+            throw new IllegalArgumentException("The stream does not hold a tree snapshot!");
+        }
+        if (data.readByte() != VERSION) {
+            throw new IllegalArgumentException("The version of the tree snapshot is not supported!");
+        }
+
+        boolean prefixCompression = data.readByte() == PREFIX_COMPRESSED;
+        int width = data.readInt();
+        long count = data.readLong();
+
+        if (width != (codec.width() > 0 ? codec.width() : -1) || count < 0) {
+            throw new IllegalArgumentException("The keys in the snapshot have width " + width
+                    + ", but the codec has width " + codec.width() + "!");
+        }
+
+        try {
+            tree.buildFromSorted(new KeyIterator<>(data, codec, prefixCompression, width, count));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Reads the keys one by one while the tree is built.
+     */
+    private static final class KeyIterator<T> implements Iterator<T> {
+
+        private final DataInputStream data;
+
+        private final KeyCodec<T> codec;
+
+        private final boolean prefixCompression;
+
+        private final int width;
+
+        private final long count;
+
+        private long read = 0;
+
+        /**
+         * The bytes of the previous key at the beginning.
+         */
+        private byte[] bytes;
+
+        private int length = 0;
+
+        private KeyIterator(DataInputStream data, KeyCodec<T> codec, boolean prefixCompression,
+                            int width, long count) {
+            this.data = data;
+            this.codec = codec;
+            this.prefixCompression = prefixCompression;
+            this.width = width;
+            this.count = count;
+            this.bytes = new byte[width > 0 ? width : 32];
+        }
+
+        @Override
+        public boolean hasNext() {
+            return read < count;
+        }
+
+        @Override
+        public T next() {
+            if (read == count) {
+                throw new NoSuchElementException();
+            }
+
+            try {
+                int sharedLength = prefixCompression ? readVarint(data) : 0;
+                int suffixLength = width > 0 ? width - sharedLength : readVarint(data);
+
+                if (sharedLength > length || suffixLength < 0) {
+                    throw new IllegalArgumentException("The tree snapshot is damaged!");
+                }
+
+                length = sharedLength + suffixLength;
+                if (length > bytes.length) {
+                    bytes = Arrays.copyOf(bytes, Math.max(length, bytes.length * 2));
+                }
+                data.readFully(bytes, sharedLength, suffixLength);
+                read++;
+
+                return codec.fromBytes(bytes, length);
+            } catch (IOException e) {
+                logger.error("The tree snapshot cannot be read.", e);
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static void writeVarint(DataOutputStream data, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            data.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data.writeByte(value);
+    }
+
+    private static int readVarint(DataInputStream data) throws IOException {
+        int value = 0;
+
+        for (int shift = 0; shift < 32; shift += 7) {
+            int nextByte = data.readUnsignedByte();
+
+            value |= (nextByte & 0x7F) << shift;
+            if ((nextByte & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IllegalArgumentException("The tree snapshot is damaged!");
+    }
+
+    private static void validationOfArguments(Object tree, Object stream, Object codec, String methodName) {
+        if (tree == null || stream == null || codec == null) {
+            logger.error("The value of tree, stream or codec in method " + methodName + " is null!");
+            throw new IllegalArgumentException("The tree, the stream and the codec " +
+                    "of a snapshot cannot be null!");
+        }
+    }
+}
@@ -0,0 +1,516 @@
+/**
+ * @author Stiliyan Iliev
+ * @version 1.0
+ * Package for storing trees outside of the memory.
+ */
+package lights.digital.masterclass.tree.io;
+
+import lights.digital.masterclass.tree.BulkLoadableTree;
+import lights.digital.masterclass.tree.Traversal;
+import lights.digital.masterclass.tree.Tree;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.zip.CRC32;
+
+
+/**
+ * A tree which writes every change of another tree to an append-only
+ * log file (a write-ahead log) in a directory, so the tree can be rebuilt
+ * after a crash by {@link #open(BulkLoadableTree, Path, KeyCodec, int, long)}
+ * from the last snapshot and the log written after it.
+ * <p>
+ * The records are collected in the memory and written and forced to the
+ * storage device together (group commit) when {@code groupCommitSize}
+ * records are waiting, when the oldest waiting record is older than
+ * {@code maximalCommitDelayNanos}, or when {@link #commit()} is called.
+ * So one {@code fsync} is paid for many changes and at most the changes
+ * which were not committed yet are lost in a crash.
+ * {@link #checkpoint()} writes a {@link TreeSnapshot} of the whole tree and
+ * empties the log.
+ * <p>
+ * The layout of a log record:
+ * <pre>
+ *   int  length of the payload
+ *   int  CRC32 of the payload
+ *   payload: byte operation (1 = insert, 2 = erase, 3 = clear)
+ *            and the key written by the codec (not for clear)
+ * </pre>
+ * A record which is cut off or whose checksum does not match ends the
+ * replay and is removed from the log.
+ * <p>
+ * If a commit fails, the log is cut back to the end of the last committed
+ * record and the tree refuses all further changes, since the changes which
+ * were not committed are in the memory, but may never reach the log.
+ *
+ * @param <T> The data type in every node.
+ */
+public class WriteAheadLogTree<T extends Comparable<T>> implements Tree<T>, Closeable {
+
+    /**
+     * The name of the log file in the directory of the tree.
+     */
+    public static final String LOG_FILE_NAME = "tree.wal";
+
+    /**
+     * The name of the snapshot file in the directory of the tree.
+     */
+    public static final String SNAPSHOT_FILE_NAME = "tree.snapshot";
+
+    private static final byte INSERT = 1;
+    private static final byte ERASE = 2;
+    private static final byte CLEAR = 3;
+
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+
+    private static final Logger logger = Logger.getLogger(WriteAheadLogTree.class);
+
+    private final BulkLoadableTree<T> tree;
+
+    private final Path directory;
+
+    private final KeyCodec<T> codec;
+
+    private final int groupCommitSize;
+
+    private final long maximalCommitDelayNanos;
+
+    private final FileChannel log;
+
+    private final CRC32 checksum = new CRC32();
+
+    /**
+     * The payload of the record which is being encoded.
+     */
+    private ByteBuffer payload = ByteBuffer.allocate(64);
+
+    /**
+     * The records which are not written to the log yet.
+     */
+    private ByteBuffer pendingRecords = ByteBuffer.allocate(8192);
+
+    private int pendingRecordCount = 0;
+
+    private long firstPendingRecordNanos;
+
+    /**
+     * The length of the log up to the end of the last record which has
+     * been forced to the storage device.
+     */
+    private long durableLength;
+
+    /**
+     * Whether a commit has failed, after which no change is accepted.
+     */
+    private boolean failed = false;
+
+    private WriteAheadLogTree(BulkLoadableTree<T> tree, Path directory, KeyCodec<T> codec,
+                              int groupCommitSize, long maximalCommitDelayNanos,
+                              FileChannel log, long durableLength) {
+        this.tree = tree;
+        this.directory = directory;
+        this.codec = codec;
+        this.groupCommitSize = groupCommitSize;
+        this.maximalCommitDelayNanos = maximalCommitDelayNanos;
+        this.log = log;
+        this.durableLength = durableLength;
+    }
+
+    /**
+     * Rebuilds {@code tree} from the snapshot and the log in {@code directory}
+     * (if there are such) and starts logging its changes.
+     *
+     * @param tree                    The tree whose changes are logged. Its
+     *                                current elements are replaced.
+     * @param directory               The directory of the snapshot and the log,
+     *                                which is created if it does not exist.
+     * @param codec                   The codec of the keys.
+     * @param groupCommitSize         The number of records after which the log
+     *                                is forced to the storage device, 1 forces
+     *                                it after every change.
+     * @param maximalCommitDelayNanos The time after which a waiting record is
+     *                                forced to the storage device by the next
+     *                                change or {@code Long.MAX_VALUE}.
+     * @param <T>                     The data type in every node.
+     * @return The tree which logs the changes of {@code tree}.
+     * @throws IllegalArgumentException If an argument is null, {@code groupCommitSize}
+     *                                  is not positive or {@code maximalCommitDelayNanos}
+     *                                  is negative.
+     * @throws IOException              If the files cannot be read or written.
+     */
+    public static <T extends Comparable<T>> WriteAheadLogTree<T> open(BulkLoadableTree<T> tree,
+                                                                      Path directory,
+                                                                      KeyCodec<T> codec,
+                                                                      int groupCommitSize,
+                                                                      long maximalCommitDelayNanos)
+            throws IOException {
+        if (tree == null || directory == null || codec == null) {
+            logger.error("The value of tree, directory or codec in method open is null!");
+            throw new IllegalArgumentException("The tree, the directory and the codec " +
+                    "of a write-ahead log cannot be null!");
+        }
+        if (groupCommitSize < 1 || maximalCommitDelayNanos < 0) {
+            logger.error("The group commit size " + groupCommitSize + " or the commit delay "
+                    + maximalCommitDelayNanos + " in method open is not valid.");
+            throw new IllegalArgumentException("The group commit size should be positive " +
+                    "and the commit delay should not be negative!");
+        }
+
+        Files.createDirectories(directory);
+
+        readSnapshot(tree, directory.resolve(SNAPSHOT_FILE_NAME), codec);
+
+        FileChannel log = FileChannel.open(directory.resolve(LOG_FILE_NAME),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long validLength;
+        try {
+            validLength = replayLog(tree, log, codec);
+
+            // Dropping a record which was cut off by the crash:
+            log.truncate(validLength);
+            log.position(validLength);
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+
+        logger.info("Recovered a tree with " + tree.size() + " elements from " + directory + ".");
+
+        return new WriteAheadLogTree<>(tree, directory, codec, groupCommitSize,
+                maximalCommitDelayNanos, log, validLength);
+    }
+
+    private static <T extends Comparable<T>> void readSnapshot(BulkLoadableTree<T> tree, Path snapshot,
+                                                               KeyCodec<T> codec) throws IOException {
+        if (!Files.exists(snapshot)) {
+            tree.clear();
+            return;
+        }
+
+        try (InputStream input = Files.newInputStream(snapshot)) {
+            TreeSnapshot.read(tree, input, codec);
+        }
+    }
+
+    /**
+     * Applies the valid records of {@code log} to {@code tree}.
+     *
+     * @return The length of the valid records in the log.
+     */
+    private static <T extends Comparable<T>> long replayLog(Tree<T> tree, FileChannel log,
+                                                            KeyCodec<T> codec) throws IOException {
+        long validLength = 0;
+        CRC32 checksum = new CRC32();
+
+        // The stream is not closed, because that would close the log.
+        log.position(0);
+        DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Channels.newInputStream(log)));
+
+        while (true) {
+            byte[] record;
+            int expectedChecksum;
+
+            try {
+                int length = input.readInt();
+                expectedChecksum = input.readInt();
+
+                if (length <= 0 || length > log.size() - validLength - RECORD_HEADER_SIZE) {
+                    break;
+                }
+
+                record = new byte[length];
+                input.readFully(record);
+            } catch (EOFException e) {
+                break;
+            }
+
+            checksum.reset();
+            checksum.update(record);
+            if ((int) checksum.getValue() != expectedChecksum) {
+                logger.warn("Found a damaged record in the write-ahead log, " +
+                        "the log is replayed only up to it.");
+                break;
+            }
+
+            ByteBuffer payload = ByteBuffer.wrap(record);
+            switch (payload.get()) {
+                case INSERT -> tree.insert(codec.read(payload));
+                case ERASE -> tree.erase(codec.read(payload));
+                case CLEAR -> tree.clear();
+                default -> throw new IllegalArgumentException("Unknown operation in " +
+                        "the write-ahead log!");
+            }
+
+            validLength += RECORD_HEADER_SIZE + record.length;
+        }
+
+        return validLength;
+    }
+
+    /**
+     * @throws IllegalStateException If a commit has failed before.
+     */
+    private void checkNotFailed() {
+        if (failed) {
+            throw new IllegalStateException("The write-ahead log in " + directory
+                    + " has failed, so the tree cannot be changed any more!");
+        }
+    }
+
+    /**
+     * Encodes a record into {@link #payload}. It is done before the tree is
+     * changed, so a key which the codec cannot write leaves the tree as it
+     * was instead of changing it without a record.
+     */
+    private void encodeRecord(byte operation, T key) {
+        while (true) {
+            try {
+                payload.clear();
+                payload.put(operation);
+                if (key != null) {
+                    codec.write(key, payload);
+                }
+                break;
+            } catch (BufferOverflowException e) {
+                payload = ByteBuffer.allocate(payload.capacity() * 2);
+            }
+        }
+        payload.flip();
+    }
+
+    /**
+     * Adds the record in {@link #payload} to the waiting records and commits
+     * them if there are enough of them or the oldest one has waited long enough.
+     */
+    private void appendRecord() {
+        checksum.reset();
+        checksum.update(payload.duplicate());
+
+        if (pendingRecords.remaining() < RECORD_HEADER_SIZE + payload.remaining()) {
+            ByteBuffer biggerBuffer = ByteBuffer.allocate(Math.max(pendingRecords.capacity() * 2,
+                    pendingRecords.position() + RECORD_HEADER_SIZE + payload.remaining()));
+            pendingRecords.flip();
+            biggerBuffer.put(pendingRecords);
+            pendingRecords = biggerBuffer;
+        }
+
+        pendingRecords.putInt(payload.remaining());
+        pendingRecords.putInt((int) checksum.getValue());
+        pendingRecords.put(payload);
+
+        if (pendingRecordCount++ == 0) {
+            firstPendingRecordNanos = System.nanoTime();
+        }
+
+        if (pendingRecordCount >= groupCommitSize
+                || System.nanoTime() - firstPendingRecordNanos >= maximalCommitDelayNanos) {
+            commit();
+        }
+    }
+
+    /**
+     * Writes all waiting records to the log and forces it to the storage
+     * device. If that fails, the log is cut back to the last committed record,
+     * so a later recovery does not stop at a torn record, and the tree
+     * refuses all further changes. Forcing the log again after a failed
+     * force could report success for data which was never written.
+     *
+     * @throws UncheckedIOException  If the log cannot be written.
+     * @throws IllegalStateException If a commit has failed before.
+     */
+    public void commit() {
+        checkNotFailed();
+
+        if (pendingRecordCount == 0) {
+            return;
+        }
+
+        try {
+            pendingRecords.flip();
+            while (pendingRecords.hasRemaining()) {
+                log.write(pendingRecords);
+            }
+            log.force(false);
+            durableLength = log.position();
+        } catch (IOException e) {
+            failed = true;
+            logger.error("The write-ahead log cannot be written, the tree " +
+                    "does not accept changes any more.", e);
+
+            try {
+                log.truncate(durableLength);
+                log.position(durableLength);
+            } catch (IOException truncationException) {
+                e.addSuppressed(truncationException);
+            }
+
+            throw new UncheckedIOException(e);
+        } finally {
+            pendingRecords.clear();
+        }
+
+        pendingRecordCount = 0;
+    }
+
+    /**
+     * Writes a snapshot of the whole tree next to the log and empties the
+     * log, so the next recovery does not have to replay the older changes.
+     *
+     * @throws IOException If the files cannot be written.
+     */
+    public void checkpoint() throws IOException {
+        commit();
+
+        Path snapshot = directory.resolve(SNAPSHOT_FILE_NAME);
+        Path temporarySnapshot = directory.resolve(SNAPSHOT_FILE_NAME + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporarySnapshot, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            TreeSnapshot.write(tree, Channels.newOutputStream(channel), codec);
+            channel.force(true);
+        }
+
+        // The new snapshot replaces the old one at once, so a crash leaves
+        // either the old snapshot with the whole log or the new one. The
+        // rename is durable only after the directory is forced, and the log
+        // must not be emptied before that.
+        Files.move(temporarySnapshot, snapshot, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        }
+
+        log.truncate(0);
+        log.position(0);
+        log.force(true);
+        durableLength = 0;
+
+        logger.info("Wrote a snapshot of " + tree.size() + " elements to " + snapshot + ".");
+    }
+
+    /**
+     * Commits the waiting records and closes the log. The tree should not
+     * be changed after that.
+     *
+     * @throws IOException If the log cannot be written or closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (failed) {
+            log.close();
+            return;
+        }
+
+        try {
+            commit();
+        } catch (UncheckedIOException e) {
+            log.close();
+            throw e.getCause();
+        }
+
+        log.close();
+    }
+
+    @Override
+    public boolean contains(T key) {
+        return tree.contains(key);
+    }
+
+    /**
+     * Encodes the insertion of {@code value}, inserts it in the tree and
+     * logs the insertion if the tree has changed.
+     */
+    @Override
+    public void insert(T value) {
+        checkNotFailed();
+        encodeRecord(INSERT, value);
+
+        int sizeBeforeInsertion = tree.size();
+
+        tree.insert(value);
+
+        if (tree.size() != sizeBeforeInsertion) {
+            appendRecord();
+        }
+    }
+
+    /**
+     * Encodes the erasure of {@code key}, erases it from the tree and logs
+     * the erasure if the tree has changed.
+     */
+    @Override
+    public void erase(T key) {
+        checkNotFailed();
+        encodeRecord(ERASE, key);
+
+        int sizeBeforeRemoval = tree.size();
+
+        tree.erase(key);
+
+        if (tree.size() != sizeBeforeRemoval) {
+            appendRecord();
+        }
+    }
+
+    @Override
+    public void clear() {
+        checkNotFailed();
+        encodeRecord(CLEAR, null);
+
+        tree.clear();
+        appendRecord();
+    }
+
+    @Override
+    public boolean empty() {
+        return tree.empty();
+    }
+
+    @Override
+    public int size() {
+        return tree.size();
+    }
+
+    @Override
+    public int height() {
+        return tree.height();
+    }
+
+    @Override
+    public Collection<T> getAllElements() {
+        return tree.getAllElements();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return tree.iterator();
+    }
+
+    @Override
+    public void text(Traversal traversal, Appendable output) throws IOException {
+        tree.text(traversal, output);
+    }
+
+    @Override
+    public void prettyPrint() {
+        tree.prettyPrint();
+    }
+}
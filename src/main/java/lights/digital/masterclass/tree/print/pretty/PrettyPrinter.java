@@ -0,0 +1,290 @@
+package lights.digital.masterclass.tree.print.pretty;
+
+import lights.digital.masterclass.tree.print.PrintableNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+
+/**
+ * Prints a binary tree made of {@link PrintableNode} nodes as a graph, one
+ * level of the tree per line. Every node gets its own columns in the order
+ * of an inorder traversal, so the width of the graph grows only with the
+ * printed nodes and empty subtrees take no space:
+ * <pre>
+ *       10
+ *     ┌─┴─────┐
+ *     9       13
+ *   ┌─┘    ┌──┴──┐
+ *   8      11    19
+ * ┌─┘
+ * 7
+ * </pre>
+ * Only the nodes in the first {@code maximalDepth} levels are printed, and
+ * at most {@code maximalNodes} of them, chosen level by level. A node whose
+ * children are left out is marked with {@value #TRUNCATION_MARK} below it,
+ * or beside the edge to its left child if only that one is printed.
+ */
+public final class PrettyPrinter {
+
+    /**
+     * The number of levels printed by {@link #print(PrintableNode)}.
+     */
+    public static final int DEFAULT_MAXIMAL_DEPTH = 8;
+
+    /**
+     * The number of nodes printed by {@link #print(PrintableNode)}.
+     */
+    public static final int DEFAULT_MAXIMAL_NODES = 255;
+
+    /**
+     * The mark below a node whose children are not printed.
+     */
+    public static final char TRUNCATION_MARK = '…';
+
+    private PrettyPrinter() {
+    }
+
+    /**
+     * A printed node with its place in the graph.
+     */
+    private static final class Box {
+
+        private final String text;
+
+        private Box left;
+
+        private Box right;
+
+        /**
+         * Whether the node has a left child which is not printed.
+         */
+        private boolean leftTruncated;
+
+        /**
+         * Whether the node has a right child which is not printed.
+         */
+        private boolean rightTruncated;
+
+        /**
+         * The first column of the text.
+         */
+        private int column;
+
+        private Box(String text) {
+            this.text = text;
+        }
+
+        private int center() {
+            return column + Math.max(0, text.length() - 1) / 2;
+        }
+    }
+
+    /**
+     * Prints at most {@value #DEFAULT_MAXIMAL_NODES} nodes in the first
+     * {@value #DEFAULT_MAXIMAL_DEPTH} levels of the tree on the standard output.
+     *
+     * @param root The root of the tree which is to be printed, may be null.
+     */
+    public static void print(PrintableNode root) {
+        try {
+            print(root, System.out, DEFAULT_MAXIMAL_DEPTH, DEFAULT_MAXIMAL_NODES);
+        } catch (IOException e) {
+            // System.out does not throw IOException.
+            throw new UncheckedIOException(e);
+        }
+        System.out.flush();
+    }
+
+    /**
+     * Prints the tree to {@code output}, which receives one whole line
+     * (ending with {@code '\n'}) at a time.
+     *
+     * @param root         The root of the tree which is to be printed, may be null.
+     * @param output       The destination of the graph.
+     * @param maximalDepth The number of levels which are printed.
+     * @param maximalNodes The number of nodes which are printed.
+     * @throws IllegalArgumentException If {@code output} is null or a limit
+     *                                  is not positive.
+     * @throws IOException              If {@code output} cannot be written.
+     */
+    public static void print(PrintableNode root, Appendable output,
+                             int maximalDepth, int maximalNodes) throws IOException {
+        if (output == null) {
+            throw new IllegalArgumentException("The value of argument output " +
+                    "in method print should not be null!");
+        }
+        if (maximalDepth < 1 || maximalNodes < 1) {
+            throw new IllegalArgumentException("The maximal depth and the maximal " +
+                    "number of nodes in method print should be positive!");
+        }
+        if (root == null) {
+            return;
+        }
+
+        List<List<Box>> levels = chooseVisibleNodes(root, maximalDepth, maximalNodes);
+        Box rootBox = levels.get(0).get(0);
+        char[] line = new char[placeInColumns(rootBox)];
+
+        for (int depth = 0; depth < levels.size(); depth++) {
+            List<Box> level = levels.get(depth);
+
+            Arrays.fill(line, ' ');
+            for (Box box : level) {
+                box.text.getChars(0, box.text.length(), line, box.column);
+            }
+            appendLine(line, output);
+
+            Arrays.fill(line, ' ');
+            boolean hasEdges = false;
+            for (Box box : level) {
+                hasEdges |= drawEdges(box, line);
+            }
+            if (hasEdges) {
+                appendLine(line, output);
+            }
+        }
+    }
+
+    /**
+     * Walks the tree level by level and keeps only the nodes which fit in
+     * the limits, so at most one level of the original nodes is held at once.
+     *
+     * @return The printed nodes of every level from left to right.
+     */
+    private static List<List<Box>> chooseVisibleNodes(PrintableNode root, int maximalDepth,
+                                                      int maximalNodes) {
+        List<List<Box>> levels = new ArrayList<>();
+        List<PrintableNode> nodes = new ArrayList<>();
+        List<Box> boxes = new ArrayList<>();
+        int visibleNodes = 1;
+
+        nodes.add(root);
+        boxes.add(new Box(root.getText()));
+
+        while (!nodes.isEmpty()) {
+            levels.add(boxes);
+            boolean childrenVisible = levels.size() < maximalDepth;
+
+            List<PrintableNode> nextNodes = new ArrayList<>();
+            List<Box> nextBoxes = new ArrayList<>();
+
+            for (int i = 0; i < nodes.size(); i++) {
+                Box box = boxes.get(i);
+                // Every child is asked for once, as some nodes create them on demand:
+                PrintableNode left = nodes.get(i).getLeft();
+                PrintableNode right = nodes.get(i).getRight();
+
+                if (left != null) {
+                    if (childrenVisible && visibleNodes < maximalNodes) {
+                        box.left = new Box(left.getText());
+                        nextNodes.add(left);
+                        nextBoxes.add(box.left);
+                        visibleNodes++;
+                    } else {
+                        box.leftTruncated = true;
+                    }
+                }
+                if (right != null) {
+                    if (childrenVisible && visibleNodes < maximalNodes) {
+                        box.right = new Box(right.getText());
+                        nextNodes.add(right);
+                        nextBoxes.add(box.right);
+                        visibleNodes++;
+                    } else {
+                        box.rightTruncated = true;
+                    }
+                }
+            }
+
+            nodes = nextNodes;
+            boxes = nextBoxes;
+        }
+
+        return levels;
+    }
+
+    /**
+     * Gives every printed node its columns in inorder, leaving one column
+     * between neighbouring nodes.
+     *
+     * @return The width of the graph.
+     */
+    private static int placeInColumns(Box root) {
+        Deque<Box> path = new ArrayDeque<>();
+        Box box = root;
+        int column = 0;
+
+        while (box != null || !path.isEmpty()) {
+            while (box != null) {
+                path.push(box);
+                box = box.left;
+            }
+
+            box = path.pop();
+            box.column = column;
+            column += box.text.length() + 1;
+            box = box.right;
+        }
+
+        return column;
+    }
+
+    /**
+     * Draws the edges from {@code box} to its printed children and the
+     * truncation mark for the ones which are left out.
+     *
+     * @return Whether something was drawn.
+     */
+    private static boolean drawEdges(Box box, char[] line) {
+        int center = box.center();
+
+        if (box.left != null) {
+            int leftCenter = box.left.center();
+
+            line[leftCenter] = '┌';
+            Arrays.fill(line, leftCenter + 1, center, '─');
+        }
+        if (box.right != null) {
+            int rightCenter = box.right.center();
+
+            Arrays.fill(line, center + 1, rightCenter, '─');
+            line[rightCenter] = '┐';
+        }
+
+        if (box.left != null && box.right != null) {
+            line[center] = '┴';
+        } else if (box.left != null) {
+            line[center] = '┘';
+            // The left child is chosen first, so only the right one can be
+            // left out alone. The column after the center is still under the
+            // text of the node or the space after it.
+            if (box.rightTruncated) {
+                line[center + 1] = TRUNCATION_MARK;
+            }
+        } else if (box.right != null) {
+            line[center] = '└';
+        } else if (box.leftTruncated || box.rightTruncated) {
+            line[center] = TRUNCATION_MARK;
+        } else {
+            return false;
+        }
+
+        return true;
+    }
+
+    private static void appendLine(char[] line, Appendable output) throws IOException {
+        int length = line.length;
+
+        while (length > 0 && line[length - 1] == ' ') {
+            length--;
+        }
+
+        output.append(new String(line, 0, length)).append('\n');
+    }
+}
@@ -5,18 +5,36 @@
  */
 package lights.digital.masterclass.tree.twonode;
 
+import lights.digital.masterclass.tree.BulkLoadableTree;
+import lights.digital.masterclass.tree.NavigableTree;
+import lights.digital.masterclass.tree.OrderStatisticTree;
 import lights.digital.masterclass.tree.Traversal;
 import lights.digital.masterclass.tree.Tree;
 import lights.digital.masterclass.tree.balanced.redblack.color.Color;
 import lights.digital.masterclass.tree.exceptions.NodeNotChildOfItsParentException;
 import lights.digital.masterclass.tree.print.PrintableNode;
 import lights.digital.masterclass.tree.print.pretty.PrettyPrintable;
+import lights.digital.masterclass.tree.print.pretty.PrettyPrinter;
 import lights.digital.masterclass.tree.twonode.binary.BinaryTree;
 import org.apache.log4j.Logger;
 
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
 
 
 /**
@@ -27,7 +45,7 @@ import java.util.List;
  *            implementing the interface Comparable.
  */
 public abstract class AbstractBinaryTree<T extends Comparable<T>>
-        implements Tree<T>, PrettyPrintable {
+        implements OrderStatisticTree<T>, NavigableTree<T>, BulkLoadableTree<T>, PrettyPrintable {
 
     /**
      * A reference to the root of the current tree.
@@ -41,9 +59,42 @@ public abstract class AbstractBinaryTree<T extends Comparable<T>>
 
     /**
      * A log4j logger for logging information about thrown exceptions,
-     * added new elements to the tree and erased ones.
+     * added new elements to the tree and erased ones. It is shared by all
+     * trees, so creating a tree does not look up the logger again. The
+     * messages about single insertions and erasures are logged on the
+     * debug level and only built when that level is enabled.
      */
-    protected Logger logger = Logger.getLogger(BinaryTree.class);
+    protected static final Logger logger = Logger.getLogger(AbstractBinaryTree.class);
+
+    /**
+     * The epoch of the changes which are being made now. Every call of
+     * {@link #openSnapshot()} starts a new one. It is used only by the
+     * thread which changes the tree.
+     */
+    private long epoch = 0L;
+
+    /**
+     * The epochs of the open snapshots or null if no snapshot has been
+     * opened yet, so trees without snapshots do not pay for the set.
+     */
+    private volatile ConcurrentSkipListSet<Long> openSnapshotEpochs;
+
+    private static final Long NO_EPOCH = Long.MIN_VALUE;
+
+    private static final VarHandle DATA;
+    private static final VarHandle LEFT_CHILD;
+    private static final VarHandle RIGHT_CHILD;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            DATA = lookup.findVarHandle(BinaryTreeNode.class, "data", Comparable.class);
+            LEFT_CHILD = lookup.findVarHandle(BinaryTreeNode.class, "leftChild", BinaryTreeNode.class);
+            RIGHT_CHILD = lookup.findVarHandle(BinaryTreeNode.class, "rightChild", BinaryTreeNode.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     /**
      * Simple method which checks whether a given argument
@@ -66,6 +117,18 @@ public abstract class AbstractBinaryTree<T extends Comparable<T>>
         }
     }
 
+    /**
+     * A search from the root visits at most {@link #height()} nodes. One
+     * which visits more has followed links changed during it by another
+     * thread (as an optimistic read does) and is stopped with this exception
+     * instead of looping.
+     *
+     * @return The exception which a search that went too deep should throw.
+     */
+    protected static ConcurrentModificationException changedDuringSearch() {
+        return new ConcurrentModificationException("The tree was changed during the search.");
+    }
+
     /**
      * Simple implementation of every node in the Binary based tree.
      *
@@ -99,6 +162,27 @@ public abstract class AbstractBinaryTree<T extends Comparable<T>>
          */
         public Color color;
 
+        /**
+         * The number of nodes on the longest path from the current node
+         * down to a leaf (a leaf has height 1). It is kept up to date by
+         * every insertion, erasure and rotation.
+         */
+        public int height;
+
+        /**
+         * The number of nodes in the subtree rooted at the current node.
+         * It is kept up to date together with {@code height}.
+         */
+        public int subtreeSize;
+
+        /**
+         * The values of data and of the children before their first change
+         * in each of the latest epochs, newest first, or null if no open
+         * snapshot needs them. The parent, the color and the cached
+         * height and size are not kept, because snapshots do not use them.
+         */
+        volatile NodeVersion<T> history;
+
         public BinaryTreeNode(final T data) {
             this(data, null, null);
         }
@@ -110,6 +194,23 @@ public abstract class AbstractBinaryTree<T extends Comparable<T>>
             this.rightChild = rightChild;
             this.parent = null;
             this.color = Color.BLACK;
+            this.height = 1 + Math.max(height(leftChild), height(rightChild));
+            this.subtreeSize = 1 + subtreeSize(leftChild) + subtreeSize(rightChild);
+        }
+
+        /**
+         * @return The number of nodes in the subtree of {@code node}
+         * or 0 if it is null.
+         */
+        public static int subtreeSize(final BinaryTreeNode<?> node) {
+            return node == null ? 0 : node.subtreeSize;
+        }
+
+        /**
+         * @return The height of {@code node} or 0 if it is null.
+         */
+        public static int height(final BinaryTreeNode<?> node) {
+            return node == null ? 0 : node.height;
         }
 
         /**
@@ -144,252 +245,619 @@ public abstract class AbstractBinaryTree<T extends Comparable<T>>
         }
     }
 
-    @Override
-    public void clear() {
-        this.size = 0;
-        this.root = null;
+    /**
+     * The values of a node before its first change in a given epoch.
+     */
+    private static final class NodeVersion<T extends Comparable<T>> {
 
-        logger.warn("Cleared the whole tree.");
+        private final long epoch;
+        private final T data;
+        private final BinaryTreeNode<T> leftChild;
+        private final BinaryTreeNode<T> rightChild;
+
+        /**
+         * The version from an earlier epoch or null if it is not needed.
+         */
+        private final NodeVersion<T> older;
+
+        private NodeVersion(long epoch, T data, BinaryTreeNode<T> leftChild,
+                            BinaryTreeNode<T> rightChild, NodeVersion<T> older) {
+            this.epoch = epoch;
+            this.data = data;
+            this.leftChild = leftChild;
+            this.rightChild = rightChild;
+            this.older = older;
+        }
     }
 
-    @Override
-    public boolean empty() {
-        return this.root == null;
+    /**
+     * Keeps the current data and children of {@code node} for the open
+     * snapshots, unless they are already kept for the current epoch. It
+     * has to be called before each change of them.
+     */
+    private void keepVersion(BinaryTreeNode<T> node) {
+        ConcurrentSkipListSet<Long> openEpochs = this.openSnapshotEpochs;
+        if (openEpochs == null) {
+            return;
+        }
+
+        NodeVersion<T> history = node.history;
+        Long oldestOpenEpoch = openEpochs.ceiling(NO_EPOCH);
+
+        if (oldestOpenEpoch == null) {
+            if (history != null) {
+                node.history = null;
+            }
+        } else if (history == null || history.epoch != this.epoch) {
+            // The versions from the epochs up to the oldest open snapshot
+            // are not needed any more, and all the older ones come after them.
+            NodeVersion<T> older = history != null && history.epoch > oldestOpenEpoch ? history : null;
+            node.history = new NodeVersion<>(this.epoch, node.data, node.leftChild, node.rightChild, older);
+        }
     }
 
-    @Override
-    public int size() {
-        return this.size;
+    /**
+     * Sets the data of {@code node}, keeping the old value for the open snapshots.
+     */
+    protected final void setData(BinaryTreeNode<T> node, T data) {
+        keepVersion(node);
+        DATA.setRelease(node, data);
+    }
+
+    /**
+     * Sets the left child of {@code node}, keeping the old one for the open snapshots.
+     */
+    protected final void setLeftChild(BinaryTreeNode<T> node, BinaryTreeNode<T> leftChild) {
+        keepVersion(node);
+        LEFT_CHILD.setRelease(node, leftChild);
+    }
+
+    /**
+     * Sets the right child of {@code node}, keeping the old one for the open snapshots.
+     */
+    protected final void setRightChild(BinaryTreeNode<T> node, BinaryTreeNode<T> rightChild) {
+        keepVersion(node);
+        RIGHT_CHILD.setRelease(node, rightChild);
+    }
+
+    /**
+     * Recomputes the cached height and subtree size of {@code node} and of
+     * all its ancestors from the ones of their children. It should be
+     * called with the lowest node whose children have changed.
+     *
+     * @param node The lowest changed node, may be null.
+     */
+    protected void updateSubtreeInfoUpwards(BinaryTreeNode<T> node) {
+        while (node != null) {
+            node.height = 1 + Math.max(BinaryTreeNode.height(node.leftChild),
+                    BinaryTreeNode.height(node.rightChild));
+            node.subtreeSize = 1 + BinaryTreeNode.subtreeSize(node.leftChild)
+                    + BinaryTreeNode.subtreeSize(node.rightChild);
+            node = node.parent;
+        }
+    }
+
+    /**
+     * Puts {@code newChild} in the place of {@code oldChild} under {@code parent}.
+     *
+     * @param parent   The parent of {@code oldChild} or null if {@code oldChild}
+     *                 is the root.
+     * @param oldChild The node which is being replaced.
+     * @param newChild The node which takes its place, may be null.
+     * @throws NodeNotChildOfItsParentException If {@code oldChild} is not a child
+     *                                          of {@code parent}.
+     */
+    protected void replaceParentsChild(BinaryTreeNode<T> parent,
+                                       BinaryTreeNode<T> oldChild,
+                                       BinaryTreeNode<T> newChild) {
+
+        if (parent == null) {
+            root = newChild;
+        } else if (parent.leftChild == oldChild) {
+            setLeftChild(parent, newChild);
+        } else if (parent.rightChild == oldChild) {
+            setRightChild(parent, newChild);
+        } else {
+            logger.error("The current node is not a child of its parent.");
+
+            throw new NodeNotChildOfItsParentException("Node is not a child of its parent");
+        }
+
+        if (newChild != null) {
+            newChild.parent = parent;
+        }
     }
 
     @Override
-    public void prettyPrint() {
+    public void buildFromSorted(Iterator<? extends T> sortedValues) {
+        rebuild(BulkLoadableTree.sortedDistinctValues(sortedValues));
+
+        logger.info("Built the current tree from " + this.size + " sorted values.");
+    }
+
+    /**
+     * Replaces all elements of the current tree with {@code values}.
+     *
+     * @param values Distinct values in ascending order.
+     */
+    private void rebuild(List<T> values) {
+        this.root = buildBalancedSubtree(values, 0, values.size() - 1,
+                0, levelOfRedNodesAfterBulkLoading(values.size()));
+        this.size = values.size();
+    }
+
+    /**
+     * Builds a perfectly balanced subtree from the values with indices in
+     * {@code [low, high]}, whose middle value becomes the root.
+     *
+     * @param level    The depth of the subtree root in the whole tree.
+     * @param redLevel The depth whose nodes are colored red.
+     * @return The root of the new subtree or null if the range is empty.
+     */
+    private BinaryTreeNode<T> buildBalancedSubtree(List<T> values, int low, int high,
+                                                   int level, int redLevel) {
+        if (low > high) {
+            return null;
+        }
 
-        List<List<String>> lines = new ArrayList<>();
+        int middle = (low + high) >>> 1;
 
-        List<PrintableNode> level = new ArrayList<>();
-        List<PrintableNode> next = new ArrayList<>();
+        BinaryTreeNode<T> leftSubtree = buildBalancedSubtree(values, low, middle - 1,
+                level + 1, redLevel);
+        BinaryTreeNode<T> rightSubtree = buildBalancedSubtree(values, middle + 1, high,
+                level + 1, redLevel);
+        BinaryTreeNode<T> node = new BinaryTreeNode<>(values.get(middle),
+                leftSubtree, rightSubtree);
 
-        level.add(root);
-        int nn = 1;
+        if (leftSubtree != null) {
+            leftSubtree.parent = node;
+        }
+        if (rightSubtree != null) {
+            rightSubtree.parent = node;
+        }
+        if (level == redLevel) {
+            node.color = Color.RED;
+        }
 
-        int widest = 0;
+        return node;
+    }
 
-        while (nn != 0) {
-            List<String> line = new ArrayList<>();
+    /**
+     * A perfectly balanced tree built from sorted values has all levels full
+     * except maybe the deepest one. Trees which care about colors can color
+     * that level red, so all paths have the same number of black nodes.
+     *
+     * @param size The number of values in the tree.
+     * @return The depth (the root has depth 0) whose nodes should be colored
+     * red after bulk loading or -1 if all nodes stay black.
+     */
+    protected int levelOfRedNodesAfterBulkLoading(int size) {
+        return -1;
+    }
 
-            nn = 0;
+    /**
+     * @return The positions of the values in {@code batch} in ascending order
+     * of the values, where equal values keep the order they were given in.
+     */
+    private static <T extends Comparable<T>> Integer[] sortedOrder(List<T> batch) {
+        Integer[] order = new Integer[batch.size()];
+        boolean ascending = true;
 
-            for (PrintableNode n : level) {
-                if (n == null) {
-                    line.add(null);
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+            ascending = ascending && (i == 0 || batch.get(i - 1).compareTo(batch.get(i)) <= 0);
+        }
 
-                    next.add(null);
-                    next.add(null);
-                } else {
-                    String aa = n.getText();
-                    line.add(aa);
-                    if (aa.length() > widest) {
-                        widest = aa.length();
-                    }
+        // Batches which are already sorted are common, and checking it is cheap.
+        if (!ascending) {
+            Arrays.sort(order, (first, second) -> batch.get(first).compareTo(batch.get(second)));
+        }
 
-                    next.add(n.getLeft());
-                    next.add(n.getRight());
+        return order;
+    }
 
-                    if (n.getLeft() != null) {
-                        nn++;
-                    }
-                    if (n.getRight() != null) {
-                        nn++;
-                    }
-                }
+    /**
+     * Rebuilding the tree makes a new node for every element, so it pays
+     * off only for a batch about as large as the tree. A smaller batch is
+     * applied along the finger path, which changes only the nodes of its keys.
+     *
+     * @return True if a batch of {@code batchSize} values is better merged.
+     */
+    private boolean mergingIsCheaper(int batchSize) {
+        return batchSize >= this.size;
+    }
+
+    /**
+     * The path from the root to the node where the last search stopped, with
+     * an exclusive upper bound of the keys in the subtree of every node on
+     * it. A search for a key which is not less than the previous one starts
+     * from the lowest node whose subtree can hold it instead of from the root.
+     * After a change of the tree {@link #repair()} keeps the part of the path
+     * which the change has not moved.
+     */
+    private final class Finger {
+
+        private final List<BinaryTreeNode<T>> path = new ArrayList<>();
+
+        /**
+         * The upper bound of every node on the path or null if there is none.
+         */
+        private final List<T> upperBounds = new ArrayList<>();
+
+        /**
+         * @param key A value which is not less than the one of the previous call.
+         * @return True if {@code key} is in the tree.
+         */
+        boolean find(T key) {
+            int last = path.size() - 1;
+
+            while (last >= 0 && upperBounds.get(last) != null
+                    && key.compareTo(upperBounds.get(last)) >= 0) {
+                path.remove(last);
+                upperBounds.remove(last);
+                last--;
             }
 
-            if (widest % 2 == 1) {
-                widest++;
+            if (last < 0) {
+                if (root == null) {
+                    return false;
+                }
+
+                path.add(root);
+                upperBounds.add(null);
+                last = 0;
             }
 
-            lines.add(line);
+            BinaryTreeNode<T> node = path.get(last);
+            T upperBound = upperBounds.get(last);
 
-            List<PrintableNode> tmp = level;
-            level = next;
-            next = tmp;
-            next.clear();
-        }
+            while (true) {
+                if (path.size() > height()) {
+                    throw changedDuringSearch();
+                }
 
-        int perpiece = lines.get(lines.size() - 1).size() * (widest + 4);
-        for (int i = 0; i < lines.size(); i++) {
-            List<String> line = lines.get(i);
-            int hpw = (int) Math.floor(perpiece / 2f) - 1;
+                int comparison = key.compareTo(node.data);
 
-            if (i > 0) {
-                for (int j = 0; j < line.size(); j++) {
+                if (comparison == 0) {
+                    return true;
+                }
 
-                    // split node
-                    char c = ' ';
-                    if (j % 2 == 1) {
-                        if (line.get(j - 1) != null) {
-                            c = (line.get(j) != null) ? '┴' : '┘';
-                        } else {
-                            if (j < line.size() && line.get(j) != null) c = '└';
-                        }
-                    }
-                    System.out.print(c);
-
-                    // lines and spaces
-                    if (line.get(j) == null) {
-                        for (int k = 0; k < perpiece - 1; k++) {
-                            System.out.print(" ");
-                        }
-                    } else {
-
-                        for (int k = 0; k < hpw; k++) {
-                            System.out.print(j % 2 == 0 ? " " : "─");
-                        }
-                        System.out.print(j % 2 == 0 ? "┌" : "┐");
-                        for (int k = 0; k < hpw; k++) {
-                            System.out.print(j % 2 == 0 ? "─" : " ");
-                        }
-                    }
+                if (comparison < 0) {
+                    upperBound = node.data;
+                    node = node.leftChild;
+                } else {
+                    node = node.rightChild;
+                }
+
+                if (node == null) {
+                    return false;
                 }
-                System.out.println();
+
+                path.add(node);
+                upperBounds.add(upperBound);
+            }
+        }
+
+        /**
+         * @return The node where the last search stopped, which holds its
+         * key or would be the parent of it, or null if the tree is empty.
+         */
+        BinaryTreeNode<T> last() {
+            return path.isEmpty() ? null : path.get(path.size() - 1);
+        }
+
+        /**
+         * Cuts the path at the first node which is no longer a child of the
+         * node before it (because of a rotation or a removal) and recomputes
+         * the upper bounds of the rest, as an erasure may replace the key of
+         * a node on it. The keys do not need to be compared for that.
+         */
+        void repair() {
+            if (path.isEmpty()) {
+                return;
             }
 
-            // print line of numbers
-            for (int j = 0; j < line.size(); j++) {
+            int valid = path.get(0) == root ? 1 : 0;
 
-                String f = line.get(j);
-                if (f == null) f = "";
-                int gap1 = (int) Math.ceil(perpiece / 2f - f.length() / 2f);
-                int gap2 = (int) Math.floor(perpiece / 2f - f.length() / 2f);
+            while (valid > 0 && valid < path.size()) {
+                BinaryTreeNode<T> parent = path.get(valid - 1);
+                BinaryTreeNode<T> node = path.get(valid);
 
-                // a number
-                for (int k = 0; k < gap1; k++) {
-                    System.out.print(" ");
-                }
-                System.out.print(f);
-                for (int k = 0; k < gap2; k++) {
-                    System.out.print(" ");
+                if (parent.leftChild == node) {
+                    upperBounds.set(valid, parent.data);
+                } else if (parent.rightChild == node) {
+                    upperBounds.set(valid, upperBounds.get(valid - 1));
+                } else {
+                    break;
                 }
+                valid++;
             }
-            System.out.println();
 
-            perpiece /= 2;
+            path.subList(valid, path.size()).clear();
+            upperBounds.subList(valid, upperBounds.size()).clear();
         }
     }
 
+    /**
+     * Sorts {@code keys} and looks them up in ascending order, so each
+     * search continues from the path of the previous one.
+     */
     @Override
-    public StringBuilder text(Traversal traversal) {
-        if (traversal == null) {
-            logger.error("The value of argument traversal in method text is null.");
-            throw new IllegalArgumentException("The value of argument traversal " +
-                    "in method text in class BinaryTree should not be null!");
+    public BitSet containsAll(Iterable<? extends T> keys) {
+        List<T> batch = Tree.copyOfBatch(keys, "keys", "containsAll");
+        BitSet contained = new BitSet(batch.size());
+        Finger finger = new Finger();
+
+        for (int index : sortedOrder(batch)) {
+            if (finger.find(batch.get(index))) {
+                contained.set(index);
+            }
         }
 
-        StringBuilder result = new StringBuilder();
+        return contained;
+    }
 
-        switch (traversal) {
-            case INORDER -> printInorderTraversal(this.root, result);
-            case PREORDER -> printPreorderTraversal(this.root, result);
-            case POSTORDER -> printPostorderTraversal(this.root, result);
+    /**
+     * Sorts {@code values} and, if the batch is as large as the tree, merges
+     * it with the elements in one pass and rebuilds a balanced tree from the
+     * result. A smaller batch is inserted in ascending order, each value
+     * linked where the finger path of the previous one leads to it.
+     */
+    @Override
+    public BitSet insertAll(Iterable<? extends T> values) {
+        List<T> batch = Tree.copyOfBatch(values, "values", "insertAll");
+        BitSet inserted = new BitSet(batch.size());
+
+        if (batch.isEmpty()) {
+            return inserted;
+        }
+
+        Integer[] order = sortedOrder(batch);
+
+        if (!mergingIsCheaper(batch.size())) {
+            Finger finger = new Finger();
+
+            for (int index : order) {
+                T value = batch.get(index);
+
+                if (!finger.find(value)) {
+                    safeInsert(finger.last(), value);
+                    finger.repair();
+                    this.size++;
+                    inserted.set(index);
+                }
+            }
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("Inserted " + inserted.cardinality() + " of " + batch.size()
+                        + " values along the finger path.");
+            }
+
+            return inserted;
+        }
+
+        List<T> merged = new ArrayList<>(this.size + batch.size());
+        Iterator<T> elements = iterator();
+        T element = elements.hasNext() ? elements.next() : null;
+
+        for (int index : order) {
+            T value = batch.get(index);
+
+            while (element != null && element.compareTo(value) < 0) {
+                merged.add(element);
+                element = elements.hasNext() ? elements.next() : null;
+            }
+
+            // Skipping the values which are in the tree or earlier in the batch:
+            if ((element == null || element.compareTo(value) != 0)
+                    && (merged.isEmpty() || merged.get(merged.size() - 1).compareTo(value) != 0)) {
+                merged.add(value);
+                inserted.set(index);
+            }
+        }
+
+        while (element != null) {
+            merged.add(element);
+            element = elements.hasNext() ? elements.next() : null;
+        }
+
+        rebuild(merged);
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Inserted " + inserted.cardinality() + " of " + batch.size()
+                    + " values by merging them with the current tree.");
         }
 
-        return result;
+        return inserted;
     }
 
     /**
-     * Makes a string representation of {@code currentNode} after
-     * an inorder traversal and stores it in
-     * result.
-     *
-     * @param currentNode A reference to the tree we are traversing.
-     * @param result      The string representation ot {@code currentNode}
+     * Sorts {@code keys} and, if the batch is as large as the tree, keeps
+     * the elements which are not in it in one merged pass and rebuilds a
+     * balanced tree from them. A smaller batch is erased in ascending order,
+     * each key unlinked where the finger path of the previous one finds it.
      */
-    private void printInorderTraversal(BinaryTreeNode<T> currentNode,
-                                       StringBuilder result) {
-        if (currentNode == null) {
-            return;
+    @Override
+    public BitSet eraseAll(Iterable<? extends T> keys) {
+        List<T> batch = Tree.copyOfBatch(keys, "keys", "eraseAll");
+        BitSet erased = new BitSet(batch.size());
+
+        if (batch.isEmpty()) {
+            return erased;
+        }
+
+        Integer[] order = sortedOrder(batch);
+
+        if (!mergingIsCheaper(batch.size())) {
+            Finger finger = new Finger();
+
+            for (int index : order) {
+                T key = batch.get(index);
+
+                if (finger.find(key)) {
+                    safeErase(finger.last(), key);
+                    finger.repair();
+                    this.size--;
+                    erased.set(index);
+                }
+            }
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("Erased " + erased.cardinality() + " of " + batch.size()
+                        + " keys along the finger path.");
+            }
+
+            return erased;
+        }
+
+        List<T> kept = new ArrayList<>(this.size);
+        int position = 0;
+
+        for (T element : this) {
+            while (position < order.length && batch.get(order[position]).compareTo(element) < 0) {
+                position++;
+            }
+
+            // Only the first of several equal keys is reported as erased,
+            // the others are skipped together with the smaller keys above.
+            if (position < order.length && batch.get(order[position]).compareTo(element) == 0) {
+                erased.set(order[position]);
+                position++;
+            } else {
+                kept.add(element);
+            }
+        }
+
+        rebuild(kept);
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Erased " + erased.cardinality() + " of " + batch.size()
+                    + " keys by merging them with the current tree.");
         }
 
-        printInorderTraversal(currentNode.leftChild, result);
-        result.append(currentNode.data);
-        result.append(" ");
-        printInorderTraversal(currentNode.rightChild, result);
+        return erased;
+    }
+
+    @Override
+    public void clear() {
+        this.size = 0;
+        this.root = null;
+
+        logger.warn("Cleared the whole tree.");
+    }
+
+    @Override
+    public boolean empty() {
+        return this.root == null;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public void prettyPrint() {
+        PrettyPrinter.print(this.root);
     }
 
     /**
-     * Makes a string representation of {@code currentNode} after
-     * a postorder traversal and stores it in
-     * result.
+     * Prints the first {@code maximalDepth} levels of the current tree, but
+     * at most {@code maximalNodes} nodes, as a graph to {@code output}.
      *
-     * @param currentNode A reference to the tree we are traversing.
-     * @param result      The string representation ot {@code currentNode}
+     * @see PrettyPrinter#print(PrintableNode, Appendable, int, int)
      */
-    private void printPostorderTraversal(BinaryTreeNode<T> currentNode, StringBuilder result) {
-        if (currentNode == null) {
-            return;
+    public void prettyPrint(Appendable output, int maximalDepth, int maximalNodes) throws IOException {
+        PrettyPrinter.print(this.root, output, maximalDepth, maximalNodes);
+    }
+
+    /**
+     * Writes the nodes one by one while the tree is walked through the
+     * references to the parents, so neither the call stack nor the memory
+     * grows with the tree.
+     */
+    @Override
+    public void text(Traversal traversal, Appendable output) throws IOException {
+        if (traversal == null || output == null) {
+            logger.error("The value of argument traversal or output in method text is null.");
+            throw new IllegalArgumentException("The values of arguments traversal and output " +
+                    "in method text in class BinaryTree should not be null!");
         }
 
-        printInorderTraversal(currentNode.leftChild, result);
-        printInorderTraversal(currentNode.rightChild, result);
-        result.append(currentNode.data);
-        result.append(" ");
+        switch (traversal) {
+            case INORDER -> {
+                for (BinaryTreeNode<T> node = firstNode(this.root); node != null; node = successor(node)) {
+                    output.append(String.valueOf(node.data)).append(' ');
+                }
+            }
+            case PREORDER -> {
+                for (BinaryTreeNode<T> node = this.root; node != null; node = preorderSuccessor(node)) {
+                    output.append(String.valueOf(node.data)).append(' ');
+                }
+            }
+            case POSTORDER -> {
+                for (BinaryTreeNode<T> node = firstPostorderNode(this.root); node != null;
+                     node = postorderSuccessor(node)) {
+                    output.append(String.valueOf(node.data)).append(' ');
+                }
+            }
+        }
     }
 
     /**
-     * Makes a string representation of {@code currentNode} after
-     * a preorder traversal and stores it in
-     * result.
-     *
-     * @param currentNode A reference to the tree we are traversing.
-     * @param result      The string representation ot {@code currentNode}
+     * @param node A node of the current tree.
+     * @return The node after {@code node} in a preorder traversal or null
+     * if it is the last one.
      */
+    private BinaryTreeNode<T> preorderSuccessor(BinaryTreeNode<T> node) {
+        if (node.leftChild != null) {
+            return node.leftChild;
+        }
+        if (node.rightChild != null) {
+            return node.rightChild;
+        }
 
-    private void printPreorderTraversal(BinaryTreeNode<T> currentNode, StringBuilder result) {
-        if (currentNode == null) {
-            return;
+        // Going up to the first node with a right subtree which is not visited yet:
+        while (node.parent != null
+                && (node == node.parent.rightChild || node.parent.rightChild == null)) {
+            node = node.parent;
         }
 
-        result.append(currentNode.data);
-        result.append(" ");
-        printInorderTraversal(currentNode.leftChild, result);
-        printInorderTraversal(currentNode.rightChild, result);
+        return node.parent == null ? null : node.parent.rightChild;
     }
 
-
     /**
-     * A helper method to the getAllElements method.
-     *
-     * @param currentBinaryTreeNode         A reference to the tree we are checking.
-     * @param collectionOfAllElementsInTree The collection in which should be stored
-     *                                      the result.
+     * @param currentNode The root of a subtree.
+     * @return The first node of a postorder traversal of {@code currentNode},
+     * which is its deepest leftmost leaf.
      */
-    private void safeGetAllElements(BinaryTreeNode<T> currentBinaryTreeNode,
-                                    Collection<T> collectionOfAllElementsInTree) {
-        if (currentBinaryTreeNode == null) {
-            return;
+    private BinaryTreeNode<T> firstPostorderNode(BinaryTreeNode<T> currentNode) {
+        while (currentNode != null) {
+            if (currentNode.leftChild != null) {
+                currentNode = currentNode.leftChild;
+            } else if (currentNode.rightChild != null) {
+                currentNode = currentNode.rightChild;
+            } else {
+                return currentNode;
+            }
         }
 
-        collectionOfAllElementsInTree.add(currentBinaryTreeNode.data);
-        safeGetAllElements(currentBinaryTreeNode.leftChild, collectionOfAllElementsInTree);
-        safeGetAllElements(currentBinaryTreeNode.rightChild, collectionOfAllElementsInTree);
+        return null;
     }
 
     /**
-     * A helper method to the height without argument.
+     * @param node A node of the current tree.
+     * @return The node after {@code node} in a postorder traversal or null
+     * if it is the last one.
      */
-    private int height(BinaryTreeNode<T> currentNode) {
-        if (currentNode == null)
-            return 0;
-        else {
-            int leftHeight = height(currentNode.leftChild);
-            int rightHeight = height(currentNode.rightChild);
+    private BinaryTreeNode<T> postorderSuccessor(BinaryTreeNode<T> node) {
+        BinaryTreeNode<T> parent = node.parent;
 
-            if (leftHeight > rightHeight)
-                return (leftHeight + 1);
-            else
-                return (rightHeight + 1);
+        if (parent != null && node == parent.leftChild && parent.rightChild != null) {
+            return firstPostorderNode(parent.rightChild);
         }
+
+        return parent;
     }
 
     /**
@@ -401,34 +869,625 @@ public abstract class AbstractBinaryTree<T extends Comparable<T>>
      * @return Whether {@code key} is in {@code currentRoot} or not.
      */
     private boolean safeContainsKey(BinaryTreeNode<T> currentRoot, T key) {
-        if (currentRoot == null) {
-            return false;
-        }
+        int remainingSteps = height();
 
-        if (key == currentRoot.data) {
-            return true;
-        } else if (currentRoot.data.compareTo(key) > 0) {
-            return safeContainsKey(currentRoot.leftChild, key);
-        } else {
-            return safeContainsKey(currentRoot.rightChild, key);
+        while (currentRoot != null) {
+            if (--remainingSteps < 0) {
+                throw changedDuringSearch();
+            }
+            int comparison = key.compareTo(currentRoot.data);
+
+            if (comparison < 0) {
+                currentRoot = currentRoot.leftChild;
+            } else if (comparison > 0) {
+                currentRoot = currentRoot.rightChild;
+            } else {
+                return true;
+            }
         }
+
+        return false;
     }
 
 
+    /**
+     * @return The height of the current tree, which is cached in the root,
+     * so it takes constant time.
+     */
     @Override
     public int height() {
-        return height(this.root);
+        return BinaryTreeNode.height(this.root);
     }
 
+    /**
+     * Walks the live nodes, so it must not run while another thread changes
+     * the tree; {@link #openSnapshot()} gives a view which can.
+     */
     @Override
     public Collection<T> getAllElements() {
-        Collection<T> collectionOfAllElementsInTree = new ArrayList<>();
+        Collection<T> collectionOfAllElementsInTree = new ArrayList<>(this.size);
 
-        safeGetAllElements(root, collectionOfAllElementsInTree);
+        for (T element : this) {
+            collectionOfAllElementsInTree.add(element);
+        }
 
         return collectionOfAllElementsInTree;
     }
 
+    @Override
+    public Iterator<T> iterator() {
+        return new InorderIterator(firstNode(this.root), null);
+    }
+
+    /**
+     * Opens a snapshot of the current elements, which other threads can
+     * iterate while this tree keeps being changed. The changes do not wait
+     * for the readers: before a node is changed for the first time after
+     * the snapshot was opened, its old data and children are kept in the
+     * node, and the snapshot reads those instead. So each change costs at
+     * most one small allocation per changed node while snapshots are open
+     * and a single volatile read otherwise.
+     * <p>
+     * The snapshot has to be opened by the thread which changes the tree
+     * (or while nobody changes it), and closed when it is no longer needed,
+     * so that the kept versions can be dropped.
+     *
+     * @return A snapshot of the elements of the current tree.
+     */
+    public Snapshot openSnapshot() {
+        ConcurrentSkipListSet<Long> openEpochs = this.openSnapshotEpochs;
+        if (openEpochs == null) {
+            openEpochs = new ConcurrentSkipListSet<>();
+            this.openSnapshotEpochs = openEpochs;
+        }
+
+        Snapshot snapshot = new Snapshot(this.root, this.size, this.epoch);
+        openEpochs.add(this.epoch);
+        this.epoch++;
+
+        return snapshot;
+    }
+
+    /**
+     * The elements of a tree at the moment {@link #openSnapshot()} was called.
+     * It can be iterated by any number of threads at once.
+     */
+    public final class Snapshot implements Iterable<T>, AutoCloseable {
+
+        private final BinaryTreeNode<T> root;
+
+        private final int size;
+
+        /**
+         * The epoch before which the snapshot was opened, so the versions
+         * it needs are the ones kept in any later epoch.
+         */
+        private final long epoch;
+
+        private volatile boolean closed = false;
+
+        private Snapshot(BinaryTreeNode<T> root, int size, long epoch) {
+            this.root = root;
+            this.size = size;
+            this.epoch = epoch;
+        }
+
+        /**
+         * @return The version of {@code node} at the time of the snapshot
+         * or null if it has not been changed since then.
+         */
+        private NodeVersion<T> versionOf(BinaryTreeNode<T> node) {
+            NodeVersion<T> version = null;
+
+            for (NodeVersion<T> older = node.history; older != null && older.epoch > this.epoch;
+                 older = older.older) {
+                version = older;
+            }
+
+            return version;
+        }
+
+        // The current value is read before the history, so a value written
+        // after the snapshot was opened is always found kept in the history.
+        @SuppressWarnings("unchecked")
+        private T dataOf(BinaryTreeNode<T> node) {
+            T data = (T) DATA.getAcquire(node);
+            NodeVersion<T> version = versionOf(node);
+            return version == null ? data : version.data;
+        }
+
+        @SuppressWarnings("unchecked")
+        private BinaryTreeNode<T> leftChildOf(BinaryTreeNode<T> node) {
+            BinaryTreeNode<T> leftChild = (BinaryTreeNode<T>) LEFT_CHILD.getAcquire(node);
+            NodeVersion<T> version = versionOf(node);
+            return version == null ? leftChild : version.leftChild;
+        }
+
+        @SuppressWarnings("unchecked")
+        private BinaryTreeNode<T> rightChildOf(BinaryTreeNode<T> node) {
+            BinaryTreeNode<T> rightChild = (BinaryTreeNode<T>) RIGHT_CHILD.getAcquire(node);
+            NodeVersion<T> version = versionOf(node);
+            return version == null ? rightChild : version.rightChild;
+        }
+
+        /**
+         * @return The number of elements in the snapshot.
+         */
+        public int size() {
+            return this.size;
+        }
+
+        /**
+         * @return All elements of the snapshot in ascending order.
+         * @throws IllegalStateException If the snapshot has been closed.
+         */
+        public Collection<T> getAllElements() {
+            Collection<T> elements = new ArrayList<>(this.size);
+
+            for (T element : this) {
+                elements.add(element);
+            }
+
+            return elements;
+        }
+
+        /**
+         * @return An iterator over the elements in ascending order, which
+         * walks down from the root with a stack, since the parent links are
+         * not kept for the snapshots. Its next() throws
+         * IllegalStateException once the snapshot has been closed.
+         */
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<>() {
+
+                private final Deque<BinaryTreeNode<T>> path = new ArrayDeque<>();
+
+                {
+                    pushLeftPath(Snapshot.this.root);
+                }
+
+                private void pushLeftPath(BinaryTreeNode<T> node) {
+                    while (node != null) {
+                        path.push(node);
+                        node = leftChildOf(node);
+                    }
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return !path.isEmpty();
+                }
+
+                @Override
+                public T next() {
+                    if (closed) {
+                        throw new IllegalStateException("The snapshot has been closed!");
+                    }
+                    if (path.isEmpty()) {
+                        throw new NoSuchElementException();
+                    }
+
+                    BinaryTreeNode<T> node = path.pop();
+                    pushLeftPath(rightChildOf(node));
+
+                    return dataOf(node);
+                }
+            };
+        }
+
+        /**
+         * Closes the snapshot, so the versions kept only for it can be dropped
+         * by the later changes. Closing it again has no effect.
+         */
+        @Override
+        public void close() {
+            if (!this.closed) {
+                this.closed = true;
+                openSnapshotEpochs.remove(this.epoch);
+            }
+        }
+    }
+
+    /**
+     * @return A spliterator which splits by handing off the left subtree of
+     * its current subtree root, so a balanced tree is split in (almost)
+     * halves and parallel streams scale. The sizes of the parts are exact,
+     * because they are computed from the cached subtree sizes.
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+        return new TreeSpliterator(firstNode(this.root), null, this.root, this.size);
+    }
+
+
+    @Override
+    public int rank(T key) {
+        validationOfArgumentInMethods(key, "key", "rank");
+
+        BinaryTreeNode<T> currentNode = this.root;
+        int rank = 0;
+
+        while (currentNode != null) {
+            int comparison = key.compareTo(currentNode.data);
+
+            if (comparison < 0) {
+                currentNode = currentNode.leftChild;
+            } else if (comparison > 0) {
+                // Everything in the left subtree and the current node are smaller:
+                rank += BinaryTreeNode.subtreeSize(currentNode.leftChild) + 1;
+                currentNode = currentNode.rightChild;
+            } else {
+                return rank + BinaryTreeNode.subtreeSize(currentNode.leftChild);
+            }
+        }
+
+        return rank;
+    }
+
+    @Override
+    public T select(int index) {
+        if (index < 0 || index >= this.size) {
+            logger.error("The value of index in method select is " + index
+                    + ", but the tree has " + this.size + " elements.");
+            throw new IllegalArgumentException("The value of argument index in method "
+                    + "select should be between 0 and " + (this.size - 1) + "!");
+        }
+
+        BinaryTreeNode<T> currentNode = this.root;
+
+        while (true) {
+            int leftSize = BinaryTreeNode.subtreeSize(currentNode.leftChild);
+
+            if (index < leftSize) {
+                currentNode = currentNode.leftChild;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                currentNode = currentNode.rightChild;
+            } else {
+                return currentNode.data;
+            }
+        }
+    }
+
+    @Override
+    public T first() {
+        BinaryTreeNode<T> firstNode = firstNode(this.root);
+
+        return firstNode == null ? null : firstNode.data;
+    }
+
+    @Override
+    public T last() {
+        BinaryTreeNode<T> currentNode = this.root;
+
+        if (currentNode == null) {
+            return null;
+        }
+
+        int remainingSteps = height();
+
+        while (currentNode.rightChild != null) {
+            if (--remainingSteps <= 0) {
+                throw changedDuringSearch();
+            }
+            currentNode = currentNode.rightChild;
+        }
+
+        return currentNode.data;
+    }
+
+    @Override
+    public T floor(T key) {
+        validationOfArgumentInMethods(key, "key", "floor");
+
+        return dataOrNull(floorNode(key, true));
+    }
+
+    @Override
+    public T ceiling(T key) {
+        validationOfArgumentInMethods(key, "key", "ceiling");
+
+        return dataOrNull(ceilingNode(key, true));
+    }
+
+    @Override
+    public T lower(T key) {
+        validationOfArgumentInMethods(key, "key", "lower");
+
+        return dataOrNull(floorNode(key, false));
+    }
+
+    @Override
+    public T higher(T key) {
+        validationOfArgumentInMethods(key, "key", "higher");
+
+        return dataOrNull(ceilingNode(key, false));
+    }
+
+    @Override
+    public Iterable<T> subRange(T fromKey, T toKey) {
+        validationOfArgumentInMethods(fromKey, "fromKey", "subRange");
+        validationOfArgumentInMethods(toKey, "toKey", "subRange");
+
+        if (fromKey.compareTo(toKey) > 0) {
+            logger.error("The value of fromKey in method subRange is greater than toKey.");
+            throw new IllegalArgumentException("The value of argument fromKey in method "
+                    + "subRange cannot be greater than toKey!");
+        }
+
+        return () -> new InorderIterator(ceilingNode(fromKey, true), toKey);
+    }
+
+    private T dataOrNull(BinaryTreeNode<T> node) {
+        return node == null ? null : node.data;
+    }
+
+    /**
+     * @return The leftmost node of the subtree of {@code currentNode}
+     * or null if it is empty.
+     */
+    protected BinaryTreeNode<T> firstNode(BinaryTreeNode<T> currentNode) {
+        if (currentNode == null) {
+            return null;
+        }
+
+        int remainingSteps = height();
+
+        while (currentNode.leftChild != null) {
+            if (--remainingSteps <= 0) {
+                throw changedDuringSearch();
+            }
+            currentNode = currentNode.leftChild;
+        }
+
+        return currentNode;
+    }
+
+    /**
+     * Finds the node which comes after {@code node} in ascending order by
+     * following the parent links, in amortized constant time.
+     *
+     * @return The in-order successor of {@code node} or null if it is the last node.
+     */
+    protected BinaryTreeNode<T> successor(BinaryTreeNode<T> node) {
+        if (node.rightChild != null) {
+            return firstNode(node.rightChild);
+        }
+
+        // Go up until we come from a left subtree:
+        BinaryTreeNode<T> parent = node.parent;
+        while (parent != null && node == parent.rightChild) {
+            node = parent;
+            parent = parent.parent;
+        }
+
+        return parent;
+    }
+
+    /**
+     * @param inclusive Whether a node with data equal to {@code key} is accepted.
+     * @return The node with the smallest data greater than (or equal to)
+     * {@code key} or null if there is none.
+     */
+    protected BinaryTreeNode<T> ceilingNode(T key, boolean inclusive) {
+        BinaryTreeNode<T> currentNode = this.root;
+        BinaryTreeNode<T> candidate = null;
+        int remainingSteps = height();
+
+        while (currentNode != null) {
+            if (--remainingSteps < 0) {
+                throw changedDuringSearch();
+            }
+
+            int comparison = key.compareTo(currentNode.data);
+
+            if (comparison < 0 || (comparison == 0 && inclusive)) {
+                candidate = currentNode;
+
+                if (comparison == 0) {
+                    return candidate;
+                }
+                currentNode = currentNode.leftChild;
+            } else {
+                currentNode = currentNode.rightChild;
+            }
+        }
+
+        return candidate;
+    }
+
+    /**
+     * @param inclusive Whether a node with data equal to {@code key} is accepted.
+     * @return The node with the largest data less than (or equal to)
+     * {@code key} or null if there is none.
+     */
+    protected BinaryTreeNode<T> floorNode(T key, boolean inclusive) {
+        BinaryTreeNode<T> currentNode = this.root;
+        BinaryTreeNode<T> candidate = null;
+        int remainingSteps = height();
+
+        while (currentNode != null) {
+            if (--remainingSteps < 0) {
+                throw changedDuringSearch();
+            }
+
+            int comparison = key.compareTo(currentNode.data);
+
+            if (comparison > 0 || (comparison == 0 && inclusive)) {
+                candidate = currentNode;
+
+                if (comparison == 0) {
+                    return candidate;
+                }
+                currentNode = currentNode.rightChild;
+            } else {
+                currentNode = currentNode.leftChild;
+            }
+        }
+
+        return candidate;
+    }
+
+    /**
+     * Walks the nodes in ascending order from a given node by following
+     * the parent links, so it needs constant extra memory.
+     */
+    private class InorderIterator implements Iterator<T> {
+
+        /**
+         * The node whose data will be returned by the next call of next().
+         */
+        private BinaryTreeNode<T> nextNode;
+
+        /**
+         * The exclusive upper bound of the iteration or null if there is none.
+         */
+        private final T toKey;
+
+        InorderIterator(BinaryTreeNode<T> firstNode, T toKey) {
+            this.toKey = toKey;
+            this.nextNode = firstNode;
+            skipIfOutOfRange();
+        }
+
+        private void skipIfOutOfRange() {
+            if (nextNode != null && toKey != null && nextNode.data.compareTo(toKey) >= 0) {
+                nextNode = null;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextNode != null;
+        }
+
+        @Override
+        public T next() {
+            if (nextNode == null) {
+                throw new NoSuchElementException();
+            }
+
+            T data = nextNode.data;
+            nextNode = successor(nextNode);
+            skipIfOutOfRange();
+
+            return data;
+        }
+    }
+
+    /**
+     * A spliterator over the nodes in {@code [current, fence)}. Before the
+     * traversal starts the range consists of the whole subtree of
+     * {@code splitRoot} preceded by at most one node, so it can be split
+     * at {@code splitRoot}: its left subtree (with the preceding node) is
+     * handed off and the current spliterator keeps {@code splitRoot} and its
+     * right subtree.
+     */
+    private final class TreeSpliterator implements Spliterator<T> {
+
+        /**
+         * The node whose data will be returned next.
+         */
+        private BinaryTreeNode<T> current;
+
+        /**
+         * The first node after the range or null if the range
+         * goes to the end of the tree.
+         */
+        private final BinaryTreeNode<T> fence;
+
+        /**
+         * The subtree which can still be split or null if the
+         * traversal has already started.
+         */
+        private BinaryTreeNode<T> splitRoot;
+
+        /**
+         * The exact number of remaining elements.
+         */
+        private long estimate;
+
+        TreeSpliterator(BinaryTreeNode<T> current, BinaryTreeNode<T> fence,
+                        BinaryTreeNode<T> splitRoot, long estimate) {
+            this.current = current;
+            this.fence = fence;
+            this.splitRoot = splitRoot;
+            this.estimate = estimate;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            BinaryTreeNode<T> splitNode = this.splitRoot;
+
+            if (splitNode == null || splitNode.leftChild == null) {
+                return null;
+            }
+
+            long rightSize = 1 + BinaryTreeNode.subtreeSize(splitNode.rightChild);
+            Spliterator<T> prefix = new TreeSpliterator(this.current, splitNode,
+                    splitNode.leftChild, this.estimate - rightSize);
+
+            this.current = splitNode;
+            this.splitRoot = splitNode.rightChild;
+            this.estimate = rightSize;
+
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+
+            if (this.current == null || this.current == this.fence) {
+                return false;
+            }
+
+            this.splitRoot = null;
+            action.accept(this.current.data);
+            this.current = successor(this.current);
+            this.estimate--;
+
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+
+            this.splitRoot = null;
+            BinaryTreeNode<T> node = this.current;
+
+            while (node != null && node != this.fence) {
+                action.accept(node.data);
+                node = successor(node);
+            }
+
+            this.current = node;
+            this.estimate = 0;
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.ORDERED
+                    | Spliterator.NONNULL | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            // The elements are sorted by their natural order.
+            return null;
+        }
+    }
 
     @Override
     public boolean contains(T key) {
@@ -439,14 +1498,29 @@ public abstract class AbstractBinaryTree<T extends Comparable<T>>
 
     /**
      * Insertion method which takes only guaranteed valid arguments.
+     * If {@code currentNode} is null the tree is empty and the new node
+     * becomes its root.
      *
      * @param currentNode The node to which should be added {@code value}.
      * @param value       The value which is to be added.
-     * @return The {@code currentNode} after adding {@code value} to it.
+     * @return The newly created node or null if {@code value} was
+     * already in the tree.
      * @throws NodeNotChildOfItsParentException If the current node
      *                                          becomes not a
      *                                          child of its parent.
      */
     protected abstract BinaryTreeNode<T> safeInsert(BinaryTreeNode<T> currentNode,
                                                     final T value);
+
+    /**
+     * Erasing method which takes only guaranteed valid arguments.
+     *
+     * @param currentNode The node from whose subtree {@code key} is removed.
+     * @param key         The value which is to be removed.
+     * @return True if {@code key} was in the subtree and has been removed.
+     * @throws NodeNotChildOfItsParentException If the current node
+     *                                          becomes not a
+     *                                          child of its parent.
+     */
+    protected abstract boolean safeErase(BinaryTreeNode<T> currentNode, final T key);
 }
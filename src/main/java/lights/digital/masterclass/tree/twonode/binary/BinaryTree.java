@@ -13,74 +13,107 @@ import lights.digital.masterclass.tree.twonode.AbstractBinaryTree;
  */
 public class BinaryTree<T extends Comparable<T>> extends AbstractBinaryTree<T> {
 
-    /**
-     * Adding the right subtree of a given tree to the left subtree.
-     */
-    protected BinaryTreeNode<T> mergeBinaryTrees(BinaryTreeNode<T> leftSubtree,
-                                                 BinaryTreeNode<T> rightSubtree) {
-        if (leftSubtree == null) {
-            return rightSubtree;
-        }
-
-        if (rightSubtree == null) {
-            return leftSubtree;
-        }
-
-        safeInsert(leftSubtree, rightSubtree.data);
-        mergeBinaryTrees(leftSubtree, rightSubtree.leftChild);
-        mergeBinaryTrees(leftSubtree, rightSubtree.rightChild);
-
-        return leftSubtree;
-    }
-
     /**
      * A helper method to the insert method, which guaranteed takes only
-     * valid arguments.
+     * valid arguments. It descends from {@code currentNode} with a single
+     * comparison per level and allocates nothing but the new node.
      *
      * @param currentNode A reference to the tree we are checking.
      * @param value       The value we are inserting to {@code currentNode}.
-     * @return {@code currentNode} after the insertion of {@code value}.
+     * @return The newly created node or null if {@code value} was
+     * already in the tree.
      */
     protected BinaryTreeNode<T> safeInsert(BinaryTreeNode<T> currentNode, T value) {
-        if (currentNode == null) {
-            return new BinaryTreeNode<>(value);
-        }
+        BinaryTreeNode<T> parent = null;
+        int comparison = 0;
 
-        if (currentNode.data.compareTo(value) > 0) {
-            currentNode.leftChild = safeInsert(currentNode.leftChild, value);
+        while (currentNode != null) {
+            comparison = value.compareTo(currentNode.data);
+
+            if (comparison == 0) {
+                return null;
+            }
+
+            parent = currentNode;
+            currentNode = comparison < 0 ? currentNode.leftChild : currentNode.rightChild;
         }
 
-        if (currentNode.data.compareTo(value) < 0) {
-            currentNode.rightChild = safeInsert(currentNode.rightChild, value);
+        BinaryTreeNode<T> newNode = new BinaryTreeNode<>(value);
+        newNode.parent = parent;
+
+        if (parent == null) {
+            this.root = newNode;
+        } else if (comparison < 0) {
+            setLeftChild(parent, newNode);
+        } else {
+            setRightChild(parent, newNode);
         }
 
-        return currentNode;
+        updateSubtreeInfoUpwards(parent);
+
+        return newNode;
     }
 
     /**
      * A helper method to the erase method, which guaranteed takes only
-     * valid arguments.
+     * valid arguments. A node with two children is replaced by its in-order
+     * successor, so the removal costs O(height) and only the links around
+     * the removed node and the successor change.
      *
      * @param currentNode A reference to the tree we are checking.
      * @param key         The value we are removing.
-     * @return {@code currentNode} after the removal of {@code key}.
+     * @return True if {@code key} was in the tree and has been removed.
      */
-    private BinaryTreeNode<T> safeErase(BinaryTreeNode<T> currentNode, T key) {
+    @Override
+    protected boolean safeErase(BinaryTreeNode<T> currentNode, T key) {
+        while (currentNode != null) {
+            int comparison = key.compareTo(currentNode.data);
+
+            if (comparison == 0) {
+                break;
+            }
+
+            currentNode = comparison < 0 ? currentNode.leftChild : currentNode.rightChild;
+        }
 
         if (currentNode == null) {
-            return null;
+            return false;
         }
 
-        if (currentNode.data == key) {
-            this.size--;
-            return mergeBinaryTrees(currentNode.leftChild, currentNode.rightChild);
-        } else if (currentNode.data.compareTo(key) > 0) {
-            currentNode.leftChild = safeErase(currentNode.leftChild, key);
+        // The lowest node whose children change:
+        BinaryTreeNode<T> lowestChangedNode = currentNode.parent;
+
+        if (currentNode.leftChild == null) {
+            replaceParentsChild(currentNode.parent, currentNode, currentNode.rightChild);
+        } else if (currentNode.rightChild == null) {
+            replaceParentsChild(currentNode.parent, currentNode, currentNode.leftChild);
         } else {
-            currentNode.rightChild = safeErase(currentNode.rightChild, key);
+            BinaryTreeNode<T> inOrderSuccessor = currentNode.rightChild;
+            while (inOrderSuccessor.leftChild != null) {
+                inOrderSuccessor = inOrderSuccessor.leftChild;
+            }
+
+            // The successor has no left child, so it can be cut out of the
+            // right subtree by linking its right child to its parent.
+            lowestChangedNode = inOrderSuccessor;
+
+            if (inOrderSuccessor.parent != currentNode) {
+                lowestChangedNode = inOrderSuccessor.parent;
+
+                replaceParentsChild(inOrderSuccessor.parent, inOrderSuccessor,
+                        inOrderSuccessor.rightChild);
+                setRightChild(inOrderSuccessor, currentNode.rightChild);
+                inOrderSuccessor.rightChild.parent = inOrderSuccessor;
+            }
+
+            replaceParentsChild(currentNode.parent, currentNode, inOrderSuccessor);
+            setLeftChild(inOrderSuccessor, currentNode.leftChild);
+            inOrderSuccessor.leftChild.parent = inOrderSuccessor;
         }
 
-        return currentNode;
+        updateSubtreeInfoUpwards(lowestChangedNode);
+
+        return true;
     }
 
     public BinaryTree() {
@@ -99,13 +132,14 @@ public class BinaryTree<T extends Comparable<T>> extends AbstractBinaryTree<T> {
         validationOfArgumentInMethods(value, "value", "insert");
 
         /// inserting the valid value to the current tree
-        this.root = safeInsert(this.root, value);
+        if (safeInsert(this.root, value) != null) {
+            /// If the insertion is valid we should notify the logger with this info
+            if (logger.isDebugEnabled()) {
+                logger.debug("Added the value: " + value + " to the current tree.");
+            }
 
-        /// If the insertion is valid we should notify the logger with this info
-        logger.info("Added the value: " + value + " to the current tree.");
-        /// If the value is already in the tree the message will be the same.
-
-        this.size += 1;
+            this.size += 1;
+        }
     }
 
     @Override
@@ -115,15 +149,19 @@ public class BinaryTree<T extends Comparable<T>> extends AbstractBinaryTree<T> {
 
         validationOfArgumentInMethods(key, "key", "erase");
 
-        root = safeErase(this.root, key);
+        if (safeErase(this.root, key)) {
+            this.size--;
+        }
 
         /// If the program has worked properly we should notify the logger for
-        /// the removal of the certain value.
-        logger.info("Removed value: " + key + "from current tree.");
-
-        /// If we are trying to remove a non-containing value we should warn the logger
-        if (sizeBeforeRemoval == this.size) {
-            logger.warn("Trying to remove a non-containing value from the current tree.");
+        /// the removal of the certain value. The message is built only when
+        /// somebody is listening on the debug level.
+        if (logger.isDebugEnabled()) {
+            if (sizeBeforeRemoval == this.size) {
+                logger.debug("Trying to remove a non-containing value from the current tree.");
+            } else {
+                logger.debug("Removed value: " + key + " from current tree.");
+            }
         }
     }
 }
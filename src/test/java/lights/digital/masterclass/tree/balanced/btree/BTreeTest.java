@@ -1,30 +1,466 @@
 package lights.digital.masterclass.tree.balanced.btree;
 
-import junit.framework.TestCase;
+import lights.digital.masterclass.tree.Traversal;
+import lights.digital.masterclass.tree.Tree;
+import lights.digital.masterclass.tree.factory.TreeFactory;
+import lights.digital.masterclass.tree.factory.TreeType;
+import lights.digital.masterclass.tree.io.KeyCodecs;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
-public class BTreeTest extends TestCase {
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
 
-    public void testContains() {
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BTreeTest {
+
+    private final Tree<Integer> bTree = TreeFactory.getInstance(TreeType.B_TREE, 10);
+
+    @BeforeEach
+    public void setUp() {
+        bTree.insert(9);
+        bTree.insert(8);
+        bTree.insert(7);
+        bTree.insert(13);
+        bTree.insert(11);
+        bTree.insert(19);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        bTree.clear();
+    }
+
+    @Test
+    public void minimumDegreeLessThanTwoShouldThrowExceptionTest() {
+        assertThrows(IllegalArgumentException.class,
+                () -> BTree.ofMinimumDegree(1));
+    }
+
+    @Test
+    public void containsWithNullKeyShouldThrowExceptionTest() {
+        assertThrows(IllegalArgumentException.class,
+                () -> bTree.contains(null));
+    }
+
+    @Test
+    public void containsTest() {
+        assertTrue(bTree.contains(10));
+        assertTrue(bTree.contains(7));
+        assertTrue(bTree.contains(19));
+        assertFalse(bTree.contains(30),
+                "The element 30 is not in the current tree and " +
+                        "the method contains should return false!");
+    }
+
+    @Test
+    public void insertWithNullValueShouldThrowExceptionTest() {
+        assertThrows(IllegalArgumentException.class,
+                () -> bTree.insert(null));
+    }
+
+    @Test
+    public void insertWithAlreadyContainingValueShouldNotChangeTreeTest() {
+        bTree.insert(9);
+
+        assertEquals(7, bTree.size());
+        assertEquals(7, bTree.getAllElements().size());
+    }
+
+    @Test
+    public void insertManyValuesShouldSplitNodesTest() {
+        BTree<Integer> localBTree = BTree.ofMinimumDegree(2);
+
+        for (int i = 0; i < 100; i++) {
+            localBTree.insert(i);
+        }
+
+        assertEquals(100, localBTree.size());
+        // A tree with minimum degree 2 and 100 keys has between
+        // log4(101) and log2(50.5) + 1 levels:
+        assertTrue(localBTree.height() >= 4 && localBTree.height() <= 6);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(localBTree.contains(i));
+        }
+    }
+
+    @Test
+    public void eraseWithNullKeyShouldThrowExceptionTest() {
+        assertThrows(IllegalArgumentException.class,
+                () -> bTree.erase(null));
+    }
+
+    @Test
+    public void eraseWithNonContainingValueShouldDoNothingTest() {
+        bTree.erase(30);
+
+        assertEquals(7, bTree.size());
     }
 
-    public void testInsert() {
+    @Test
+    public void eraseTest() {
+        bTree.erase(13);
+
+        assertFalse(bTree.contains(13));
+        assertEquals(6, bTree.size());
+        assertEquals("7 8 9 10 11 19 ", bTree.text(Traversal.INORDER).toString());
     }
 
-    public void testErase() {
+    @Test
+    public void eraseAllValuesShouldMakeTreeEmptyTest() {
+        BTree<Integer> localBTree = BTree.ofMinimumDegree(2);
+
+        for (int i = 0; i < 100; i++) {
+            localBTree.insert(i);
+        }
+        for (int i = 0; i < 100; i++) {
+            localBTree.erase(i);
+        }
+
+        assertTrue(localBTree.empty());
+        assertEquals(0, localBTree.size());
+        assertEquals(0, localBTree.height());
     }
 
-    public void testClear() {
+    @Test
+    public void randomInsertionsAndErasuresShouldMatchTreeSetTest() {
+        BTree<Integer> localBTree = BTree.ofMinimumDegree(3);
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            int value = random.nextInt(2_000);
+
+            if (random.nextBoolean()) {
+                localBTree.insert(value);
+                expected.add(value);
+            } else {
+                localBTree.erase(value);
+                expected.remove(value);
+            }
+        }
+
+        assertEquals(expected.size(), localBTree.size());
+        assertEquals(new ArrayList<>(expected), localBTree.getAllElements());
     }
 
-    public void testEmpty() {
+    @Test
+    public void clearTest() {
+        bTree.clear();
+
+        assertTrue(bTree.empty());
+        assertEquals(0, bTree.size());
+    }
+
+    @Test
+    public void emptyTest() {
+        assertFalse(bTree.empty());
     }
 
-    public void testSize() {
+    @Test
+    public void sizeTest() {
+        assertEquals(7, bTree.size());
     }
 
-    public void testHeight() {
+    @Test
+    public void heightTest() {
+        // All 7 values fit in the root node:
+        assertEquals(1, bTree.height());
+
+        bTree.clear();
+
+        assertEquals(0, bTree.height());
     }
 
-    public void testText() {
+    @Test
+    public void getAllElementsShouldReturnElementsInAscendingOrderTest() {
+        List<Integer> expected = List.of(7, 8, 9, 10, 11, 13, 19);
+
+        assertEquals(expected, bTree.getAllElements());
+    }
+
+    @Test
+    public void iteratorShouldReturnElementsInAscendingOrderTest() {
+        BTree<Integer> localBTree = BTree.ofMinimumDegree(2);
+        List<Integer> expected = new ArrayList<>();
+
+        for (int i = 0; i < 1_000; i++) {
+            localBTree.insert(999 - i);
+            expected.add(i);
+        }
+
+        List<Integer> elements = new ArrayList<>();
+        localBTree.forEach(elements::add);
+
+        assertEquals(expected, elements);
+        assertEquals(expected, localBTree.stream().toList());
+    }
+
+    @Test
+    public void iteratorWithEmptyTreeShouldHaveNoElementsTest() {
+        bTree.clear();
+
+        assertFalse(bTree.iterator().hasNext());
+    }
+
+    @Test
+    public void buildFromSortedShouldMakeTreeWithAllValuesTest() {
+        for (int minimumDegree = 2; minimumDegree <= 4; minimumDegree++) {
+            for (int numberOfElements = 0; numberOfElements <= 300; numberOfElements += 7) {
+                BTree<Integer> localBTree = BTree.ofMinimumDegree(minimumDegree);
+                List<Integer> values = new ArrayList<>();
+                for (int i = 0; i < numberOfElements; i++) {
+                    values.add(i);
+                }
+
+                localBTree.buildFromSorted(values.iterator());
+
+                assertEquals(numberOfElements, localBTree.size());
+                assertEquals(values, localBTree.getAllElements());
+
+                // All nodes should have enough keys to be erased one by one:
+                for (int i = 0; i < numberOfElements; i += 2) {
+                    localBTree.erase(i);
+                    values.remove(Integer.valueOf(i));
+                }
+                localBTree.insert(numberOfElements);
+                values.add(numberOfElements);
+
+                assertEquals(values, localBTree.getAllElements());
+            }
+        }
+    }
+
+    @Test
+    public void getInstanceFromSortedTest() {
+        Tree<Integer> localBTree = TreeFactory.getInstanceFromSorted(TreeType.B_TREE,
+                List.of(1, 2, 3, 4, 5).iterator());
+
+        assertEquals(5, localBTree.size());
+        assertEquals(1, localBTree.height());
+        assertTrue(localBTree.contains(4));
+    }
+
+    @Test
+    public void textTest() throws IOException {
+        BTree<Integer> localBTree = BTree.ofMinimumDegree(2);
+
+        for (int i = 1; i <= 4; i++) {
+            localBTree.insert(i);
+        }
+
+        // The tree is:
+        //        [2]
+        //   [1]      [3 4]
+        assertEquals("1 2 3 4 ", localBTree.text(Traversal.INORDER).toString());
+        assertEquals("2 1 3 4 ", localBTree.text(Traversal.PREORDER).toString());
+        assertEquals("1 3 4 2 ", localBTree.text(Traversal.POSTORDER).toString());
+        assertThrows(IllegalArgumentException.class, () -> localBTree.text(null));
+
+        StringWriter writer = new StringWriter();
+        localBTree.text(Traversal.POSTORDER, writer);
+        assertEquals("1 3 4 2 ", writer.toString());
+    }
+
+    /**
+     * @return The number of pages written in the meta page of {@code file}.
+     */
+    private static int pageCountInMetaPage(Path file) throws IOException {
+        return ByteBuffer.wrap(Files.readAllBytes(file)).getInt(8 * Integer.BYTES);
+    }
+
+    @Test
+    public void createWithVariableWidthCodecShouldThrowExceptionTest(@TempDir Path directory) {
+        assertThrows(IllegalArgumentException.class,
+                () -> BTree.create(directory.resolve("tree.db"), KeyCodecs.STRING, 2));
+    }
+
+    @Test
+    public void openWithFileOfOtherFormatShouldThrowExceptionTest(@TempDir Path directory) throws IOException {
+        Path file = Files.write(directory.resolve("tree.db"), new byte[100]);
+
+        assertThrows(IllegalArgumentException.class, () -> BTree.open(file, KeyCodecs.LONG));
+    }
+
+    @Test
+    public void reopenedTreeShouldHaveTheSameElementsTest(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("tree.db");
+        TreeSet<Long> expected = new TreeSet<>();
+        Random random = new Random(42);
+
+        BTree<Long> fileBTree = BTree.create(file, KeyCodecs.LONG, 3);
+        for (int i = 0; i < 5_000; i++) {
+            long value = random.nextInt(10_000);
+            fileBTree.insert(value);
+            expected.add(value);
+        }
+        fileBTree.close();
+
+        // Erasing from a partly loaded tree and closing it again:
+        fileBTree = BTree.open(file, KeyCodecs.LONG);
+        assertEquals(3, fileBTree.getMinimumDegree());
+        assertEquals(expected.size(), fileBTree.size());
+        for (int i = 0; i < 5_000; i++) {
+            long value = random.nextInt(10_000);
+            assertEquals(expected.contains(value), fileBTree.contains(value));
+
+            if (random.nextBoolean()) {
+                fileBTree.erase(value);
+                expected.remove(value);
+            } else {
+                fileBTree.insert(value);
+                expected.add(value);
+            }
+        }
+        int height = fileBTree.height();
+        fileBTree.close();
+
+        fileBTree = BTree.open(file, KeyCodecs.LONG);
+        assertEquals(expected.size(), fileBTree.size());
+        assertEquals(height, fileBTree.height());
+        assertEquals(new ArrayList<>(expected), fileBTree.getAllElements());
+        fileBTree.close();
+    }
+
+    @Test
+    public void pagesOfErasedNodesShouldBeReusedTest(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("tree.db");
+        BTree<Integer> fileBTree = BTree.create(file, KeyCodecs.INTEGER, 2);
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            values.add(i);
+        }
+
+        fileBTree.buildFromSorted(values.iterator());
+        fileBTree.sync();
+        int pageCount = pageCountInMetaPage(file);
+
+        // Rebuilding and erasing should reuse the pages of the old nodes:
+        for (int round = 0; round < 3; round++) {
+            fileBTree.buildFromSorted(values.iterator());
+            for (int i = 0; i < 100_000; i += 3) {
+                fileBTree.erase(i);
+            }
+            fileBTree.sync();
+        }
+        fileBTree.close();
+
+        assertEquals(pageCount, pageCountInMetaPage(file));
+
+        BTree<Integer> reopenedBTree = BTree.open(file, KeyCodecs.INTEGER);
+        assertEquals(66_666, reopenedBTree.size());
+        assertTrue(reopenedBTree.contains(1));
+        assertFalse(reopenedBTree.contains(3));
+        reopenedBTree.close();
+    }
+
+    @Test
+    public void syncShouldWriteOnlyDirtyNodesAndDropThemFromMemoryTest(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("tree.db");
+        BTree<Integer> fileBTree = BTree.create(file, KeyCodecs.INTEGER, 2);
+        for (int i = 0; i < 1_000; i++) {
+            fileBTree.insert(i);
+        }
+        fileBTree.sync();
+
+        BTree.BTreeNode<Integer> root = fileBTree.root();
+        assertFalse(root.dirty);
+        for (int i = 0; i <= root.keyCount; i++) {
+            assertTrue(root.children[i].isStub());
+        }
+
+        // Reading loads clean nodes, changing them makes them dirty:
+        assertTrue(fileBTree.contains(999));
+        assertFalse(root.children[root.keyCount].isStub());
+        assertFalse(root.children[root.keyCount].dirty);
+
+        fileBTree.erase(999);
+        BTree.BTreeNode<Integer> lastLeaf = root;
+        while (!lastLeaf.isLeaf()) {
+            lastLeaf = lastLeaf.children[lastLeaf.keyCount];
+        }
+        assertTrue(lastLeaf.dirty);
+        fileBTree.sync();
+
+        for (int i = 0; i <= root.keyCount; i++) {
+            assertTrue(root.children[i].isStub());
+        }
+        fileBTree.close();
+
+        BTree<Integer> reopenedBTree = BTree.open(file, KeyCodecs.INTEGER);
+        assertEquals(999, reopenedBTree.size());
+        assertFalse(reopenedBTree.contains(999));
+        assertTrue(reopenedBTree.contains(998));
+        reopenedBTree.close();
+    }
+
+    @Test
+    public void releaseCleanNodesShouldKeepOnlyChangedNodesTest(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("tree.db");
+        BTree<Integer> fileBTree = BTree.create(file, KeyCodecs.INTEGER, 2);
+        for (int i = 0; i < 1_000; i++) {
+            fileBTree.insert(i);
+        }
+        fileBTree.sync();
+
+        BTree.BTreeNode<Integer> root = fileBTree.root();
+        assertEquals(1_000, fileBTree.getAllElements().size());
+        fileBTree.erase(999);
+        fileBTree.releaseCleanNodes();
+
+        // Only the path to the changed leaf stays in the memory:
+        for (int i = 0; i < root.keyCount; i++) {
+            assertTrue(root.children[i].isStub());
+        }
+        assertFalse(root.children[root.keyCount].isStub());
+
+        assertTrue(fileBTree.contains(0));
+        assertFalse(fileBTree.contains(999));
+        fileBTree.close();
+
+        BTree<Integer> reopenedBTree = BTree.open(file, KeyCodecs.INTEGER);
+        assertEquals(999, reopenedBTree.size());
+        reopenedBTree.close();
+    }
+
+    @Test
+    public void openWithOtherPageSizeShouldReportItTest(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("tree.db");
+        BTree.create(file, KeyCodecs.INTEGER, 2).close();
+
+        // Overwriting the minimum degree in the meta page:
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, 3), 3 * Integer.BYTES);
+        }
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> BTree.open(file, KeyCodecs.INTEGER));
+        assertTrue(exception.getMessage().contains("minimum degree 3"));
+    }
+
+    @Test
+    public void batchOperationsShouldReportEveryKeyTest() {
+        BitSet expected = new BitSet();
+        expected.set(1);
+        expected.set(3);
+
+        assertEquals(expected, bTree.insertAll(List.of(9, 12, 12, 1)));
+        assertEquals(expected, bTree.containsAll(List.of(100, 1, 2, 12)));
+        assertEquals(expected, bTree.eraseAll(List.of(100, 1, 2, 12)));
+        assertEquals(List.of(7, 8, 9, 10, 11, 13, 19), bTree.getAllElements());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,163 @@
+package lights.digital.masterclass.tree.balanced.redblack;
+
+import lights.digital.masterclass.tree.Traversal;
+import lights.digital.masterclass.tree.Tree;
+import lights.digital.masterclass.tree.factory.TreeFactory;
+import lights.digital.masterclass.tree.factory.TreeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArrayRedBlackTreeTest {
+
+    private final Tree<Integer> arrayRedBlackTree = TreeFactory.getInstance(TreeType.ARRAY_RB_TREE, 10);
+
+    @BeforeEach
+    public void setUp() {
+        arrayRedBlackTree.insert(9);
+        arrayRedBlackTree.insert(8);
+        arrayRedBlackTree.insert(7);
+        arrayRedBlackTree.insert(13);
+        arrayRedBlackTree.insert(11);
+        arrayRedBlackTree.insert(19);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        arrayRedBlackTree.clear();
+    }
+
+    /**
+     * Checks the red-black properties and the parent links of {@code node}.
+     *
+     * @return The number of black nodes on every path from {@code node}
+     * down to a missing child.
+     */
+    private static int blackHeight(AbstractIndexedRedBlackTree<?> tree, int node) {
+        if (node == AbstractIndexedRedBlackTree.NIL) {
+            return 1;
+        }
+
+        int leftChild = tree.leftChild(node);
+        int rightChild = tree.rightChild(node);
+
+        if (tree.isRed(node)) {
+            assertFalse(leftChild != AbstractIndexedRedBlackTree.NIL && tree.isRed(leftChild));
+            assertFalse(rightChild != AbstractIndexedRedBlackTree.NIL && tree.isRed(rightChild));
+        }
+        if (leftChild != AbstractIndexedRedBlackTree.NIL) {
+            assertEquals(node, tree.parent(leftChild));
+        }
+        if (rightChild != AbstractIndexedRedBlackTree.NIL) {
+            assertEquals(node, tree.parent(rightChild));
+        }
+
+        int leftBlackHeight = blackHeight(tree, leftChild);
+        assertEquals(leftBlackHeight, blackHeight(tree, rightChild));
+
+        return leftBlackHeight + (tree.isRed(node) ? 0 : 1);
+    }
+
+    @Test
+    public void withNegativeInitialCapacityShouldThrowExceptionTest() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ArrayRedBlackTree.withInitialCapacity(-1));
+    }
+
+    @Test
+    public void insertWithNullArgumentShouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> arrayRedBlackTree.insert(null));
+    }
+
+    @Test
+    public void insertWithAlreadyContainingKeyShouldNotChangeTree() {
+        arrayRedBlackTree.insert(9);
+
+        assertEquals(7, arrayRedBlackTree.size());
+        assertEquals("7 8 9 10 11 13 19 ", arrayRedBlackTree.text(Traversal.INORDER).toString());
+    }
+
+    @Test
+    public void eraseRootTest() {
+        arrayRedBlackTree.erase(10);
+
+        assertFalse(arrayRedBlackTree.contains(10));
+        assertEquals(6, arrayRedBlackTree.size());
+        assertEquals(List.of(7, 8, 9, 11, 13, 19), arrayRedBlackTree.getAllElements());
+    }
+
+    @Test
+    public void erasedSlotsShouldBeReusedTest() {
+        ArrayRedBlackTree<Integer> localTree = ArrayRedBlackTree.withInitialCapacity(100);
+
+        for (int i = 0; i < 100; i++) {
+            localTree.insert(i);
+        }
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 100; i += 2) {
+                localTree.erase(i);
+            }
+            for (int i = 0; i < 100; i += 2) {
+                localTree.insert(i);
+            }
+        }
+
+        assertEquals(100, localTree.capacity());
+        assertEquals(100, localTree.size());
+        blackHeight(localTree, localTree.root);
+    }
+
+    @Test
+    public void randomInsertionsAndErasuresShouldKeepTreeBalancedTest() {
+        ArrayRedBlackTree<Integer> localTree = new ArrayRedBlackTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            int value = random.nextInt(2_000);
+
+            if (random.nextBoolean()) {
+                localTree.insert(value);
+                expected.add(value);
+            } else {
+                localTree.erase(value);
+                expected.remove(value);
+            }
+
+            if (i % 1_000 == 0) {
+                blackHeight(localTree, localTree.root);
+            }
+        }
+
+        blackHeight(localTree, localTree.root);
+        assertEquals(expected.size(), localTree.size());
+        assertEquals(new ArrayList<>(expected), localTree.getAllElements());
+    }
+
+    @Test
+    public void getInstanceFromSortedShouldMakeValidTreeTest() {
+        for (int numberOfElements = 0; numberOfElements <= 100; numberOfElements++) {
+            List<Integer> values = new ArrayList<>();
+            for (int i = 0; i < numberOfElements; i++) {
+                values.add(i * 3);
+            }
+
+            ArrayRedBlackTree<Integer> localTree = (ArrayRedBlackTree<Integer>) TreeFactory.getInstanceFromSorted(
+                    TreeType.ARRAY_RB_TREE, values.iterator());
+
+            blackHeight(localTree, localTree.root);
+            assertEquals(values, localTree.getAllElements());
+
+            localTree.insert(1);
+            blackHeight(localTree, localTree.root);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package lights.digital.masterclass.tree.balanced.redblack;
+
+import lights.digital.masterclass.tree.Traversal;
+import lights.digital.masterclass.tree.Tree;
+import lights.digital.masterclass.tree.factory.TreeFactory;
+import lights.digital.masterclass.tree.factory.TreeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntRedBlackTreeTest {
+
+    private final Tree<Integer> intRedBlackTree = TreeFactory.getInstance(TreeType.INT_RB_TREE, 10);
+
+    @BeforeEach
+    public void setUp() {
+        intRedBlackTree.insert(9);
+        intRedBlackTree.insert(8);
+        intRedBlackTree.insert(7);
+        intRedBlackTree.insert(13);
+        intRedBlackTree.insert(11);
+        intRedBlackTree.insert(19);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        intRedBlackTree.clear();
+    }
+
+    /**
+     * Checks the red-black properties and the parent links of {@code node}.
+     *
+     * @return The number of black nodes on every path from {@code node}
+     * down to a missing child.
+     */
+    private static int blackHeight(AbstractIndexedRedBlackTree<?> tree, int node) {
+        if (node == AbstractIndexedRedBlackTree.NIL) {
+            return 1;
+        }
+
+        int leftChild = tree.leftChild(node);
+        int rightChild = tree.rightChild(node);
+
+        if (tree.isRed(node)) {
+            assertFalse(leftChild != AbstractIndexedRedBlackTree.NIL && tree.isRed(leftChild));
+            assertFalse(rightChild != AbstractIndexedRedBlackTree.NIL && tree.isRed(rightChild));
+        }
+        if (leftChild != AbstractIndexedRedBlackTree.NIL) {
+            assertEquals(node, tree.parent(leftChild));
+        }
+        if (rightChild != AbstractIndexedRedBlackTree.NIL) {
+            assertEquals(node, tree.parent(rightChild));
+        }
+
+        int leftBlackHeight = blackHeight(tree, leftChild);
+        assertEquals(leftBlackHeight, blackHeight(tree, rightChild));
+
+        return leftBlackHeight + (tree.isRed(node) ? 0 : 1);
+    }
+
+    @Test
+    public void insertWithNullArgumentShouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> intRedBlackTree.insert(null));
+    }
+
+    @Test
+    public void insertWithAlreadyContainingKeyShouldNotChangeTree() {
+        intRedBlackTree.insert(9);
+
+        assertEquals(7, intRedBlackTree.size());
+        assertEquals("7 8 9 10 11 13 19 ", intRedBlackTree.text(Traversal.INORDER).toString());
+    }
+
+    @Test
+    public void containsTest() {
+        assertTrue(intRedBlackTree.contains(13));
+        assertFalse(intRedBlackTree.contains(12));
+        assertThrows(IllegalArgumentException.class,
+                () -> intRedBlackTree.contains(null));
+    }
+
+    @Test
+    public void eraseWithNonContainingKeyShouldNotChangeSizeTest() {
+        intRedBlackTree.erase(30);
+
+        assertEquals(7, intRedBlackTree.size());
+    }
+
+    @Test
+    public void eraseRootTest() {
+        intRedBlackTree.erase(10);
+
+        assertFalse(intRedBlackTree.contains(10));
+        assertEquals(6, intRedBlackTree.size());
+        assertEquals(List.of(7, 8, 9, 11, 13, 19), intRedBlackTree.getAllElements());
+    }
+
+    @Test
+    public void textTest() {
+        IntRedBlackTree localTree = new IntRedBlackTree();
+        localTree.insert(2);
+        localTree.insert(1);
+        localTree.insert(3);
+
+        assertEquals("2 1 3 ", localTree.text(Traversal.PREORDER).toString());
+        assertEquals("1 3 2 ", localTree.text(Traversal.POSTORDER).toString());
+        assertThrows(IllegalArgumentException.class, () -> localTree.text(null));
+    }
+
+    @Test
+    public void primitiveIterationTest() {
+        IntRedBlackTree localTree = (IntRedBlackTree) intRedBlackTree;
+        PrimitiveIterator.OfInt iterator = localTree.iterator();
+
+        assertEquals(7, iterator.nextInt());
+        assertArrayEquals(new int[]{7, 8, 9, 10, 11, 13, 19}, localTree.toArray());
+        assertEquals(77, localTree.intStream().sum());
+    }
+
+    @Test
+    public void randomInsertionsAndErasuresShouldKeepTreeBalancedTest() {
+        IntRedBlackTree localTree = new IntRedBlackTree();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            int value = random.nextInt(2_000) - 1_000;
+
+            if (random.nextBoolean()) {
+                localTree.insert(value);
+                expected.add(value);
+            } else {
+                localTree.erase(value);
+                expected.remove(value);
+            }
+
+            if (i % 1_000 == 0) {
+                if (localTree.root != AbstractIndexedRedBlackTree.NIL) {
+                    assertEquals(AbstractIndexedRedBlackTree.NIL, localTree.parent(localTree.root));
+                }
+                blackHeight(localTree, localTree.root);
+            }
+        }
+
+        blackHeight(localTree, localTree.root);
+        assertEquals(expected.size(), localTree.size());
+        assertEquals(new ArrayList<>(expected), localTree.getAllElements());
+        assertTrue(localTree.height() <= 2 * (32 - Integer.numberOfLeadingZeros(localTree.size() + 1)));
+    }
+
+    @Test
+    public void getInstanceFromSortedShouldMakeValidTreeTest() {
+        for (int numberOfElements = 0; numberOfElements <= 100; numberOfElements++) {
+            List<Integer> values = new ArrayList<>();
+            for (int i = 0; i < numberOfElements; i++) {
+                values.add(i * 3);
+            }
+
+            IntRedBlackTree localTree = (IntRedBlackTree) TreeFactory.<Integer>getInstanceFromSorted(
+                    TreeType.INT_RB_TREE, values.iterator());
+
+            blackHeight(localTree, localTree.root);
+            assertEquals(values, localTree.getAllElements());
+        }
+    }
+}
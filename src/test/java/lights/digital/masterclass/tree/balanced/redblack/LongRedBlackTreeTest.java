@@ -0,0 +1,57 @@
+package lights.digital.masterclass.tree.balanced.redblack;
+
+import lights.digital.masterclass.tree.Tree;
+import lights.digital.masterclass.tree.factory.TreeFactory;
+import lights.digital.masterclass.tree.factory.TreeType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongRedBlackTreeTest {
+
+    @Test
+    public void insertWithNullArgumentShouldThrowException() {
+        Tree<Long> localTree = TreeFactory.getInstance(TreeType.LONG_RB_TREE);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> localTree.insert(null));
+    }
+
+    @Test
+    public void keysOutsideTheIntRangeShouldBeKeptTest() {
+        LongRedBlackTree localTree = new LongRedBlackTree(Long.MAX_VALUE);
+        localTree.insert(Long.MIN_VALUE);
+        localTree.insert(1L << 40);
+
+        assertTrue(localTree.contains(1L << 40));
+        assertFalse(localTree.contains(0L));
+        assertArrayEquals(new long[]{Long.MIN_VALUE, 1L << 40, Long.MAX_VALUE}, localTree.toArray());
+    }
+
+    @Test
+    public void randomInsertionsAndErasuresShouldMatchTreeSetTest() {
+        LongRedBlackTree localTree = new LongRedBlackTree();
+        TreeSet<Long> expected = new TreeSet<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 20_000; i++) {
+            long value = random.nextInt(2_000) * 1_000_000_007L;
+
+            if (random.nextBoolean()) {
+                localTree.insert(value);
+                expected.add(value);
+            } else {
+                localTree.erase(value);
+                expected.remove(value);
+            }
+        }
+
+        assertEquals(expected.size(), localTree.size());
+        assertEquals(new ArrayList<>(expected), localTree.getAllElements());
+        assertEquals(expected.stream().mapToLong(Long::longValue).sum(), localTree.longStream().sum());
+    }
+}
@@ -0,0 +1,136 @@
+package lights.digital.masterclass.tree.balanced.redblack;
+
+import lights.digital.masterclass.tree.Traversal;
+import lights.digital.masterclass.tree.Tree;
+import lights.digital.masterclass.tree.factory.TreeFactory;
+import lights.digital.masterclass.tree.factory.TreeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapLongRedBlackTreeTest {
+
+    private final Tree<Long> offHeapRedBlackTree = TreeFactory.getInstance(TreeType.OFF_HEAP_RB_TREE, 10L);
+
+    @BeforeEach
+    public void setUp() {
+        offHeapRedBlackTree.insert(9L);
+        offHeapRedBlackTree.insert(8L);
+        offHeapRedBlackTree.insert(7L);
+        offHeapRedBlackTree.insert(13L);
+        offHeapRedBlackTree.insert(11L);
+        offHeapRedBlackTree.insert(19L);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        offHeapRedBlackTree.clear();
+    }
+
+    @Test
+    public void insertWithNullArgumentShouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> offHeapRedBlackTree.insert(null));
+    }
+
+    @Test
+    public void insertAndEraseTest() {
+        offHeapRedBlackTree.insert(9L);
+        offHeapRedBlackTree.erase(10L);
+        offHeapRedBlackTree.erase(30L);
+
+        assertEquals(6, offHeapRedBlackTree.size());
+        assertFalse(offHeapRedBlackTree.contains(10L));
+        assertEquals("7 8 9 11 13 19 ", offHeapRedBlackTree.text(Traversal.INORDER).toString());
+    }
+
+    @Test
+    public void primitiveIteratorTest() {
+        PrimitiveIterator.OfLong iterator = ((OffHeapLongRedBlackTree) offHeapRedBlackTree).iterator();
+
+        assertEquals(7L, iterator.nextLong());
+        assertEquals(8L, iterator.nextLong());
+    }
+
+    @Test
+    public void treeSpanningManyChunksShouldMatchTreeSetTest() {
+        OffHeapLongRedBlackTree localTree = new OffHeapLongRedBlackTree();
+        TreeSet<Long> expected = new TreeSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 3 * OffHeapLongRedBlackTree.NODES_PER_CHUNK; i++) {
+            long value = random.nextLong();
+
+            localTree.insert(value);
+            expected.add(value);
+        }
+        for (int i = 0; i < 50_000; i++) {
+            long value = expected.pollFirst();
+
+            localTree.erase(value);
+        }
+
+        assertEquals(expected.size(), localTree.size());
+        assertEquals(new ArrayList<>(expected), localTree.getAllElements());
+        assertTrue(localTree.height() <= 2 * (32 - Integer.numberOfLeadingZeros(localTree.size() + 1)));
+    }
+
+    @Test
+    public void getInstanceFromSortedTest() {
+        Tree<Long> localTree = TreeFactory.getInstanceFromSorted(TreeType.OFF_HEAP_RB_TREE,
+                List.of(5L, 1L, 3L, 3L).iterator());
+
+        assertEquals(List.of(1L, 3L, 5L), localTree.getAllElements());
+        assertEquals(2, localTree.height());
+    }
+
+    @Test
+    public void buildFromSortedShouldFillManyChunksTest() {
+        OffHeapLongRedBlackTree localTree = new OffHeapLongRedBlackTree(7L);
+        int count = 3 * OffHeapLongRedBlackTree.NODES_PER_CHUNK + 5;
+
+        localTree.buildFromSorted(LongStream.range(0, count).map(key -> 2 * key).iterator());
+
+        assertEquals(count, localTree.size());
+        assertTrue(localTree.contains(2L * (count - 1)));
+        assertFalse(localTree.contains(7L));
+        assertEquals(32 - Integer.numberOfLeadingZeros(count), localTree.height());
+
+        // Duplicates are dropped and the keys after an unsorted one are inserted:
+        localTree.buildFromSorted(List.of(1L, 1L, 4L, 2L, 9L, 4L).iterator());
+        assertEquals(List.of(1L, 2L, 4L, 9L), localTree.getAllElements());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> localTree.buildFromSorted(Arrays.asList(1L, null).iterator()));
+        assertTrue(localTree.empty());
+        localTree.close();
+    }
+
+    @Test
+    public void closeShouldFreeTheChunksAndLeaveAnEmptyTreeTest() {
+        OffHeapLongRedBlackTree localTree = new OffHeapLongRedBlackTree();
+        for (long key = 0; key < 3L * OffHeapLongRedBlackTree.NODES_PER_CHUNK; key++) {
+            localTree.insert(key);
+        }
+
+        localTree.close();
+
+        assertTrue(localTree.empty());
+        assertFalse(localTree.contains(1L));
+
+        // The tree allocates new chunks after it has been closed:
+        localTree.insert(5L);
+        assertEquals(List.of(5L), localTree.getAllElements());
+        localTree.close();
+    }
+}
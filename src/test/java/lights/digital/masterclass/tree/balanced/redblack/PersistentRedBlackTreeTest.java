@@ -0,0 +1,159 @@
+package lights.digital.masterclass.tree.balanced.redblack;
+
+import lights.digital.masterclass.tree.Traversal;
+import lights.digital.masterclass.tree.Tree;
+import lights.digital.masterclass.tree.factory.TreeFactory;
+import lights.digital.masterclass.tree.factory.TreeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+import static lights.digital.masterclass.tree.balanced.redblack.color.Color.RED;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentRedBlackTreeTest {
+
+    private final PersistentRedBlackTree<Integer> persistentTree =
+            (PersistentRedBlackTree<Integer>) TreeFactory.getInstance(TreeType.PERSISTENT_RB_TREE, 10);
+
+    @BeforeEach
+    public void setUp() {
+        persistentTree.insert(9);
+        persistentTree.insert(8);
+        persistentTree.insert(7);
+        persistentTree.insert(13);
+        persistentTree.insert(11);
+        persistentTree.insert(19);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        persistentTree.clear();
+    }
+
+    /**
+     * Checks that {@code node} is left-leaning, has no red node with a red
+     * child and that its cached height and size are right.
+     *
+     * @return The number of black nodes on every path from {@code node}
+     * down to a missing child.
+     */
+    private static int blackHeight(PersistentRedBlackTree.PersistentNode<Integer> node) {
+        if (node == null) {
+            return 1;
+        }
+
+        assertFalse(node.rightChild != null && node.rightChild.color == RED);
+        if (node.color == RED) {
+            assertFalse(node.leftChild != null && node.leftChild.color == RED);
+        }
+        assertEquals(1 + Math.max(PersistentRedBlackTree.PersistentNode.height(node.leftChild),
+                PersistentRedBlackTree.PersistentNode.height(node.rightChild)), node.height);
+        assertEquals(1 + PersistentRedBlackTree.PersistentNode.subtreeSize(node.leftChild)
+                + PersistentRedBlackTree.PersistentNode.subtreeSize(node.rightChild), node.subtreeSize);
+
+        int leftBlackHeight = blackHeight(node.leftChild);
+        assertEquals(leftBlackHeight, blackHeight(node.rightChild));
+
+        return leftBlackHeight + (node.color == RED ? 0 : 1);
+    }
+
+    @Test
+    public void nullArgumentsShouldThrowExceptionTest() {
+        assertThrows(IllegalArgumentException.class, () -> persistentTree.insert(null));
+        assertThrows(IllegalArgumentException.class, () -> persistentTree.erase(null));
+        assertThrows(IllegalArgumentException.class, () -> persistentTree.contains(null));
+    }
+
+    @Test
+    public void insertContainsAndEraseTest() {
+        assertEquals(7, persistentTree.size());
+        assertTrue(persistentTree.contains(13));
+        assertFalse(persistentTree.contains(12));
+        assertEquals("7 8 9 10 11 13 19 ", persistentTree.text(Traversal.INORDER).toString());
+
+        persistentTree.erase(10);
+        persistentTree.erase(12);
+
+        assertEquals(List.of(7, 8, 9, 11, 13, 19), persistentTree.getAllElements());
+    }
+
+    @Test
+    public void traversalsShouldVisitEveryNodeOnceTest() {
+        Tree<Integer> tree = TreeFactory.getInstanceFromSorted(TreeType.PERSISTENT_RB_TREE,
+                List.of(1, 2, 3, 4, 5, 6, 7).iterator());
+
+        // 6 is a 3-node with 3, and 2 and 5 are 3-nodes with 1 and 4:
+        assertEquals("6 3 2 1 5 4 7 ", tree.text(Traversal.PREORDER).toString());
+        assertEquals("1 2 4 5 3 7 6 ", tree.text(Traversal.POSTORDER).toString());
+    }
+
+    @Test
+    public void snapshotShouldNotSeeLaterChangesTest() {
+        PersistentRedBlackTree<Integer> snapshot = persistentTree.snapshot();
+        Iterator<Integer> iterator = persistentTree.iterator();
+
+        persistentTree.erase(7);
+        persistentTree.insert(100);
+        snapshot.insert(-1);
+
+        List<Integer> iterated = new ArrayList<>();
+        iterator.forEachRemaining(iterated::add);
+
+        assertEquals(List.of(7, 8, 9, 10, 11, 13, 19), iterated);
+        assertEquals(List.of(-1, 7, 8, 9, 10, 11, 13, 19), snapshot.getAllElements());
+        assertEquals(List.of(8, 9, 10, 11, 13, 19, 100), persistentTree.getAllElements());
+    }
+
+    @Test
+    public void manyRandomOperationsShouldKeepTheInvariantsTest() {
+        Random random = new Random(11);
+        TreeSet<Integer> expected = new TreeSet<>();
+        PersistentRedBlackTree<Integer> tree = new PersistentRedBlackTree<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(1_000);
+            if (random.nextInt(3) != 0) {
+                tree.insert(key);
+                expected.add(key);
+            } else {
+                tree.erase(key);
+                expected.remove(key);
+            }
+
+            if (i % 1_000 == 0) {
+                blackHeight(tree.root());
+            }
+        }
+
+        blackHeight(tree.root());
+        assertEquals(expected.size(), tree.size());
+        assertEquals(new ArrayList<>(expected), tree.getAllElements());
+    }
+
+    @Test
+    public void buildFromSortedShouldKeepTheInvariantsTest() {
+        PersistentRedBlackTree<Integer> tree = new PersistentRedBlackTree<>();
+
+        for (int size = 0; size <= 300; size++) {
+            List<Integer> values = IntStream.range(0, size).boxed().toList();
+            tree.buildFromSorted(values.iterator());
+
+            blackHeight(tree.root());
+            assertEquals(values, tree.getAllElements());
+
+            if (size > 0) {
+                tree.erase(size / 2);
+                tree.insert(size);
+                blackHeight(tree.root());
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package lights.digital.masterclass.tree.balanced.redblack;
 
+import lights.digital.masterclass.tree.Traversal;
 import lights.digital.masterclass.tree.Tree;
 import lights.digital.masterclass.tree.exceptions.NodeNotChildOfItsParentException;
 import lights.digital.masterclass.tree.factory.TreeFactory;
@@ -10,6 +11,8 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Random;
+import java.util.TreeSet;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -167,7 +170,74 @@ public class RedBlackTreeTest {
 
 
     @Test
-    public void erase() {
+    public void eraseWithNullArgumentShouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> redBlackTree.erase(null));
+    }
+
+    @Test
+    public void eraseWithNonContainingKeyShouldNotChangeSizeTest() {
+        redBlackTree.erase(30);
+
+        assertEquals(7, redBlackTree.size());
+        assertEquals(7, redBlackTree.getAllElements().size());
+    }
+
+    @Test
+    public void eraseLeafTest() {
+        redBlackTree.erase(19);
+
+        assertFalse(redBlackTree.contains(19));
+        assertEquals(6, redBlackTree.size());
+        assertEquals("7 8 9 10 11 13 ", redBlackTree.text(Traversal.INORDER).toString());
+    }
+
+    @Test
+    public void eraseRootTest() {
+        redBlackTree.erase(10);
+
+        assertFalse(redBlackTree.contains(10));
+        assertEquals(6, redBlackTree.size());
+        assertEquals("7 8 9 11 13 19 ", redBlackTree.text(Traversal.INORDER).toString());
+    }
+
+    @Test
+    public void eraseAllElementsShouldMakeTreeEmptyTest() {
+        for (int value : new int[]{10, 9, 8, 7, 13, 11, 19}) {
+            redBlackTree.erase(value);
+        }
+
+        assertTrue(redBlackTree.empty());
+        assertEquals(0, redBlackTree.size());
+        assertEquals(0, redBlackTree.height());
+    }
+
+    @Test
+    public void randomInsertionsAndErasuresShouldKeepTreeBalancedTest() {
+        redBlackTree.clear();
+
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            int value = random.nextInt(2_000);
+
+            if (random.nextInt(3) == 0) {
+                redBlackTree.erase(value);
+                expected.remove(value);
+            } else {
+                redBlackTree.insert(value);
+                expected.add(value);
+            }
+
+            assertEquals(expected.size(), redBlackTree.size());
+        }
+
+        assertTrue(expected.containsAll(redBlackTree.getAllElements()));
+        assertEquals(expected.size(), redBlackTree.getAllElements().size());
 
+        // The height of a red-black tree is at most 2 * log2(n + 1):
+        double maximalHeight = 2 * Math.log(expected.size() + 1) / Math.log(2);
+        assertTrue(redBlackTree.height() <= maximalHeight);
     }
 }
\ No newline at end of file
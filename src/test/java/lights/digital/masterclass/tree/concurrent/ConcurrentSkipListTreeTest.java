@@ -0,0 +1,146 @@
+package lights.digital.masterclass.tree.concurrent;
+
+import lights.digital.masterclass.tree.Traversal;
+import lights.digital.masterclass.tree.Tree;
+import lights.digital.masterclass.tree.factory.TreeFactory;
+import lights.digital.masterclass.tree.factory.TreeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentSkipListTreeTest {
+
+    private final Tree<Integer> concurrentTree = TreeFactory.getInstance(TreeType.CONCURRENT_TREE, 10);
+
+    @BeforeEach
+    public void setUp() {
+        concurrentTree.insert(9);
+        concurrentTree.insert(8);
+        concurrentTree.insert(7);
+        concurrentTree.insert(13);
+        concurrentTree.insert(11);
+        concurrentTree.insert(19);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        concurrentTree.clear();
+    }
+
+    @Test
+    public void nullArgumentsShouldThrowExceptionTest() {
+        assertThrows(IllegalArgumentException.class, () -> concurrentTree.insert(null));
+        assertThrows(IllegalArgumentException.class, () -> concurrentTree.erase(null));
+        assertThrows(IllegalArgumentException.class, () -> concurrentTree.contains(null));
+    }
+
+    @Test
+    public void insertContainsAndEraseTest() {
+        assertEquals(7, concurrentTree.size());
+        assertTrue(concurrentTree.contains(11));
+        assertFalse(concurrentTree.contains(12));
+
+        concurrentTree.insert(11);
+        assertEquals(7, concurrentTree.size());
+
+        concurrentTree.erase(11);
+        concurrentTree.erase(12);
+        assertFalse(concurrentTree.contains(11));
+        assertEquals(6, concurrentTree.size());
+        assertEquals(List.of(7, 8, 9, 10, 13, 19), concurrentTree.getAllElements());
+
+        concurrentTree.clear();
+        assertTrue(concurrentTree.empty());
+        assertEquals(0, concurrentTree.size());
+    }
+
+    @Test
+    public void bulkBuildAndTextShouldKeepTheAscendingOrderTest() {
+        ConcurrentSkipListTree<Integer> tree = new ConcurrentSkipListTree<>();
+        tree.buildFromSorted(List.of(1, 2, 2, 3, 4, 5, 6, 7).iterator());
+
+        assertEquals(7, tree.size());
+        assertTrue(tree.contains(4));
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7), tree.getAllElements());
+        // The height and the postorder of a skip list are not defined.
+        assertEquals(-1, tree.height());
+        assertEquals("1 2 3 4 5 6 7 ", tree.text(Traversal.INORDER).toString());
+        assertEquals("1 2 3 4 5 6 7 ", tree.text(Traversal.PREORDER).toString());
+        assertEquals("1 2 3 4 5 6 7 ", tree.text(Traversal.POSTORDER).toString());
+
+        tree.insert(0);
+        tree.erase(7);
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6), tree.stream().toList());
+    }
+
+    @Test
+    public void manyRandomOperationsShouldMatchTreeSetTest() {
+        Random random = new Random(7);
+        TreeSet<Integer> expected = new TreeSet<>();
+        Tree<Integer> tree = TreeFactory.getInstance(TreeType.CONCURRENT_TREE);
+
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(2_000);
+            if (random.nextBoolean()) {
+                tree.insert(key);
+                expected.add(key);
+            } else {
+                tree.erase(key);
+                expected.remove(key);
+            }
+        }
+
+        assertEquals(expected.size(), tree.size());
+        assertEquals(new ArrayList<>(expected), tree.getAllElements());
+        assertEquals(new ArrayList<>(expected), tree.stream().toList());
+    }
+
+    @Test
+    public void concurrentWritersAndReadersShouldNotLoseKeysTest() throws Exception {
+        Tree<Integer> tree = TreeFactory.getInstance(TreeType.CONCURRENT_TREE);
+        int threads = 8;
+        int keysPerThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    // Every thread inserts its own keys, erases the odd ones
+                    // and reads the keys of the others meanwhile.
+                    for (int i = 0; i < keysPerThread; i++) {
+                        tree.insert(i * threads + thread);
+                        tree.contains(i * threads + (thread + 1) % threads);
+                    }
+                    for (int i = 1; i < keysPerThread; i += 2) {
+                        tree.erase(i * threads + thread);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        List<Integer> expected = IntStream.range(0, threads * keysPerThread)
+                .filter(key -> key / threads % 2 == 0)
+                .boxed()
+                .toList();
+        assertEquals(expected.size(), tree.size());
+        assertEquals(expected, tree.getAllElements());
+    }
+}
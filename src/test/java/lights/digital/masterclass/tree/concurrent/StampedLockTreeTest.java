@@ -0,0 +1,143 @@
+package lights.digital.masterclass.tree.concurrent;
+
+import lights.digital.masterclass.tree.Traversal;
+import lights.digital.masterclass.tree.balanced.btree.BTree;
+import lights.digital.masterclass.tree.balanced.redblack.RedBlackTree;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StampedLockTreeTest {
+
+    private final StampedLockNavigableTree<Integer> lockedTree =
+            new StampedLockNavigableTree<>(new RedBlackTree<>(10));
+
+    @BeforeEach
+    public void setUp() {
+        lockedTree.insertAll(List.of(9, 8, 7, 13, 11, 19));
+    }
+
+    @Test
+    public void invalidArgumentsShouldThrowExceptionTest() {
+        assertThrows(IllegalArgumentException.class, () -> new StampedLockTree<Integer>(null));
+        assertThrows(IllegalArgumentException.class, () -> new StampedLockNavigableTree<Integer>(null));
+        assertThrows(IllegalArgumentException.class, () -> lockedTree.contains(null));
+        assertThrows(IllegalArgumentException.class, () -> lockedTree.insert(null));
+        assertThrows(IllegalArgumentException.class, () -> lockedTree.insertAll(null));
+    }
+
+    @Test
+    public void treesWithoutNavigationShouldBeGuardedTest() {
+        StampedLockTree<Integer> tree = new StampedLockTree<>(new BTree<Integer>());
+
+        tree.insertAll(List.of(3, 1, 2));
+        tree.erase(2);
+
+        assertTrue(tree.contains(1));
+        assertFalse(tree.contains(2));
+        assertEquals(2, tree.size());
+        assertEquals(List.of(1, 3), tree.stream().toList());
+    }
+
+    @Test
+    public void lookupsAndNavigationShouldDelegateTest() {
+        assertEquals(7, lockedTree.size());
+        assertTrue(lockedTree.contains(13));
+        assertFalse(lockedTree.contains(12));
+        // The batch in setUp is merged into a perfectly balanced tree.
+        assertEquals(3, lockedTree.height());
+        assertEquals(7, lockedTree.first());
+        assertEquals(19, lockedTree.last());
+        assertEquals(11, lockedTree.floor(12));
+        assertEquals(13, lockedTree.ceiling(12));
+        assertEquals(List.of(9, 10, 11), lockedTree.subRange(9, 13));
+        assertEquals("7 8 9 10 11 13 19 ", lockedTree.text(Traversal.INORDER).toString());
+    }
+
+    @Test
+    public void failedOptimisticReadsShouldBeRetriedUnderTheReadLockTest() {
+        AtomicInteger calls = new AtomicInteger();
+        AtomicReference<StampedLockTree<Integer>> guarded = new AtomicReference<>();
+        RedBlackTree<Integer> tree = new RedBlackTree<>(10) {
+            @Override
+            public boolean contains(Integer key) {
+                if (calls.getAndIncrement() == 0) {
+                    // A change runs during the first, optimistic read and tears it.
+                    CompletableFuture.runAsync(() -> guarded.get().insert(20)).join();
+                    throw new ConcurrentModificationException();
+                }
+                return super.contains(key);
+            }
+        };
+        guarded.set(new StampedLockTree<>(tree));
+
+        assertTrue(guarded.get().contains(20));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void eraseAllShouldEraseEveryKeyTest() {
+        BitSet erased = lockedTree.eraseAll(List.of(7, 8, 9, 100));
+
+        assertEquals(BitSet.valueOf(new long[]{0b0111}), erased);
+        assertEquals(new BitSet(), lockedTree.containsAll(List.of(7, 8, 9, 100)));
+
+        assertEquals(List.of(10, 11, 13, 19), lockedTree.getAllElements());
+        assertEquals(List.of(10, 11, 13, 19), lockedTree.stream().toList());
+
+        lockedTree.clear();
+        assertTrue(lockedTree.empty());
+    }
+
+    @Test
+    public void readersShouldSeeBatchesWholeTest() throws Exception {
+        StampedLockNavigableTree<Integer> tree = new StampedLockNavigableTree<>(new RedBlackTree<Integer>());
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Future<Integer>> readers = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                readers.add(executor.submit(() -> {
+                    int oddSizes = 0;
+                    while (writing.get()) {
+                        // The keys are inserted and erased in pairs.
+                        if (tree.size() % 2 != 0) {
+                            oddSizes++;
+                        }
+                        tree.contains(42);
+                        tree.floor(42);
+                    }
+                    return oddSizes;
+                }));
+            }
+
+            for (int i = 0; i < 20_000; i++) {
+                tree.insertAll(List.of(2 * i, 2 * i + 1));
+                if (i % 3 == 0) {
+                    tree.eraseAll(List.of(2 * i, 2 * i + 1));
+                }
+            }
+            writing.set(false);
+
+            for (Future<Integer> reader : readers) {
+                assertEquals(0, reader.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package lights.digital.masterclass.tree.io;
+
+import lights.digital.masterclass.tree.BulkLoadableTree;
+import lights.digital.masterclass.tree.Tree;
+import lights.digital.masterclass.tree.balanced.btree.BTree;
+import lights.digital.masterclass.tree.balanced.redblack.RedBlackTree;
+import lights.digital.masterclass.tree.factory.TreeFactory;
+import lights.digital.masterclass.tree.factory.TreeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TreeSnapshotTest {
+
+    private final Tree<Integer> tree = TreeFactory.getInstance(TreeType.RB_TREE, 10);
+
+    @BeforeEach
+    public void setUp() {
+        tree.insert(9);
+        tree.insert(8);
+        tree.insert(7);
+        tree.insert(13);
+        tree.insert(11);
+        tree.insert(19);
+    }
+
+    @Test
+    public void writeWithNullArgumentShouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> TreeSnapshot.write(tree, null, KeyCodecs.INTEGER));
+        assertThrows(IllegalArgumentException.class,
+                () -> TreeSnapshot.read(new BTree<Integer>(), new ByteArrayInputStream(new byte[0]), null));
+    }
+
+    @Test
+    public void writeAndReadTest() throws IOException {
+        for (boolean prefixCompression : new boolean[]{false, true}) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            TreeSnapshot.write(tree, output, KeyCodecs.INTEGER, prefixCompression);
+
+            BulkLoadableTree<Integer> restoredTree = new BTree<>();
+            TreeSnapshot.read(restoredTree, new ByteArrayInputStream(output.toByteArray()), KeyCodecs.INTEGER);
+
+            assertEquals(List.of(7, 8, 9, 10, 11, 13, 19), restoredTree.getAllElements());
+        }
+    }
+
+    @Test
+    public void prefixCompressionShouldShrinkSortedStringsTest() throws IOException {
+        RedBlackTree<String> words = new RedBlackTree<>();
+        for (int i = 0; i < 1000; i++) {
+            words.insert("lights.digital.masterclass.tree.key" + (10_000 + i));
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        ByteArrayOutputStream uncompressed = new ByteArrayOutputStream();
+        TreeSnapshot.write(words, compressed, KeyCodecs.STRING);
+        TreeSnapshot.write(words, uncompressed, KeyCodecs.STRING, false);
+
+        assertTrue(compressed.size() * 5 < uncompressed.size());
+
+        RedBlackTree<String> restoredWords = new RedBlackTree<>();
+        TreeSnapshot.read(restoredWords, new ByteArrayInputStream(compressed.toByteArray()), KeyCodecs.STRING);
+
+        assertEquals(words.getAllElements(), restoredWords.getAllElements());
+    }
+
+    @Test
+    public void readOfDamagedSnapshotShouldThrowExceptionTest() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        TreeSnapshot.write(tree, output, KeyCodecs.INTEGER);
+        byte[] bytes = output.toByteArray();
+
+        assertThrows(IllegalArgumentException.class, () -> TreeSnapshot.read(new BTree<>(),
+                new ByteArrayInputStream(bytes), KeyCodecs.LONG));
+        assertThrows(EOFException.class, () -> TreeSnapshot.read(new BTree<>(),
+                new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 1)), KeyCodecs.INTEGER));
+
+        bytes[0] = 0;
+        assertThrows(IllegalArgumentException.class, () -> TreeSnapshot.read(new BTree<>(),
+                new ByteArrayInputStream(bytes), KeyCodecs.INTEGER));
+    }
+}
@@ -0,0 +1,159 @@
+package lights.digital.masterclass.tree.io;
+
+import lights.digital.masterclass.tree.balanced.btree.BTree;
+import lights.digital.masterclass.tree.balanced.redblack.RedBlackTree;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteAheadLogTreeTest {
+
+    @Test
+    public void openWithInvalidArgumentsShouldThrowExceptionTest(@TempDir Path directory) {
+        assertThrows(IllegalArgumentException.class,
+                () -> WriteAheadLogTree.open(null, directory, KeyCodecs.INTEGER, 1, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> WriteAheadLogTree.open(new RedBlackTree<>(), directory, KeyCodecs.INTEGER, 0, 0));
+    }
+
+    @Test
+    public void committedChangesShouldBeRecoveredWithoutClosingTest(@TempDir Path directory) throws IOException {
+        WriteAheadLogTree<Integer> walTree = WriteAheadLogTree.open(new RedBlackTree<>(),
+                directory, KeyCodecs.INTEGER, 1, Long.MAX_VALUE);
+
+        walTree.insert(10);
+        walTree.insert(9);
+        walTree.insert(8);
+        walTree.erase(9);
+
+        // Simulating a crash, the log is not closed:
+        WriteAheadLogTree<Integer> recoveredTree = WriteAheadLogTree.open(new RedBlackTree<>(),
+                directory, KeyCodecs.INTEGER, 1, Long.MAX_VALUE);
+
+        assertEquals(List.of(8, 10), recoveredTree.getAllElements());
+
+        walTree.close();
+        recoveredTree.close();
+    }
+
+    @Test
+    public void keysWhichCannotBeEncodedShouldNotChangeTheTreeTest(@TempDir Path directory) throws IOException {
+        KeyCodec<Integer> positiveKeys = new KeyCodec<>() {
+            @Override
+            public int width() {
+                return KeyCodecs.INTEGER.width();
+            }
+
+            @Override
+            public void write(Integer key, ByteBuffer buffer) {
+                if (key < 0) {
+                    throw new IllegalArgumentException("Only positive keys can be written!");
+                }
+                KeyCodecs.INTEGER.write(key, buffer);
+            }
+
+            @Override
+            public Integer read(ByteBuffer buffer) {
+                return KeyCodecs.INTEGER.read(buffer);
+            }
+        };
+        RedBlackTree<Integer> tree = new RedBlackTree<>();
+        WriteAheadLogTree<Integer> walTree = WriteAheadLogTree.open(tree, directory, positiveKeys, 1, Long.MAX_VALUE);
+
+        walTree.insert(5);
+        // A key which was not added through the log:
+        tree.insert(-1);
+        assertThrows(IllegalArgumentException.class, () -> walTree.insert(-2));
+        assertThrows(IllegalArgumentException.class, () -> walTree.erase(-1));
+
+        assertEquals(List.of(-1, 5), tree.getAllElements());
+        walTree.close();
+    }
+
+    @Test
+    public void uncommittedChangesShouldBeLostInCrashTest(@TempDir Path directory) throws IOException {
+        WriteAheadLogTree<Integer> walTree = WriteAheadLogTree.open(new RedBlackTree<>(),
+                directory, KeyCodecs.INTEGER, 3, Long.MAX_VALUE);
+
+        for (int i = 1; i <= 4; i++) {
+            walTree.insert(i);
+        }
+
+        WriteAheadLogTree<Integer> recoveredTree = WriteAheadLogTree.open(new RedBlackTree<>(),
+                directory, KeyCodecs.INTEGER, 3, Long.MAX_VALUE);
+
+        // Only the first group of 3 insertions was committed:
+        assertEquals(List.of(1, 2, 3), recoveredTree.getAllElements());
+
+        walTree.close();
+        recoveredTree.close();
+    }
+
+    @Test
+    public void damagedLastRecordShouldBeDroppedTest(@TempDir Path directory) throws IOException {
+        WriteAheadLogTree<String> walTree = WriteAheadLogTree.open(new RedBlackTree<>(),
+                directory, KeyCodecs.STRING, 16, Long.MAX_VALUE);
+        walTree.insert("alpha");
+        walTree.insert("beta");
+        walTree.close();
+
+        Path log = directory.resolve(WriteAheadLogTree.LOG_FILE_NAME);
+        long validLength = Files.size(log);
+        // A record which was written only partly:
+        Files.write(log, new byte[]{0, 0, 0, 20, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        walTree = WriteAheadLogTree.open(new RedBlackTree<>(), directory, KeyCodecs.STRING, 16, Long.MAX_VALUE);
+
+        assertEquals(List.of("alpha", "beta"), walTree.getAllElements());
+        assertEquals(validLength, Files.size(log));
+
+        walTree.insert("gamma");
+        walTree.close();
+
+        walTree = WriteAheadLogTree.open(new RedBlackTree<>(), directory, KeyCodecs.STRING, 16, Long.MAX_VALUE);
+        assertEquals(List.of("alpha", "beta", "gamma"), walTree.getAllElements());
+        walTree.close();
+    }
+
+    @Test
+    public void checkpointShouldEmptyLogAndKeepElementsTest(@TempDir Path directory) throws IOException {
+        TreeSet<Long> expected = new TreeSet<>();
+        Random random = new Random(42);
+        WriteAheadLogTree<Long> walTree = WriteAheadLogTree.open(new BTree<>(),
+                directory, KeyCodecs.LONG, 64, Long.MAX_VALUE);
+
+        for (int i = 0; i < 10_000; i++) {
+            long value = random.nextInt(5_000);
+
+            if (i == 5_000) {
+                walTree.checkpoint();
+                assertEquals(0, Files.size(directory.resolve(WriteAheadLogTree.LOG_FILE_NAME)));
+            }
+
+            if (random.nextBoolean()) {
+                walTree.insert(value);
+                expected.add(value);
+            } else {
+                walTree.erase(value);
+                expected.remove(value);
+            }
+        }
+        walTree.close();
+
+        walTree = WriteAheadLogTree.open(new RedBlackTree<>(), directory, KeyCodecs.LONG, 64, Long.MAX_VALUE);
+
+        assertEquals(new ArrayList<>(expected), walTree.getAllElements());
+        walTree.close();
+    }
+}
@@ -0,0 +1,100 @@
+package lights.digital.masterclass.tree.print.pretty;
+
+import lights.digital.masterclass.tree.factory.TreeFactory;
+import lights.digital.masterclass.tree.factory.TreeType;
+import lights.digital.masterclass.tree.twonode.AbstractBinaryTree;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrettyPrinterTest {
+
+    private final AbstractBinaryTree<Integer> binaryTree =
+            (AbstractBinaryTree<Integer>) TreeFactory.getInstance(TreeType.BINARY_TREE, 10);
+
+    @BeforeEach
+    public void setUp() {
+        binaryTree.insert(9);
+        binaryTree.insert(8);
+        binaryTree.insert(7);
+        binaryTree.insert(13);
+        binaryTree.insert(11);
+        binaryTree.insert(19);
+    }
+
+    @Test
+    public void printWholeTreeTest() throws IOException {
+        StringBuilder output = new StringBuilder();
+
+        binaryTree.prettyPrint(output, 10, 100);
+
+        assertEquals("""
+                                        10 BLACK
+                                   ┌───────┴─────────────────┐
+                                9 BLACK                   13 BLACK
+                           ┌───────┘                ┌────────┴────────┐
+                        8 BLACK                  11 BLACK          19 BLACK
+                   ┌───────┘
+                7 BLACK
+                """, output.toString());
+    }
+
+    @Test
+    public void printWithLimitsShouldMarkLeftOutChildrenTest() throws IOException {
+        StringBuilder byDepth = new StringBuilder();
+        StringBuilder byNodes = new StringBuilder();
+
+        binaryTree.prettyPrint(byDepth, 2, 100);
+        binaryTree.prettyPrint(byNodes, 10, 1);
+
+        assertEquals("""
+                        10 BLACK
+                   ┌───────┴────────┐
+                9 BLACK          13 BLACK
+                   …                …
+                """, byDepth.toString());
+        assertEquals("10 BLACK\n   …\n", byNodes.toString());
+    }
+
+    @Test
+    public void printWithNodeLimitBetweenSiblingsShouldMarkTheLeftOutOneTest() throws IOException {
+        StringBuilder output = new StringBuilder();
+
+        // The budget of 2 nodes keeps 9, but not its sibling 13:
+        binaryTree.prettyPrint(output, 10, 2);
+
+        assertEquals("""
+                        10 BLACK
+                   ┌───────┘…
+                9 BLACK
+                   …
+                """, output.toString());
+    }
+
+    @Test
+    public void printOfLargeTreeShouldBeLimitedTest() throws IOException {
+        AbstractBinaryTree<Integer> largeTree =
+                (AbstractBinaryTree<Integer>) TreeFactory.getInstance(TreeType.RB_TREE);
+        for (int i = 0; i < 1_000_000; i++) {
+            largeTree.insert(i);
+        }
+
+        StringBuilder output = new StringBuilder();
+        largeTree.prettyPrint(output, 100, 63);
+
+        // The 63 nodes in the first 6 levels and the edges between them:
+        assertEquals(12, output.toString().split("\n").length);
+        assertTrue(output.length() < 63 * 16 * 12);
+    }
+
+    @Test
+    public void printWithInvalidArgumentsShouldThrowExceptionTest() {
+        assertThrows(IllegalArgumentException.class,
+                () -> PrettyPrinter.print(null, null, 1, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> binaryTree.prettyPrint(new StringBuilder(), 0, 1));
+    }
+}
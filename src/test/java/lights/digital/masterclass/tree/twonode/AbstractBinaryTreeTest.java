@@ -1,6 +1,7 @@
 package lights.digital.masterclass.tree.twonode;
 
 import lights.digital.masterclass.tree.Traversal;
+import lights.digital.masterclass.tree.balanced.redblack.color.Color;
 import lights.digital.masterclass.tree.factory.TreeFactory;
 import lights.digital.masterclass.tree.factory.TreeType;
 import org.junit.jupiter.api.AfterEach;
@@ -8,8 +9,24 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -156,6 +173,334 @@ public class AbstractBinaryTreeTest {
         assertEquals(4, abstractBinaryTree.height());
     }
 
+    @Test
+    public void heightShouldStayCorrectAfterRandomInsertionsAndErasuresTest() {
+        for (TreeType treeType : new TreeType[]{TreeType.BINARY_TREE, TreeType.RB_TREE}) {
+            AbstractBinaryTree<Integer> localTree =
+                    (AbstractBinaryTree<Integer>) TreeFactory.<Integer>getInstance(treeType);
+            Random random = new Random(42);
+
+            for (int i = 0; i < 5_000; i++) {
+                int value = random.nextInt(500);
+
+                if (random.nextInt(3) == 0) {
+                    localTree.erase(value);
+                } else {
+                    localTree.insert(value);
+                }
+
+                // The cached height should be the same as the one
+                // computed by walking the whole tree:
+                assertEquals(computeHeight(localTree.root), localTree.height(),
+                        "The cached height of " + treeType + " is wrong!");
+                assertEquals(localTree.size(), AbstractBinaryTree.BinaryTreeNode.subtreeSize(localTree.root),
+                        "The cached subtree size of " + treeType + " is wrong!");
+            }
+        }
+    }
+
+    @Test
+    public void rankWithNullKeyShouldThrowExceptionTest() {
+        assertThrows(IllegalArgumentException.class,
+                () -> abstractBinaryTree.rank(null));
+    }
+
+    @Test
+    public void rankTest() {
+        // The elements of the tree are 7 8 9 10 11 13 19:
+        assertEquals(0, abstractBinaryTree.rank(7));
+        assertEquals(3, abstractBinaryTree.rank(10));
+        assertEquals(6, abstractBinaryTree.rank(19));
+        assertEquals(5, abstractBinaryTree.rank(12),
+                "The rank of a non-containing key should be " +
+                        "the number of smaller elements!");
+        assertEquals(7, abstractBinaryTree.rank(30));
+    }
+
+    @Test
+    public void selectWithIndexOutOfRangeShouldThrowExceptionTest() {
+        assertThrows(IllegalArgumentException.class,
+                () -> abstractBinaryTree.select(-1));
+        assertThrows(IllegalArgumentException.class,
+                () -> abstractBinaryTree.select(7));
+    }
+
+    @Test
+    public void selectTest() {
+        assertEquals(7, abstractBinaryTree.select(0));
+        assertEquals(10, abstractBinaryTree.select(3));
+        assertEquals(19, abstractBinaryTree.select(6));
+    }
+
+    @Test
+    public void rankAndSelectShouldMatchSortedElementsAfterRandomOperationsTest() {
+        for (TreeType treeType : new TreeType[]{TreeType.BINARY_TREE, TreeType.RB_TREE}) {
+            AbstractBinaryTree<Integer> localTree =
+                    (AbstractBinaryTree<Integer>) TreeFactory.<Integer>getInstance(treeType);
+            TreeSet<Integer> expected = new TreeSet<>();
+            Random random = new Random(7);
+
+            for (int i = 0; i < 3_000; i++) {
+                int value = random.nextInt(1_000);
+
+                if (random.nextInt(3) == 0) {
+                    localTree.erase(value);
+                    expected.remove(value);
+                } else {
+                    localTree.insert(value);
+                    expected.add(value);
+                }
+            }
+
+            List<Integer> sortedElements = new ArrayList<>(expected);
+
+            for (int i = 0; i < sortedElements.size(); i++) {
+                assertEquals(sortedElements.get(i), localTree.select(i));
+                assertEquals(i, localTree.rank(sortedElements.get(i)));
+            }
+        }
+    }
+
+    private static int computeHeight(AbstractBinaryTree.BinaryTreeNode<Integer> node) {
+        if (node == null) {
+            return 0;
+        }
+
+        return 1 + Math.max(computeHeight(node.leftChild), computeHeight(node.rightChild));
+    }
+
+    @Test
+    public void firstAndLastTest() {
+        assertEquals(7, abstractBinaryTree.first());
+        assertEquals(19, abstractBinaryTree.last());
+
+        abstractBinaryTree.clear();
+
+        assertNull(abstractBinaryTree.first());
+        assertNull(abstractBinaryTree.last());
+    }
+
+    @Test
+    public void floorAndCeilingTest() {
+        // The elements of the tree are 7 8 9 10 11 13 19:
+        assertEquals(11, abstractBinaryTree.floor(12));
+        assertEquals(13, abstractBinaryTree.floor(13));
+        assertNull(abstractBinaryTree.floor(6));
+
+        assertEquals(13, abstractBinaryTree.ceiling(12));
+        assertEquals(11, abstractBinaryTree.ceiling(11));
+        assertNull(abstractBinaryTree.ceiling(20));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> abstractBinaryTree.floor(null));
+        assertThrows(IllegalArgumentException.class,
+                () -> abstractBinaryTree.ceiling(null));
+    }
+
+    @Test
+    public void lowerAndHigherTest() {
+        assertEquals(10, abstractBinaryTree.lower(11));
+        assertEquals(11, abstractBinaryTree.lower(12));
+        assertNull(abstractBinaryTree.lower(7));
+
+        assertEquals(13, abstractBinaryTree.higher(11));
+        assertEquals(13, abstractBinaryTree.higher(12));
+        assertNull(abstractBinaryTree.higher(19));
+    }
+
+    @Test
+    public void subRangeTest() {
+        List<Integer> elementsInRange = new ArrayList<>();
+
+        for (Integer element : abstractBinaryTree.subRange(8, 13)) {
+            elementsInRange.add(element);
+        }
+
+        assertEquals(List.of(8, 9, 10, 11), elementsInRange);
+    }
+
+    @Test
+    public void subRangeShouldReflectLaterChangesOfTheTreeTest() {
+        Iterable<Integer> range = abstractBinaryTree.subRange(12, 100);
+
+        abstractBinaryTree.insert(50);
+
+        List<Integer> elementsInRange = new ArrayList<>();
+        range.forEach(elementsInRange::add);
+
+        assertEquals(List.of(13, 19, 50), elementsInRange);
+    }
+
+    @Test
+    public void subRangeWithEmptyRangeOrInvalidBoundsTest() {
+        assertFalse(abstractBinaryTree.subRange(14, 19).iterator().hasNext());
+        assertFalse(abstractBinaryTree.subRange(10, 10).iterator().hasNext());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> abstractBinaryTree.subRange(13, 8));
+        assertThrows(IllegalArgumentException.class,
+                () -> abstractBinaryTree.subRange(null, 8));
+    }
+
+    @Test
+    public void iteratorShouldReturnElementsInAscendingOrderTest() {
+        List<Integer> elements = new ArrayList<>();
+
+        for (Integer element : abstractBinaryTree) {
+            elements.add(element);
+        }
+
+        assertEquals(List.of(7, 8, 9, 10, 11, 13, 19), elements);
+    }
+
+    @Test
+    public void iteratorWithEmptyTreeShouldHaveNoElementsTest() {
+        abstractBinaryTree.clear();
+
+        Iterator<Integer> iterator = abstractBinaryTree.iterator();
+
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    @Test
+    public void spliteratorShouldBeSortedDistinctAndSizedTest() {
+        Spliterator<Integer> spliterator = abstractBinaryTree.spliterator();
+
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SORTED));
+        assertTrue(spliterator.hasCharacteristics(Spliterator.DISTINCT));
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+        assertNull(spliterator.getComparator());
+        assertEquals(7, spliterator.estimateSize());
+    }
+
+    @Test
+    public void trySplitShouldHandOffTheLeftSubtreeTest() {
+        AbstractBinaryTree<Integer> localTree =
+                (AbstractBinaryTree<Integer>) TreeFactory.<Integer>getInstance(TreeType.RB_TREE);
+
+        for (int i = 0; i < 1_000; i++) {
+            localTree.insert(i);
+        }
+
+        Spliterator<Integer> suffix = localTree.spliterator();
+        Spliterator<Integer> prefix = suffix.trySplit();
+
+        assertNotNull(prefix);
+        assertTrue(prefix.hasCharacteristics(Spliterator.SUBSIZED));
+        assertEquals(1_000, prefix.estimateSize() + suffix.estimateSize());
+        // A red-black tree is balanced, so neither part should be tiny:
+        assertTrue(prefix.estimateSize() > 250 && suffix.estimateSize() > 250);
+
+        List<Integer> elements = new ArrayList<>();
+        prefix.forEachRemaining(elements::add);
+        suffix.forEachRemaining(elements::add);
+
+        assertEquals(localTree.getAllElements(), elements);
+    }
+
+    @Test
+    public void parallelStreamShouldMatchSequentialStreamTest() {
+        AbstractBinaryTree<Integer> localTree =
+                (AbstractBinaryTree<Integer>) TreeFactory.<Integer>getInstance(TreeType.RB_TREE);
+        Random random = new Random(42);
+
+        for (int i = 0; i < 10_000; i++) {
+            localTree.insert(random.nextInt(100_000));
+        }
+
+        assertEquals(localTree.stream().mapToLong(Integer::longValue).sum(),
+                localTree.stream().parallel().mapToLong(Integer::longValue).sum());
+        assertEquals(localTree.stream().filter(value -> value % 3 == 0).toList(),
+                localTree.stream().parallel().filter(value -> value % 3 == 0).toList());
+        assertEquals(localTree.size(), localTree.stream().parallel().count());
+    }
+
+    @Test
+    public void streamTest() {
+        assertEquals(List.of(8, 10),
+                abstractBinaryTree.stream().filter(value -> value % 2 == 0).toList());
+        assertEquals(77, abstractBinaryTree.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    public void buildFromSortedShouldMakeValidRedBlackTreeTest() {
+        for (int numberOfElements = 0; numberOfElements <= 130; numberOfElements++) {
+            List<Integer> values = new ArrayList<>();
+            for (int i = 0; i < numberOfElements; i++) {
+                values.add(2 * i);
+            }
+
+            AbstractBinaryTree<Integer> localTree = (AbstractBinaryTree<Integer>)
+                    TreeFactory.getInstanceFromSorted(TreeType.RB_TREE, values.iterator());
+
+            assertEquals(numberOfElements, localTree.size());
+            assertEquals(values, localTree.getAllElements());
+            assertEquals(computeHeight(localTree.root), localTree.height());
+            // A perfectly balanced tree has the minimal possible height:
+            assertEquals(32 - Integer.numberOfLeadingZeros(numberOfElements), localTree.height());
+            assertTrue(isValidRedBlackTree(localTree.root));
+
+            // The tree should stay valid after it is changed:
+            localTree.insert(1);
+            localTree.erase(0);
+            assertTrue(isValidRedBlackTree(localTree.root));
+        }
+    }
+
+    @Test
+    public void buildFromSortedWithUnsortedValuesShouldSortThemTest() {
+        List<Integer> values = List.of(5, 3, 9, 3, 1, 5);
+
+        abstractBinaryTree.buildFromSorted(values.iterator());
+
+        assertEquals(List.of(1, 3, 5, 9), abstractBinaryTree.getAllElements());
+        assertEquals(4, abstractBinaryTree.size());
+        assertTrue(abstractBinaryTree.contains(9));
+    }
+
+    @Test
+    public void buildFromSortedWithNullValuesShouldThrowExceptionTest() {
+        assertThrows(IllegalArgumentException.class,
+                () -> abstractBinaryTree.buildFromSorted(null));
+        assertThrows(IllegalArgumentException.class,
+                () -> abstractBinaryTree.buildFromSorted(Arrays.asList(1, null, 3).iterator()));
+    }
+
+    private static boolean isValidRedBlackTree(AbstractBinaryTree.BinaryTreeNode<Integer> root) {
+        return (root == null || root.color == Color.BLACK) && blackHeight(root) >= 0;
+    }
+
+    /**
+     * @return The number of black nodes on every path from {@code node} to
+     * a leaf, or -1 if the paths differ, a red node has a red child or the
+     * parent links or cached sizes are wrong.
+     */
+    private static int blackHeight(AbstractBinaryTree.BinaryTreeNode<Integer> node) {
+        if (node == null) {
+            return 0;
+        }
+
+        for (AbstractBinaryTree.BinaryTreeNode<Integer> child
+                : Arrays.asList(node.leftChild, node.rightChild)) {
+            if (child != null && (child.parent != node
+                    || (node.color == Color.RED && child.color == Color.RED))) {
+                return -1;
+            }
+        }
+
+        int leftBlackHeight = blackHeight(node.leftChild);
+        int rightBlackHeight = blackHeight(node.rightChild);
+
+        if (leftBlackHeight < 0 || leftBlackHeight != rightBlackHeight
+                || node.subtreeSize != 1 + AbstractBinaryTree.BinaryTreeNode.subtreeSize(node.leftChild)
+                + AbstractBinaryTree.BinaryTreeNode.subtreeSize(node.rightChild)) {
+            return -1;
+        }
+
+        return leftBlackHeight + (node.color == Color.BLACK ? 1 : 0);
+    }
+
     @Test
     public void textWithNullTraversalValueShouldThrowExceptionTest() {
         assertThrows(IllegalArgumentException.class,
@@ -214,7 +559,7 @@ public class AbstractBinaryTreeTest {
     public void textWithSevenNodeTreePreorderTraversalTest() {
         StringBuilder textRepresentationOfSevenNodeTree = new StringBuilder();
 
-        textRepresentationOfSevenNodeTree.append("10 7 8 9 11 13 19 ");
+        textRepresentationOfSevenNodeTree.append("10 9 8 7 13 11 19 ");
 
         assertEquals(textRepresentationOfSevenNodeTree.toString(),
                 abstractBinaryTree.text(Traversal.PREORDER).toString());
@@ -224,12 +569,47 @@ public class AbstractBinaryTreeTest {
     public void textWithSevenNodeTreePostorderTraversalTest() {
         StringBuilder textRepresentationOfSevenNodeTree = new StringBuilder();
 
-        textRepresentationOfSevenNodeTree.append("7 8 9 11 13 19 10 ");
+        textRepresentationOfSevenNodeTree.append("7 8 9 11 19 13 10 ");
 
         assertEquals(textRepresentationOfSevenNodeTree.toString(),
                 abstractBinaryTree.text(Traversal.POSTORDER).toString());
     }
 
+    @Test
+    public void textToAppendableTest() throws IOException {
+        StringWriter writer = new StringWriter();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+        abstractBinaryTree.text(Traversal.POSTORDER, writer);
+        abstractBinaryTree.text(Traversal.PREORDER, stream);
+
+        assertEquals("7 8 9 11 19 13 10 ", writer.toString());
+        assertEquals("10 9 8 7 13 11 19 ", stream.toString(StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class,
+                () -> abstractBinaryTree.text(Traversal.INORDER, (Appendable) null));
+    }
+
+    @Test
+    public void textOfDegenerateTreeShouldNotOverflowStackTest() throws IOException {
+        // Inserting sorted keys one by one takes quadratic time, so the
+        // right spine of 100 000 nodes is linked directly.
+        AbstractBinaryTree.BinaryTreeNode<Integer> node = new AbstractBinaryTree.BinaryTreeNode<>(99_999);
+        for (int i = 99_998; i >= 0; i--) {
+            AbstractBinaryTree.BinaryTreeNode<Integer> parent =
+                    new AbstractBinaryTree.BinaryTreeNode<>(i, null, node);
+            node.parent = parent;
+            node = parent;
+        }
+        abstractBinaryTree.root = node;
+        abstractBinaryTree.size = 100_000;
+
+        StringWriter writer = new StringWriter();
+        abstractBinaryTree.text(Traversal.POSTORDER, writer);
+
+        assertTrue(writer.toString().startsWith("99999 99998 "));
+        assertTrue(writer.toString().endsWith(" 1 0 "));
+    }
+
     @Test
     public void getAllElementsWithEmptyTreeShouldReturnEmptyCollectionTest() {
         abstractBinaryTree.clear();
@@ -272,4 +652,184 @@ public class AbstractBinaryTreeTest {
         assertTrue(collectionOfCurrentTreeElements.containsAll(abstractBinaryTree.getAllElements()));
     }
 
-}
\ No newline at end of file
+
+    @Test
+    public void snapshotShouldNotSeeLaterChangesTest() {
+        AbstractBinaryTree<Integer>.Snapshot snapshot = abstractBinaryTree.openSnapshot();
+        Iterator<Integer> iterator = snapshot.iterator();
+
+        abstractBinaryTree.erase(10);
+        abstractBinaryTree.erase(8);
+        abstractBinaryTree.insert(12);
+
+        List<Integer> iterated = new ArrayList<>();
+        iterator.forEachRemaining(iterated::add);
+
+        assertEquals(List.of(7, 8, 9, 10, 11, 13, 19), iterated);
+        assertEquals(7, snapshot.size());
+        assertEquals(List.of(7, 9, 11, 12, 13, 19), abstractBinaryTree.getAllElements());
+
+        snapshot.close();
+        assertThrows(IllegalStateException.class, () -> snapshot.iterator().next());
+    }
+
+    @Test
+    public void snapshotsOfRedBlackTreeShouldSurviveRotationsTest() {
+        AbstractBinaryTree<Integer> tree = (AbstractBinaryTree<Integer>) TreeFactory.getInstance(TreeType.RB_TREE);
+        Random random = new Random(5);
+        TreeSet<Integer> expected = new TreeSet<>();
+        List<AbstractBinaryTree<Integer>.Snapshot> snapshots = new ArrayList<>();
+        List<List<Integer>> expectedSnapshots = new ArrayList<>();
+
+        for (int i = 0; i < 5_000; i++) {
+            int key = random.nextInt(500);
+            if (random.nextInt(3) != 0) {
+                tree.insert(key);
+                expected.add(key);
+            } else {
+                tree.erase(key);
+                expected.remove(key);
+            }
+
+            if (i % 500 == 0) {
+                snapshots.add(tree.openSnapshot());
+                expectedSnapshots.add(new ArrayList<>(expected));
+            }
+            if (i % 1_500 == 0) {
+                // Closing the oldest snapshot lets the changes drop its versions.
+                snapshots.get(0).close();
+                snapshots.remove(0);
+                expectedSnapshots.remove(0);
+            }
+        }
+
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertEquals(expectedSnapshots.get(i), snapshots.get(i).getAllElements());
+            snapshots.get(i).close();
+        }
+        assertEquals(new ArrayList<>(expected), tree.getAllElements());
+    }
+
+    @Test
+    public void snapshotShouldBeIterableWhileTheTreeIsChangedTest() throws Exception {
+        AbstractBinaryTree<Integer> tree = (AbstractBinaryTree<Integer>) TreeFactory.getInstance(TreeType.RB_TREE);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            for (int round = 0; round < 20; round++) {
+                int from = round * 10_000;
+                List<Integer> expected = IntStream.range(0, from).boxed().toList();
+
+                try (AbstractBinaryTree<Integer>.Snapshot snapshot = tree.openSnapshot()) {
+                    List<Future<Collection<Integer>>> readers = new ArrayList<>();
+                    for (int t = 0; t < 2; t++) {
+                        readers.add(executor.submit(snapshot::getAllElements));
+                    }
+
+                    for (int key = from; key < from + 10_000; key++) {
+                        tree.insert(key);
+                    }
+
+                    for (Future<Collection<Integer>> reader : readers) {
+                        assertEquals(expected, reader.get());
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(200_000, tree.size());
+    }
+
+    private static BitSet bits(int... indices) {
+        BitSet bits = new BitSet();
+        for (int index : indices) {
+            bits.set(index);
+        }
+        return bits;
+    }
+
+    @Test
+    public void batchOperationsWithNullValuesShouldThrowExceptionTest() {
+        assertThrows(IllegalArgumentException.class, () -> abstractBinaryTree.containsAll(null));
+        assertThrows(IllegalArgumentException.class, () -> abstractBinaryTree.insertAll(Arrays.asList(1, null)));
+        assertThrows(IllegalArgumentException.class, () -> abstractBinaryTree.eraseAll(Arrays.asList(7, null)));
+
+        // The values before the null one are not changed either.
+        assertFalse(abstractBinaryTree.contains(1));
+        assertTrue(abstractBinaryTree.contains(7));
+    }
+
+    @Test
+    public void containsAllShouldReportEveryKeyTest() {
+        assertEquals(bits(0, 2, 3, 5), abstractBinaryTree.containsAll(List.of(19, 12, 7, 19, 6, 10)));
+        assertEquals(new BitSet(), abstractBinaryTree.containsAll(List.of()));
+    }
+
+    @Test
+    public void insertAllShouldReportTheAddedValuesTest() {
+        // A batch which is smaller than the tree is inserted along the finger path:
+        assertEquals(bits(1), abstractBinaryTree.insertAll(List.of(9, 12, 12)));
+        assertEquals(bits(0, 2, 4), abstractBinaryTree.insertAll(List.of(20, 13, 1, 20, 5, 7)));
+
+        // and one as large as the tree is merged with it:
+        assertEquals(bits(1, 2, 5, 6, 7, 8, 9, 10, 11),
+                abstractBinaryTree.insertAll(List.of(1, 4, 3, 3, 19, 2, 6, 0, 21, 22, 23, 24)));
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 19, 20, 21, 22, 23, 24),
+                abstractBinaryTree.getAllElements());
+        assertEquals(20, abstractBinaryTree.size());
+    }
+
+    @Test
+    public void eraseAllShouldReportTheRemovedKeysTest() {
+        assertEquals(bits(0), abstractBinaryTree.eraseAll(List.of(7, 12)));
+
+        assertEquals(bits(1, 3), abstractBinaryTree.eraseAll(List.of(12, 19, 19, 8, 1, 100)));
+        assertEquals(List.of(9, 10, 11, 13), abstractBinaryTree.getAllElements());
+        assertEquals(4, abstractBinaryTree.size());
+    }
+
+    @Test
+    public void batchOperationsShouldMatchTreeSetTest() {
+        AbstractBinaryTree<Integer> tree = (AbstractBinaryTree<Integer>) TreeFactory.getInstance(TreeType.RB_TREE);
+        Random random = new Random(13);
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        for (int round = 0; round < 200; round++) {
+            // Batches of very different sizes take both ways of changing the tree.
+            List<Integer> batch = random.ints(1 + random.nextInt(round % 2 == 0 ? 10 : 1_000), 0, 2_000)
+                    .boxed().toList();
+            BitSet expectedBits = new BitSet();
+            TreeSet<Integer> seen = new TreeSet<>();
+
+            if (random.nextInt(3) != 0) {
+                for (int i = 0; i < batch.size(); i++) {
+                    if (!expected.contains(batch.get(i)) && seen.add(batch.get(i))) {
+                        expectedBits.set(i);
+                    }
+                }
+                expected.addAll(batch);
+                assertEquals(expectedBits, tree.insertAll(batch));
+            } else {
+                for (int i = 0; i < batch.size(); i++) {
+                    if (expected.contains(batch.get(i)) && seen.add(batch.get(i))) {
+                        expectedBits.set(i);
+                    }
+                }
+                expected.removeAll(batch);
+                assertEquals(expectedBits, tree.eraseAll(batch));
+            }
+
+            assertEquals(expected.size(), tree.size());
+
+            for (int i = 0; i < batch.size(); i++) {
+                expectedBits.set(i, expected.contains(batch.get(i)));
+            }
+            assertEquals(expectedBits, tree.containsAll(batch));
+        }
+
+        assertEquals(new ArrayList<>(expected), tree.getAllElements());
+        assertTrue(tree.height() <= 2 * (32 - Integer.numberOfLeadingZeros(tree.size() + 1)));
+    }
+}
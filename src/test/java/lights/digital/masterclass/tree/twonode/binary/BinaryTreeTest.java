@@ -181,6 +181,61 @@ public class BinaryTreeTest {
 
         assertTrue(binaryTree.getAllElements().containsAll(listOfElementsExpectedToBeInTreeAfterErasing));
     }
+
+    @Test
+    public void eraseWithNodeHavingTwoChildrenShouldNotIncreaseHeightTest() {
+        BinaryTree<Integer> localBinaryTree = new BinaryTree<>();
+
+        // The tree is:
+        //               50
+        //         ┌─────┴─────┐
+        //        25          75
+        //      ┌──┴──┐     ┌──┴──┐
+        //     10    30    60    90
+        for (int value : new int[]{50, 25, 75, 10, 30, 60, 90}) {
+            localBinaryTree.insert(value);
+        }
+
+        // Erasing the root should put its successor 60 in its place
+        // without changing the shape of the other subtrees:
+        localBinaryTree.erase(50);
+
+        assertFalse(localBinaryTree.contains(50));
+        assertEquals(6, localBinaryTree.size());
+        assertEquals(3, localBinaryTree.height());
+        assertTrue(localBinaryTree.getAllElements().containsAll(List.of(10, 25, 30, 60, 75, 90)));
+    }
+
+    @Test
+    public void operationsOnDegenerateTreeShouldNotOverflowTheStackTest() {
+        BinaryTree<Integer> localBinaryTree = new BinaryTree<>();
+        int numberOfElements = 30_000;
+
+        // Inserting sorted values makes the tree a single right spine:
+        for (int i = 0; i < numberOfElements; i++) {
+            localBinaryTree.insert(i);
+        }
+
+        assertEquals(numberOfElements, localBinaryTree.size());
+        assertEquals(numberOfElements, localBinaryTree.height());
+        assertTrue(localBinaryTree.contains(numberOfElements - 1));
+        assertFalse(localBinaryTree.contains(numberOfElements));
+
+        localBinaryTree.erase(numberOfElements - 1);
+
+        assertFalse(localBinaryTree.contains(numberOfElements - 1));
+        assertEquals(numberOfElements - 1, localBinaryTree.size());
+    }
+
+    @Test
+    public void insertWithAlreadyExistingValueShouldNotChangeSizeTest() {
+        binaryTree.insert(9);
+        binaryTree.insert(1000);
+        binaryTree.insert(1000);
+
+        assertEquals(8, binaryTree.size());
+        assertTrue(binaryTree.contains(1000));
+    }
 }
 
 